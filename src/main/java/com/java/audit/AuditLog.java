@@ -0,0 +1,155 @@
+package com.java.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Durable audit trail of logins and sign-ups. {@link #record} only encodes the entry into a lock-free ring and
+ * returns; a background thread appends the ring to memory-mapped segments under {@code app.audit.directory}
+ * and forces them to disk every {@code app.audit.force-interval-ms}. When the ring is full the entry is dropped
+ * and counted in the {@code audit.dropped} metric rather than slowing the request down.
+ */
+@Slf4j
+@Component
+public class AuditLog {
+
+    private static final int DRAIN_BATCH = 4096;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.audit.directory:./data/audit}")
+    private String directory;
+
+    @Value("${app.audit.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${app.audit.ring-capacity:65536}")
+    private int ringCapacity;
+
+    @Value("${app.audit.force-interval-ms:1000}")
+    private long forceIntervalMs;
+
+    private AuditRingBuffer ring;
+    private AuditSegmentWriter writer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        writer = new AuditSegmentWriter(Paths.get(directory), (long) segmentSizeMb << 20);
+        ring = new AuditRingBuffer(ringCapacity);
+        FunctionCounter.builder("audit.dropped", ring, AuditRingBuffer::dropped)
+                .description("Audit records dropped because the ring buffer was full").register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Audit log writing to {}, next sequence {}", Paths.get(directory).toAbsolutePath(),
+                writer.getNextSequence());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        writer.close();
+    }
+
+    /**
+     * Records an event for {@code userId} (null when unknown), taking the client IP from the current request.
+     */
+    public void record(AuditRecord.Type type, UUID userId, AuditRecord.Result result) {
+        if (ring != null) {
+            ring.offer(System.currentTimeMillis(), userId, type, result, clientAddress());
+        }
+    }
+
+    /**
+     * Records an event for {@code userId} once the current transaction has completed: a success when it committed,
+     * a failure without the user id when it rolled back. Outside a transaction it is recorded as a success right away.
+     */
+    public void recordOnCompletion(AuditRecord.Type type, UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(type, userId, AuditRecord.Result.SUCCESS);
+            return;
+        }
+        byte[] address = clientAddress();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (ring != null) {
+                    boolean committed = status == STATUS_COMMITTED;
+                    ring.offer(System.currentTimeMillis(), committed ? userId : null, type,
+                            committed ? AuditRecord.Result.SUCCESS : AuditRecord.Result.FAILURE, address);
+                }
+            }
+        });
+    }
+
+    private static byte[] clientAddress() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        try {
+            // A literal address is parsed, never resolved
+            return InetAddress.getByName(request.getRemoteAddr()).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+        while (running || !ring.isEmpty()) {
+            try {
+                int written = ring.drain(writer::append, DRAIN_BATCH);
+                dirty |= written > 0;
+                if (dirty && System.nanoTime() - lastForce > TimeUnit.MILLISECONDS.toNanos(forceIntervalMs)) {
+                    writer.force();
+                    lastForce = System.nanoTime();
+                    dirty = false;
+                }
+                if (written == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            } catch (RuntimeException e) {
+                log.error("Audit writer failed", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+}
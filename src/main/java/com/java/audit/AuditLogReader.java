@@ -0,0 +1,138 @@
+package com.java.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads audit segments, also from the command line:
+ *
+ * <pre>
+ * AuditLogReader scan   &lt;directory&gt;             per segment record counts and a summary by type/result
+ * AuditLogReader export &lt;directory&gt; [file.csv]  every record as CSV, to stdout by default
+ * </pre>
+ *
+ * Each segment is read up to its first empty or torn slot, so it is safe to run against a live log.
+ */
+public final class AuditLogReader {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d+)\\.seg");
+
+    private AuditLogReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[0].equals("scan") || args[0].equals("export"))) {
+            System.err.println("Usage: AuditLogReader scan <directory> | export <directory> [file.csv]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[1]);
+        if (args[0].equals("scan")) {
+            summarize(directory, System.out);
+        } else if (args.length > 2) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+                export(directory, out);
+            }
+        } else {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            export(directory, out);
+            out.flush();
+        }
+    }
+
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted((a, b) -> Integer.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Passes every valid record of a segment to {@code consumer}, stopping at the first empty or torn slot.
+     *
+     * @return the number of records read
+     */
+    public static long scan(Path segment, Consumer<AuditRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            long count = 0;
+            for (int at = 0; at + AuditRecord.SIZE <= buffer.capacity(); at += AuditRecord.SIZE) {
+                AuditRecord record = AuditRecord.decode(buffer, at, crc);
+                if (record == null) {
+                    break;
+                }
+                consumer.accept(record);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    public static void export(Path directory, Writer out) throws IOException {
+        out.write(AuditRecord.CSV_HEADER);
+        out.write('\n');
+        for (Path segment : segments(directory)) {
+            scan(segment, record -> {
+                try {
+                    out.write(record.toCsv());
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    static void summarize(Path directory, PrintStream out) throws IOException {
+        Map<AuditRecord.Type, long[]> byType = new EnumMap<>(AuditRecord.Type.class);
+        long total = 0;
+        for (Path segment : segments(directory)) {
+            long count = scan(segment, record -> byType
+                    .computeIfAbsent(record.type(), type -> new long[AuditRecord.Result.values().length])
+                    [record.result().ordinal()]++);
+            out.printf("%s: %d record(s)%n", segment.getFileName(), count);
+            total += count;
+        }
+        out.printf("total: %d record(s)%n", total);
+        byType.forEach((type, results) -> {
+            for (AuditRecord.Result result : AuditRecord.Result.values()) {
+                out.printf("  %s %s: %d%n", type, result, results[result.ordinal()]);
+            }
+        });
+    }
+
+    static String segmentName(int number) {
+        return String.format("audit-%06d.seg", number);
+    }
+
+    static int segmentNumber(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not an audit segment: " + segment);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+}
@@ -0,0 +1,114 @@
+package com.java.audit;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * One audit entry and its fixed 64 byte on-disk layout:
+ *
+ * <pre>
+ *  0  timestamp (epoch millis)     8  user id (high)     16  user id (low)
+ * 24  type   25  result   26  ip length (0, 4 or 16)   27  format version
+ * 28  ip address (16)    44  sequence    52  reserved (8)    60  CRC32C of bytes 0-59
+ * </pre>
+ *
+ * A slot whose format byte or checksum does not match is unwritten or torn.
+ */
+public record AuditRecord(long sequence, Instant timestamp, UUID userId, Type type, Result result, String ip) {
+
+    public static final int SIZE = 64;
+
+    public static final UUID UNKNOWN_USER = new UUID(0, 0);
+
+    static final String CSV_HEADER = "sequence,timestamp,userId,type,result,ip";
+
+    private static final int TIMESTAMP = 0;
+    private static final int USER_HIGH = 8;
+    private static final int USER_LOW = 16;
+    private static final int TYPE = 24;
+    private static final int RESULT = 25;
+    private static final int IP_LENGTH = 26;
+    private static final int FORMAT = 27;
+    private static final int IP = 28;
+    private static final int SEQUENCE = 44;
+    private static final int CRC = 60;
+    private static final byte FORMAT_VERSION = 1;
+
+    public enum Type {
+        LOGIN, SIGN_UP
+    }
+
+    public enum Result {
+        SUCCESS, FAILURE
+    }
+
+    /**
+     * Writes everything but the sequence and checksum, which are assigned when the record reaches the log.
+     */
+    static void encode(ByteBuffer buffer, int at, long timestamp, UUID userId, Type type, Result result, byte[] ip) {
+        UUID user = userId != null ? userId : UNKNOWN_USER;
+        buffer.putLong(at + TIMESTAMP, timestamp);
+        buffer.putLong(at + USER_HIGH, user.getMostSignificantBits());
+        buffer.putLong(at + USER_LOW, user.getLeastSignificantBits());
+        buffer.put(at + TYPE, (byte) type.ordinal());
+        buffer.put(at + RESULT, (byte) result.ordinal());
+        buffer.put(at + IP_LENGTH, (byte) (ip != null ? ip.length : 0));
+        buffer.put(at + FORMAT, FORMAT_VERSION);
+        for (int i = 0; i < 16; i++) {
+            buffer.put(at + IP + i, ip != null && i < ip.length ? ip[i] : 0);
+        }
+        buffer.putLong(at + SEQUENCE, 0);
+        buffer.putLong(at + SEQUENCE + 8, 0);
+    }
+
+    static void seal(ByteBuffer buffer, int at, long sequence, CRC32C crc) {
+        buffer.putLong(at + SEQUENCE, sequence);
+        buffer.putInt(at + CRC, checksum(buffer, at, crc));
+    }
+
+    /**
+     * Reads the record at {@code at}, or returns null when the slot is empty or fails its checksum.
+     */
+    static AuditRecord decode(ByteBuffer buffer, int at, CRC32C crc) {
+        if (buffer.get(at + FORMAT) != FORMAT_VERSION || buffer.getInt(at + CRC) != checksum(buffer, at, crc)) {
+            return null;
+        }
+        int ipLength = buffer.get(at + IP_LENGTH);
+        String ip = null;
+        if (ipLength == 4 || ipLength == 16) {
+            byte[] address = new byte[ipLength];
+            buffer.get(at + IP, address);
+            try {
+                ip = InetAddress.getByAddress(address).getHostAddress();
+            } catch (UnknownHostException e) {
+                // cannot happen for 4 or 16 bytes
+            }
+        }
+        return new AuditRecord(buffer.getLong(at + SEQUENCE), Instant.ofEpochMilli(buffer.getLong(at + TIMESTAMP)),
+                new UUID(buffer.getLong(at + USER_HIGH), buffer.getLong(at + USER_LOW)),
+                Type.values()[buffer.get(at + TYPE)], Result.values()[buffer.get(at + RESULT)], ip);
+    }
+
+    static boolean isBlank(ByteBuffer buffer, int at) {
+        for (int i = 0; i < SIZE; i += 8) {
+            if (buffer.getLong(at + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int checksum(ByteBuffer buffer, int at, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(at, CRC));
+        return (int) crc.getValue();
+    }
+
+    String toCsv() {
+        return sequence + "," + timestamp + "," + userId + "," + type + "," + result + "," + (ip != null ? ip : "");
+    }
+}
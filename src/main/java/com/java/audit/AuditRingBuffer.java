@@ -0,0 +1,78 @@
+package com.java.audit;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Bounded multi-producer, single-consumer ring of encoded {@link AuditRecord}s. Producers claim a slot with a CAS
+ * on the claim counter, encode into it and publish it with a release store of its sequence; they never block and
+ * drop the record when the ring is full. The consumer reads published slots in sequence order.
+ */
+class AuditRingBuffer {
+
+    private final int mask;
+    private final byte[] slots;
+    private final ByteBuffer view;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    AuditRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new byte[capacity * AuditRecord.SIZE];
+        this.view = ByteBuffer.wrap(slots);
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    boolean offer(long timestamp, UUID userId, AuditRecord.Type type, AuditRecord.Result result, byte[] ip) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        // Absolute puts leave the shared view's position alone, so producers can encode concurrently
+        AuditRecord.encode(view, slot * AuditRecord.SIZE, timestamp, userId, type, result, ip);
+        published.setRelease(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code max} published records, in order, to {@code consumer} as (slots, offset) and frees
+     * their slots. Only one thread may drain.
+     */
+    int drain(ObjIntConsumer<byte[]> consumer, int max) {
+        long sequence = consumed.get();
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) (sequence & mask);
+            if (published.getAcquire(slot) != sequence + 1) {
+                break;
+            }
+            consumer.accept(slots, slot * AuditRecord.SIZE);
+            consumed.setRelease(++sequence);
+            drained++;
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return consumed.get() == claimed.get();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+}
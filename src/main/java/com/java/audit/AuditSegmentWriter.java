@@ -0,0 +1,129 @@
+package com.java.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Appends records to pre-sized, memory-mapped segment files ({@code audit-000001.seg}, ...) and rolls over to a
+ * new segment when the current one is full. Mapped writes survive a process crash as soon as they are made;
+ * {@link #force()} makes them survive a host crash too.
+ *
+ * <p>On open, the last segment is scanned up to the first slot that is empty or fails its checksum. Appending
+ * resumes there, and any written slots beyond it (left by a torn write) are cleared so readers never see
+ * stale records after the recovered end.</p>
+ *
+ * <p>Not thread-safe: owned by the single audit writer thread.</p>
+ */
+class AuditSegmentWriter implements Closeable {
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final byte[] scratch = new byte[AuditRecord.SIZE];
+    private final ByteBuffer scratchView = ByteBuffer.wrap(scratch);
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentNumber;
+    private int position;
+    private long nextSequence = 1;
+
+    AuditSegmentWriter(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = (int) Math.min(segmentBytes / AuditRecord.SIZE, Integer.MAX_VALUE / AuditRecord.SIZE);
+        if (recordsPerSegment < 1) {
+            throw new IllegalArgumentException("Segment size must hold at least one record");
+        }
+        Files.createDirectories(directory);
+
+        List<Path> segments = AuditLogReader.segments(directory);
+        if (segments.isEmpty()) {
+            open(1);
+            return;
+        }
+        if (segments.size() > 1) {
+            nextSequence = lastSequence(segments.get(segments.size() - 2)) + 1;
+        }
+        open(AuditLogReader.segmentNumber(segments.get(segments.size() - 1)));
+        recover();
+    }
+
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Seals the encoded record at {@code offset} of {@code source} with the next sequence and appends it.
+     */
+    void append(byte[] source, int offset) {
+        if (position == recordsPerSegment) {
+            rotate();
+        }
+        System.arraycopy(source, offset, scratch, 0, AuditRecord.SIZE);
+        AuditRecord.seal(scratchView, 0, nextSequence++, crc);
+        segment.put(position * AuditRecord.SIZE, scratch);
+        position++;
+    }
+
+    void force() {
+        segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment.force();
+        channel.close();
+    }
+
+    private void open(int number) throws IOException {
+        segmentNumber = number;
+        position = 0;
+        channel = FileChannel.open(directory.resolve(AuditLogReader.segmentName(number)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * AuditRecord.SIZE);
+    }
+
+    private void rotate() {
+        try {
+            close();
+            open(segmentNumber + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll over to audit segment " + (segmentNumber + 1), e);
+        }
+    }
+
+    private void recover() throws IOException {
+        int capacity = (int) Math.min(recordsPerSegment, channel.size() / AuditRecord.SIZE);
+        AuditRecord record;
+        while (position < capacity && (record = AuditRecord.decode(segment, position * AuditRecord.SIZE, crc)) != null) {
+            nextSequence = record.sequence() + 1;
+            position++;
+        }
+
+        int cleared = 0;
+        for (int slot = position; slot < capacity; slot++) {
+            if (!AuditRecord.isBlank(segment, slot * AuditRecord.SIZE)) {
+                segment.put(slot * AuditRecord.SIZE, new byte[AuditRecord.SIZE]);
+                cleared++;
+            }
+        }
+        if (cleared > 0) {
+            segment.force();
+        }
+    }
+
+    private long lastSequence(Path previous) throws IOException {
+        long[] last = {0};
+        AuditLogReader.scan(previous, record -> last[0] = record.sequence());
+        return last[0];
+    }
+}
@@ -0,0 +1,51 @@
+package com.java.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.java.exceptions.UserException;
+import com.java.model.RecordingStatus;
+import com.java.profiling.FlightRecordings;
+
+// Flight recordings of the running instance, analyzed offline with com.java.profiling.JfrAnalyzer
+@RestController
+@ConditionalOnProperty(name = "app.jfr.enabled", havingValue = "true")
+public class RecordingController {
+
+	@Autowired
+	private FlightRecordings recordings;
+
+	@PostMapping("/app/admin/recordings")
+	public ResponseEntity<RecordingStatus> startRecordingHandler(@RequestParam(name = "name", defaultValue = "hot-path") String name)
+			throws UserException {
+		return new ResponseEntity<>(recordings.start(name), HttpStatus.CREATED);
+	}
+
+	@GetMapping("/app/admin/recordings")
+	public ResponseEntity<List<RecordingStatus>> listRecordingsHandler() {
+		return ResponseEntity.ok(recordings.list());
+	}
+
+	// Writes the data recorded so far to a file, the recording goes on
+	@PostMapping("/app/admin/recordings/{id}/dump")
+	public ResponseEntity<RecordingStatus> dumpRecordingHandler(@PathVariable("id") long id) throws UserException, IOException {
+		return ResponseEntity.ok(recordings.dump(id));
+	}
+
+	// Stops the recording and writes its data to a file
+	@DeleteMapping("/app/admin/recordings/{id}")
+	public ResponseEntity<RecordingStatus> stopRecordingHandler(@PathVariable("id") long id) throws UserException, IOException {
+		return ResponseEntity.ok(recordings.stop(id));
+	}
+}
@@ -0,0 +1,25 @@
+package com.java.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.java.model.TokenRefreshRequest;
+import com.java.model.TokenResponse;
+import com.java.service.TokenRefreshService;
+
+@RestController
+public class TokenController {
+
+	@Autowired
+	private TokenRefreshService tokenRefreshService;
+
+	// New access token (and rotated refresh token) for a refresh token, no login needed
+	@PostMapping("/app/token/refresh")
+	public ResponseEntity<TokenResponse> refreshTokenHandler(@Validated @RequestBody TokenRefreshRequest request) {
+		return ResponseEntity.ok(tokenRefreshService.refresh(request.getRefreshToken()));
+	}
+}
@@ -0,0 +1,35 @@
+package com.java.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.java.tracing.InMemorySpanExporter;
+import com.java.tracing.Span;
+
+// Traces kept by the in-memory exporter (app.tracing.exporter=memory), 404 with any other exporter. Admins only, spans carry SQL statements
+@RestController
+public class TraceController {
+
+	@Autowired
+	private ObjectProvider<InMemorySpanExporter> spans;
+
+	@GetMapping("/app/admin/traces/{traceId}")
+	public ResponseEntity<List<Span>> traceHandler(@PathVariable("traceId") String traceId) {
+		InMemorySpanExporter exporter = spans.getIfAvailable();
+		List<Span> trace = exporter != null ? exporter.trace(traceId) : List.of();
+		return trace.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(trace);
+	}
+
+	@GetMapping("/app/admin/traces")
+	public ResponseEntity<List<Span>> recentTracesHandler(@RequestParam(name = "limit", defaultValue = "20") int limit) {
+		InMemorySpanExporter exporter = spans.getIfAvailable();
+		return exporter != null ? ResponseEntity.ok(exporter.recentTraces(limit)) : ResponseEntity.notFound().build();
+	}
+}
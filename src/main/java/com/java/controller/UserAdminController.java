@@ -0,0 +1,49 @@
+package com.java.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.java.exceptions.UserException;
+import com.java.model.BulkOperationStatus;
+import com.java.model.UserBulkRequest;
+import com.java.service.UserBulkOperations;
+
+// Bulk operations run in the background, their progress is polled under /app/admin/users/operations/{id}
+@RestController
+public class UserAdminController {
+
+	@Autowired
+	private UserBulkOperations bulkOperations;
+
+	@PostMapping("/app/admin/users/deactivate")
+	public ResponseEntity<BulkOperationStatus> deactivateUsersHandler(@Validated @RequestBody UserBulkRequest request)
+			throws UserException {
+		return new ResponseEntity<>(bulkOperations.deactivate(request), HttpStatus.ACCEPTED);
+	}
+
+	@PostMapping("/app/admin/users/purge")
+	public ResponseEntity<BulkOperationStatus> purgeUsersHandler(@Validated @RequestBody UserBulkRequest request)
+			throws UserException {
+		return new ResponseEntity<>(bulkOperations.purge(request), HttpStatus.ACCEPTED);
+	}
+
+	@GetMapping("/app/admin/users/operations")
+	public ResponseEntity<List<BulkOperationStatus>> bulkOperationsHandler() {
+		return ResponseEntity.ok(bulkOperations.getStatuses());
+	}
+
+	@GetMapping("/app/admin/users/operations/{id}")
+	public ResponseEntity<BulkOperationStatus> bulkOperationHandler(@PathVariable("id") String id) {
+		BulkOperationStatus status = bulkOperations.getStatus(id);
+		return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+	}
+}
@@ -1,5 +1,7 @@
 package com.java.controller;
 
+import java.net.URI;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -7,8 +9,14 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import com.java.exceptions.UserException;
+import com.java.model.SignUpStatus;
 import com.java.model.UserDTO;
 import com.java.model.UserInfo;
+import com.java.model.UserLookupRequest;
+import com.java.model.UserLookupResponse;
+import com.java.model.UserPatchRequest;
+import com.java.model.UserPatchResponse;
+import com.java.service.GroupCommitSignUpQueue;
 import com.java.service.UserService;
 
 @RestController
@@ -16,19 +24,48 @@ public class UserController {
 
 	@Autowired
 	private UserService userService;
+
+	// Only present when app.signup.async.enabled=true
+	@Autowired(required = false)
+	private GroupCommitSignUpQueue signUpQueue;
 	
 	@PostMapping("/app/sign-up")
-	public ResponseEntity<UserDTO> signUpUserHandler(@Validated @RequestBody UserDTO user) throws UserException {
+	public ResponseEntity<?> signUpUserHandler(@Validated @RequestBody UserDTO user) throws UserException {
+
+		if (signUpQueue != null) {
+			SignUpStatus status = signUpQueue.submit(user);
+			return ResponseEntity.accepted()
+					.location(URI.create("/app/sign-up/status/" + status.getRequestId()))
+					.body(status);
+		}
 
 		UserDTO p = userService.registerUser(user);
 		
 		return new ResponseEntity<UserDTO>(p,HttpStatus.CREATED);
 	}
 
+	@GetMapping("/app/sign-up/status/{requestId}")
+	public ResponseEntity<SignUpStatus> signUpStatusHandler(@PathVariable String requestId) {
+		SignUpStatus status = signUpQueue != null ? signUpQueue.getStatus(requestId) : null;
+		return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+	}
+
 	// Authentication with JWT token
 	@GetMapping("/app/login")
 	public ResponseEntity<UserInfo> welcomeLoggedInUserHandler() throws UserException {
 		UserInfo user =  userService.loginUser();
 		return ResponseEntity.ok(user);
 	}
+
+	// Resolves many users by id or email in one call, for the gateway: admin tokens only, profiles include phones
+	@PostMapping("/app/admin/users/lookup")
+	public ResponseEntity<UserLookupResponse> lookupUsersHandler(@Validated @RequestBody UserLookupRequest request) {
+		return ResponseEntity.ok(userService.lookupUsers(request.getKeys()));
+	}
+
+	// Partial update of the signed-in user, answers 409 when the given version is stale
+	@PatchMapping("/app/users/me")
+	public ResponseEntity<UserPatchResponse> updateCurrentUserHandler(@Validated @RequestBody UserPatchRequest patch) throws UserException {
+		return ResponseEntity.ok(userService.updateCurrentUser(patch));
+	}
 }
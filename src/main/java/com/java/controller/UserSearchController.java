@@ -0,0 +1,26 @@
+package com.java.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.java.model.UserSearchResult;
+import com.java.search.UserSearchIndex;
+
+@RestController
+public class UserSearchController {
+
+	@Autowired
+	private UserSearchIndex searchIndex;
+
+	// Type-ahead over user name and email, ranked best match first. Support tooling, so admins only
+	@GetMapping("/app/admin/users/search")
+	public ResponseEntity<List<UserSearchResult>> searchUsersHandler(@RequestParam("q") String query,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		return ResponseEntity.ok(searchIndex.search(query, limit));
+	}
+}
@@ -0,0 +1,73 @@
+package com.java.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured data source with primary/replica routing when
+ * {@code app.datasource.routing.enabled=true}. The primary is configured with the usual
+ * {@code spring.datasource.*} properties, replicas with {@code app.datasource.routing.replicas[n].*}.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties primaryProperties,
+			DataSourceRoutingProperties routingProperties) {
+
+		DataSource primary = primaryProperties.initializeDataSourceBuilder().build();
+
+		List<DataSource> replicas = new ArrayList<>();
+		for (DataSourceRoutingProperties.Replica replica : routingProperties.getReplicas()) {
+			replicas.add(DataSourceBuilder.create()
+					.url(replica.getUrl())
+					.username(replica.getUsername())
+					.password(replica.getPassword())
+					.driverClassName(replica.getDriverClassName() != null
+							? replica.getDriverClassName() : primaryProperties.getDriverClassName())
+					.build());
+		}
+		return new ReplicaRoutingDataSource(primary, replicas);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+	@Bean
+	public ReplicaHealthCheck replicaHealthCheck(ReplicaRoutingDataSource replicaRoutingDataSource,
+			DataSourceRoutingProperties routingProperties) {
+		return new ReplicaHealthCheck(replicaRoutingDataSource, routingProperties.getHealthCheckTimeoutSeconds());
+	}
+
+	public static class ReplicaHealthCheck {
+
+		private final ReplicaRoutingDataSource routingDataSource;
+		private final int timeoutSeconds;
+
+		ReplicaHealthCheck(ReplicaRoutingDataSource routingDataSource, int timeoutSeconds) {
+			this.routingDataSource = routingDataSource;
+			this.timeoutSeconds = timeoutSeconds;
+		}
+
+		@Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval-ms:5000}")
+		public void check() {
+			routingDataSource.checkReplicaHealth(timeoutSeconds);
+		}
+	}
+}
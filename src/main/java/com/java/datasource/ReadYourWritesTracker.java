@@ -0,0 +1,34 @@
+package com.java.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers keys written recently so their reads can be pinned to the primary while replicas catch up.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    @Value("${app.datasource.routing.sticky-ms:5000}")
+    private long stickyMs;
+
+    public void recordWrite(String key) {
+        long now = System.currentTimeMillis();
+        if (recentWrites.size() > CLEANUP_THRESHOLD) {
+            recentWrites.values().removeIf(until -> until < now);
+        }
+        recentWrites.put(key, now + stickyMs);
+    }
+
+    public boolean isSticky(String key) {
+        Long until = recentWrites.get(key);
+        return until != null && until >= System.currentTimeMillis();
+    }
+}
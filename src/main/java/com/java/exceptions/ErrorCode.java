@@ -6,5 +6,7 @@ public class ErrorCode {
     public static final int VALIDATION_FAILED = 12;
     public static final int INVALID_CREDENTIALS = 13;
     public static final int INTERNAL_ERROR = 14;
+    public static final int SERVICE_BUSY = 15;
+    public static final int VERSION_CONFLICT = 16;
 
 }
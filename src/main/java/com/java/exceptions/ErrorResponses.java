@@ -0,0 +1,90 @@
+package com.java.exceptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes {@link ErrorDetails} bodies without building the object or going through Jackson: the JSON around the
+ * values is encoded once per error code, so a response only formats its timestamp and escapes its detail. The code
+ * is also left in the {@link #ERROR_CODE_ATTRIBUTE} request attribute for the request log.
+ */
+public final class ErrorResponses {
+
+	public static final String ERROR_CODE_ATTRIBUTE = "com.java.exceptions.errorCode";
+
+	private static final byte[] HEAD = "{\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+	private static final byte[][] CODE_PARTS = new byte[100][];
+
+	static {
+		for (int code = 0; code < CODE_PARTS.length; code++) {
+			CODE_PARTS[code] = codePart(code);
+		}
+	}
+
+	private ErrorResponses() {
+	}
+
+	public static ResponseEntity<byte[]> entity(HttpStatus status, int code, String detail) {
+		remember(code);
+		return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body(code, detail, LocalDateTime.now()));
+	}
+
+	public static void write(HttpServletResponse response, HttpStatus status, int code, String detail) throws IOException {
+		remember(code);
+		byte[] body = body(code, detail, LocalDateTime.now());
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	static void remember(int code) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			attributes.setAttribute(ERROR_CODE_ATTRIBUTE, code, RequestAttributes.SCOPE_REQUEST);
+		}
+	}
+
+	static byte[] body(int code, String detail, LocalDateTime timestamp) {
+		byte[] time = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp).getBytes(StandardCharsets.US_ASCII);
+		byte[] codePart = code >= 0 && code < CODE_PARTS.length ? CODE_PARTS[code] : codePart(code);
+		byte[] quoted = detail == null ? NULL : JsonStringEncoder.getInstance().quoteAsUTF8(detail);
+		int quotes = detail == null ? 0 : 2;
+
+		byte[] body = new byte[HEAD.length + time.length + codePart.length + quoted.length + quotes + 1];
+		int at = put(body, 0, HEAD);
+		at = put(body, at, time);
+		at = put(body, at, codePart);
+		if (detail != null) {
+			body[at++] = '"';
+		}
+		at = put(body, at, quoted);
+		if (detail != null) {
+			body[at++] = '"';
+		}
+		body[at] = '}';
+		return body;
+	}
+
+	private static byte[] codePart(int code) {
+		return ("\",\"code\":" + code + ",\"detail\":").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int put(byte[] target, int at, byte[] part) {
+		System.arraycopy(part, 0, target, at, part.length);
+		return at + part.length;
+	}
+}
@@ -10,50 +10,52 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
+import lombok.extern.slf4j.Slf4j;
+
+// Expected errors are answered from pre-encoded bodies (see ErrorResponses), unexpected ones are logged in full
+@Slf4j
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
 	@ExceptionHandler(UserException.class)
-	public ResponseEntity<ErrorDetails> myExceptionHandler(UserException pe , WebRequest req)
+	public ResponseEntity<byte[]> myExceptionHandler(UserException pe , WebRequest req)
+	{
+		return ErrorResponses.entity(HttpStatus.BAD_REQUEST, ErrorCode.ERROR_INPUT_REQUEST, pe.getMessage());
+	}
+
+	@ExceptionHandler(SignUpQueueFullException.class)
+	public ResponseEntity<byte[]> myExceptionHandler(SignUpQueueFullException pe)
+	{
+		return ErrorResponses.entity(HttpStatus.SERVICE_UNAVAILABLE, ErrorCode.SERVICE_BUSY, pe.getMessage());
+	}
+
+	@ExceptionHandler(UserConflictException.class)
+	public ResponseEntity<byte[]> myExceptionHandler(UserConflictException pe)
 	{
-		ErrorDetails err  = new ErrorDetails();
-		err.setTimestamp(LocalDateTime.now());
-		err.setCode(ErrorCode.ERROR_INPUT_REQUEST);
-		err.setDetail(pe.getMessage());
-		
-		return new ResponseEntity<ErrorDetails>(err,HttpStatus.BAD_REQUEST);
-		
+		return ErrorResponses.entity(HttpStatus.CONFLICT, ErrorCode.VERSION_CONFLICT, pe.getMessage());
 	}
-	
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
-	public ResponseEntity<ErrorDetails> myExceptionHandler(MethodArgumentNotValidException pe)
+	public ResponseEntity<byte[]> myExceptionHandler(MethodArgumentNotValidException pe)
 	{
-		ErrorDetails err  = new ErrorDetails();
-		err.setTimestamp(LocalDateTime.now());
-		err.setCode(ErrorCode.ERROR_SING_UP);
-		err.setDetail(pe.getFieldError().getDefaultMessage());
-		
-		return new ResponseEntity<ErrorDetails>(err,HttpStatus.BAD_REQUEST);
-		
+		return ErrorResponses.entity(HttpStatus.BAD_REQUEST, ErrorCode.ERROR_SING_UP, pe.getFieldError().getDefaultMessage());
 	}
-	 
+
 	@ExceptionHandler(BadCredentialsException.class)
-	public ResponseEntity<ErrorDetails> myExceptionHandler(BadCredentialsException e) {
-	     ErrorDetails err = new ErrorDetails();
-		 err.setCode(ErrorCode.INVALID_CREDENTIALS);
-	     err.setTimestamp(LocalDateTime.now());
-	     err.setDetail(e.getMessage());
-	     
-	     return new ResponseEntity<>(err, HttpStatus.UNAUTHORIZED);
+	public ResponseEntity<byte[]> myExceptionHandler(BadCredentialsException e) {
+		return ErrorResponses.entity(HttpStatus.UNAUTHORIZED, ErrorCode.INVALID_CREDENTIALS, e.getMessage());
 	}
-	 
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<ErrorDetails> myExceptionHandler(Exception e) {
+		 log.error("Unhandled exception", e);
+		 ErrorResponses.remember(ErrorCode.INTERNAL_ERROR);
+
 		 ErrorDetails err = new ErrorDetails();
 		 err.setCode(ErrorCode.INTERNAL_ERROR);
 		 err.setTimestamp(LocalDateTime.now());
 		 err.setDetail(e.getMessage());
-		 
+
 		 return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
 	}
 }
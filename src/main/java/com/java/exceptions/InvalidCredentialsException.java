@@ -0,0 +1,23 @@
+package com.java.exceptions;
+
+import org.springframework.security.authentication.BadCredentialsException;
+
+/**
+ * {@link BadCredentialsException} for rejected tokens, without a stack trace of its own. The cause, if any, still
+ * tells what was wrong with the token.
+ */
+public class InvalidCredentialsException extends BadCredentialsException {
+
+	public InvalidCredentialsException(String message) {
+		super(message);
+	}
+
+	public InvalidCredentialsException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
@@ -0,0 +1,8 @@
+package com.java.exceptions;
+
+public class SignUpQueueFullException extends UserException {
+
+	public SignUpQueueFullException(String message) {
+		super(message);
+	}
+}
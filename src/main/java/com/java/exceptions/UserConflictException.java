@@ -0,0 +1,8 @@
+package com.java.exceptions;
+
+public class UserConflictException extends UserException {
+
+	public UserConflictException(String message) {
+		super(message);
+	}
+}
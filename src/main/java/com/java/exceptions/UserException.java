@@ -1,13 +1,17 @@
 package com.java.exceptions;
 
+/**
+ * Expected business error, answered with a 4xx. It carries no stack trace: it is thrown routinely (duplicate
+ * sign-ups, stale versions) and always handled by {@link GlobalExceptionHandler}.
+ */
 public class UserException extends Exception {
 
 	public UserException() {
-		
+		this(null);
 	}
 	
 	public UserException(String message) {
-		super(message);
+		super(message, null, false, false);
 	}
 	
 	
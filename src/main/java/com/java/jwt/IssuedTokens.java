@@ -0,0 +1,10 @@
+package com.java.jwt;
+
+import java.util.Date;
+
+/**
+ * An access/refresh token pair handed out together, with the id and issue time of the refresh token and the role
+ * in the access token.
+ */
+public record IssuedTokens(String accessToken, String refreshToken, String refreshTokenId, Date issuedAt, String role) {
+}
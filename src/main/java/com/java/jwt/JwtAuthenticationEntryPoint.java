@@ -0,0 +1,30 @@
+package com.java.jwt;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+
+import com.java.exceptions.ErrorCode;
+import com.java.exceptions.ErrorResponses;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers requests without a valid token with a 401 and the usual error body, instead of letting the exception
+ * reach the servlet container.
+ */
+public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+	@Override
+	public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
+			throws IOException {
+		String detail = authException instanceof BadCredentialsException
+				? authException.getMessage()
+				: "Full authentication is required to access this resource";
+		ErrorResponses.write(response, HttpStatus.UNAUTHORIZED, ErrorCode.INVALID_CREDENTIALS, detail);
+	}
+}
@@ -10,7 +10,12 @@ import javax.crypto.SecretKey;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.java.exceptions.ErrorCode;
 import com.java.exceptions.ErrorDetails;
+import com.java.exceptions.InvalidCredentialsException;
 import com.java.exceptions.UserException;
+import com.java.profiling.JwtVerificationEvent;
+import com.java.profiling.StageEvent;
+import com.java.tracing.Span;
+import com.java.tracing.Tracer;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,28 +33,57 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
 
-@Slf4j
 public class JwtValidationFilter extends OncePerRequestFilter {
 
+	private final Tracer tracer;
+	private final TokenRevocationList revocationList;
+
+	public JwtValidationFilter() {
+		this(Tracer.noop());
+	}
+
+	public JwtValidationFilter(Tracer tracer) {
+		this(tracer, new TokenRevocationList());
+	}
+
+	public JwtValidationFilter(Tracer tracer, TokenRevocationList revocationList) {
+		this.tracer = tracer;
+		this.revocationList = revocationList;
+	}
+
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException, AuthenticationException {
-	
-		log.info("inside JWT validation filter.");
+
 		String jwt= request.getHeader(SecurityConstants.JWT_HEADER);
 		if(jwt != null) {
+			Span span = tracer.startSpan("jwt.verify");
+			JwtVerificationEvent event = new JwtVerificationEvent();
+			event.outcome("invalid");
 			try {
 				//extracting the word Bearer
 				jwt = jwt.substring(7);
 				SecretKey key= Keys.hmacShaKeyFor(SecurityConstants.JWT_KEY.getBytes());
 				Claims claims= Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
 
+				// Tokens issued before the "typ" claim existed are access tokens
+				if (SecurityConstants.REFRESH_TOKEN.equals(claims.getOrDefault(SecurityConstants.TOKEN_TYPE_CLAIM, SecurityConstants.ACCESS_TOKEN))) {
+					event.outcome("refresh-token");
+					throw new InvalidCredentialsException("Refresh tokens cannot authenticate requests");
+				}
+
+				// e.g. every token of a deactivated user, an in-memory lookup
+				if (revocationList.isRevoked(claims)) {
+					event.outcome("revoked");
+					throw new InvalidCredentialsException("Token has been revoked");
+				}
+
 				String username= String.valueOf(claims.get("username"));
 
-				// TODO: Get role from User
-				String role= "ROLE_ADMIN";
+				// Anything but a known elevated role, including tokens minted before the claim existed, is a user
+				String role= SecurityConstants.ROLE_ADMIN.equals(claims.get(SecurityConstants.ROLE_CLAIM))
+						? SecurityConstants.ROLE_ADMIN : SecurityConstants.ROLE_USER;
 				
 				List<GrantedAuthority> authorities = new ArrayList<>();
 				authorities.add(new SimpleGrantedAuthority(role));
@@ -57,8 +91,18 @@ public class JwtValidationFilter extends OncePerRequestFilter {
 				Authentication auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
 
 				SecurityContextHolder.getContext().setAuthentication(auth);
+				request.setAttribute(SecurityConstants.AUTHENTICATED_USER_ATTRIBUTE, username);
+				event.outcome(StageEvent.OK);
+			} catch (InvalidCredentialsException e) {
+			    // Already says why the token was refused
+			    span.error(e);
+			    throw e;
 			} catch (Exception e) {
-			    throw new BadCredentialsException("Invalid JWT Token received..", e);
+			    span.error(e);
+			    throw new InvalidCredentialsException("Invalid JWT Token received..", e);
+			} finally {
+				event.commit();
+				span.close();
 			}
 
 		}
@@ -68,7 +112,8 @@ public class JwtValidationFilter extends OncePerRequestFilter {
 
 	@Override
 	protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
-		return request.getServletPath().equals("/app/sign-up");
+		// The refresh endpoint authenticates with the refresh token in its body, whatever the header holds
+		return request.getServletPath().equals("/app/sign-up") || request.getServletPath().equals("/app/token/refresh");
 	}
 
 }
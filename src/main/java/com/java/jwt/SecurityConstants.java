@@ -4,4 +4,20 @@ public interface SecurityConstants {
 
 	public static final String JWT_KEY ="R1BYcTVXVGNDU2JmWHVnZ1lnN0FKeGR3cU1RUU45QXV4SDJONFZ3ckhwS1N0ZjNCYVkzZ0F4RVBSS1UzRENwRw==";
 	public static final String JWT_HEADER ="Authorization";
+
+	// "typ" claim: access tokens authenticate requests, refresh tokens are only accepted by /app/token/refresh
+	public static final String TOKEN_TYPE_CLAIM ="typ";
+	public static final String ACCESS_TOKEN ="access";
+	public static final String REFRESH_TOKEN ="refresh";
+
+	// Tokens carry the user's role, the only authority a request is granted; refresh tokens pass it on without a lookup
+	public static final String ROLE_CLAIM ="role";
+	public static final String ROLE_USER ="ROLE_USER";
+	public static final String ROLE_ADMIN ="ROLE_ADMIN";
+
+	// "iat" only has whole seconds; this claim keeps the millisecond so a revocation leaves later tokens of that second valid
+	public static final String ISSUED_AT_MS_CLAIM ="iat_ms";
+
+	// Request attribute holding the email of the token's user, still readable after the security context is cleared
+	public static final String AUTHENTICATED_USER_ATTRIBUTE ="com.java.jwt.authenticatedUser";
 }
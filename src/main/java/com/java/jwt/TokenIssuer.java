@@ -0,0 +1,93 @@
+package com.java.jwt;
+
+import com.java.utils.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out tokens on login. A user who logged in less than {@code app.jwt.reuse.max-age-seconds} ago gets the
+ * same tokens again instead of freshly signed ones, unless the refresh token has been revoked or exchanged since.
+ *
+ * <p>The last tokens of up to {@code app.jwt.reuse.cache-size} users are kept. Entries older than the reuse
+ * window are useless and evicted when the cache fills up; if it is still full, new tokens are simply not cached.
+ * Minted and reused tokens are counted in {@code auth.tokens.issued}.</p>
+ */
+@Slf4j
+@Component
+public class TokenIssuer {
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
+    private final long maxAgeMillis;
+    private final int cacheSize;
+
+    private final Map<String, IssuedTokens> recent = new ConcurrentHashMap<>();
+    private final Counter minted;
+    private final Counter reused;
+
+    public TokenIssuer(JwtUtil jwtUtil, TokenRevocationList revocationList, MeterRegistry meterRegistry,
+            @Value("${app.jwt.reuse.max-age-seconds:60}") long maxAgeSeconds,
+            @Value("${app.jwt.reuse.cache-size:10000}") int cacheSize) {
+        this.jwtUtil = jwtUtil;
+        this.revocationList = revocationList;
+        this.cacheSize = cacheSize;
+
+        // A reused access token must keep most of its lifetime
+        long limit = jwtUtil.getAccessTokenTtlSeconds() / 2;
+        if (maxAgeSeconds > limit) {
+            log.warn("app.jwt.reuse.max-age-seconds={} exceeds half the access token lifetime, using {}", maxAgeSeconds, limit);
+        }
+        this.maxAgeMillis = Math.min(maxAgeSeconds, limit) * 1000;
+
+        this.minted = Counter.builder("auth.tokens.issued").tag("outcome", "minted")
+                .description("Token pairs handed out on login or sign-up").register(meterRegistry);
+        this.reused = Counter.builder("auth.tokens.issued").tag("outcome", "reused")
+                .description("Token pairs handed out on login or sign-up").register(meterRegistry);
+    }
+
+    public IssuedTokens issue(String email) {
+        return issue(email, SecurityConstants.ROLE_USER);
+    }
+
+    public IssuedTokens issue(String email, String role) {
+        long now = System.currentTimeMillis();
+        IssuedTokens cached = recent.get(email);
+        if (cached != null && now - cached.issuedAt().getTime() < maxAgeMillis && cached.role().equals(role)
+                && !revocationList.isRevoked(email, cached.refreshTokenId(), cached.issuedAt())) {
+            reused.increment();
+            return cached;
+        }
+
+        String refreshTokenId = UUID.randomUUID().toString();
+        // A cut-off set within this very millisecond would revoke the new tokens on arrival
+        Date issuedAt = new Date(Math.max(now, revocationList.revokedBefore(email) + 1));
+        IssuedTokens tokens = new IssuedTokens(jwtUtil.generateToken(email, role, issuedAt),
+                jwtUtil.generateRefreshToken(email, role, refreshTokenId, issuedAt), refreshTokenId, issuedAt, role);
+        minted.increment();
+
+        if (maxAgeMillis > 0) {
+            if (recent.size() >= cacheSize && !recent.containsKey(email)) {
+                recent.values().removeIf(entry -> now - entry.issuedAt().getTime() >= maxAgeMillis);
+            }
+            if (recent.size() < cacheSize || recent.containsKey(email)) {
+                recent.put(email, tokens);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Drops the cached tokens of a user, so the next login signs new ones.
+     */
+    public void forget(String email) {
+        recent.remove(email);
+    }
+}
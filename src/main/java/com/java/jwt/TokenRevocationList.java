@@ -0,0 +1,82 @@
+package com.java.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation state: single refresh token ids, kept until the token would have expired anyway, and per-user
+ * cut-offs that revoke every token, access tokens included, issued up to a point in time. Revocations are local to this
+ * instance and do not survive a restart.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${app.jwt.refresh-token-ttl-seconds:1209600}")
+    private long refreshTokenTtlSeconds = 1209600;
+
+    /**
+     * Revokes one token.
+     *
+     * @return false if the token was already revoked
+     */
+    public boolean revoke(String tokenId, Date expiresAt) {
+        return revokedIds.putIfAbsent(tokenId, expiresAt.getTime()) == null;
+    }
+
+    /**
+     * Revokes every token of {@code subject} issued so far. Tokens issued afterwards stay valid, even within the same
+     * second, as long as they carry the millisecond issue time.
+     */
+    public void revokeAll(String subject) {
+        revokedBefore.merge(subject, System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Time up to which every token of {@code subject} is revoked, or 0 when none is.
+     */
+    public long revokedBefore(String subject) {
+        return revokedBefore.getOrDefault(subject, 0L);
+    }
+
+    public boolean isRevokedId(String tokenId) {
+        return tokenId != null && revokedIds.containsKey(tokenId);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        return isRevoked(claims.getSubject(), claims.getId(), issuedAt(claims));
+    }
+
+    /**
+     * Issue time of a token to the millisecond. Tokens minted before the millisecond claim existed only have the
+     * second, which counts as revoked by a cut-off anywhere within it.
+     */
+    static Date issuedAt(Claims claims) {
+        Long millis = claims.get(SecurityConstants.ISSUED_AT_MS_CLAIM, Long.class);
+        return millis != null ? new Date(millis) : claims.getIssuedAt();
+    }
+
+    public boolean isRevoked(String subject, String tokenId, Date issuedAt) {
+        if (isRevokedId(tokenId)) {
+            return true;
+        }
+        Long cutoff = subject != null ? revokedBefore.get(subject) : null;
+        return cutoff != null && (issuedAt == null || issuedAt.getTime() <= cutoff);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedIds.values().removeIf(expiresAt -> expiresAt < now);
+        // Once the longest-lived token issued before a cut-off has expired, the cut-off has nothing left to revoke
+        revokedBefore.values().removeIf(cutoff -> cutoff + refreshTokenTtlSeconds * 1000 < now);
+    }
+}
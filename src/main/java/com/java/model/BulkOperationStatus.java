@@ -0,0 +1,40 @@
+package com.java.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOperationStatus {
+
+    public enum Type { DEACTIVATE, PURGE }
+
+    public enum State { PENDING, RUNNING, DONE, FAILED }
+
+    private String id;
+
+    private Type type;
+
+    private State state;
+
+    // Users matching when the operation started
+    private Long matched;
+
+    private long processed;
+
+    private String detail;
+
+    private LocalDateTime started;
+
+    private LocalDateTime updated;
+
+    public BulkOperationStatus progress(State state, Long matched, long processed, String detail) {
+        return new BulkOperationStatus(id, type, state, matched, processed, detail, started, LocalDateTime.now());
+    }
+}
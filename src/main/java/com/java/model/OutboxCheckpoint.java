@@ -0,0 +1,23 @@
+package com.java.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxCheckpoint {
+
+    @Id
+    private String name;
+
+    private Long lastEventId;
+
+    private LocalDateTime updatedAt;
+}
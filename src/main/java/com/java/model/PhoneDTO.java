@@ -1,5 +1,7 @@
 package com.java.model;
 
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +11,20 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class PhoneDTO {
 
+    // Bounded, and free of control characters that JSON escapes to six characters, so that MAX_PHONES phones
+    // always fit the user_info.phones column
+    private static final String PRINTABLE = "\\P{Cntrl}*";
+    private static final String PRINTABLE_MESSAGE = "Phone fields must not contain control characters.";
+
+    @Size(max = 20, message = "Enter a phone number of at most 20 characters.")
+    @Pattern(regexp = PRINTABLE, message = PRINTABLE_MESSAGE)
     private String number;
+
+    @Size(max = 10, message = "Enter a city code of at most 10 characters.")
+    @Pattern(regexp = PRINTABLE, message = PRINTABLE_MESSAGE)
     private String cityCode;
+
+    @Size(max = 10, message = "Enter a country code of at most 10 characters.")
+    @Pattern(regexp = PRINTABLE, message = PRINTABLE_MESSAGE)
     private String countryCode;
 }
@@ -1,20 +1,16 @@
 package com.java.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Phone of a user, stored inside the user row (see {@link PhoneListConverter}).
+ */
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-@Entity
 public class PhoneInfo {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @JsonIgnore
-    private Long id;
 
     private String number;
     private String cityCode;
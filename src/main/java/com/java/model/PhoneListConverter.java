@@ -0,0 +1,53 @@
+package com.java.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a user's phones in one column as a compact JSON array of {@code [number, cityCode, countryCode]}
+ * triples, so a sign-up is a single insert and a login a single-row read.
+ */
+@Converter
+public class PhoneListConverter implements AttributeConverter<List<PhoneInfo>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public String convertToDatabaseColumn(List<PhoneInfo> phones) {
+        if (phones == null) {
+            return null;
+        }
+        String[][] rows = new String[phones.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            PhoneInfo phone = phones.get(i);
+            rows[i] = new String[] {phone.getNumber(), phone.getCityCode(), phone.getCountryCode()};
+        }
+        try {
+            return MAPPER.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error serializing phones", e);
+        }
+    }
+
+    @Override
+    public List<PhoneInfo> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return null;
+        }
+        try {
+            String[][] rows = MAPPER.readValue(column, String[][].class);
+            List<PhoneInfo> phones = new ArrayList<>(rows.length);
+            for (String[] row : rows) {
+                phones.add(new PhoneInfo(row[0], row[1], row[2]));
+            }
+            return phones;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error reading phones", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.java.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecordingStatus {
+
+    private Long id;
+
+    private String name;
+
+    private String state;
+
+    private Instant started;
+
+    // Dump written by the call, if any
+    private String file;
+}
@@ -0,0 +1,37 @@
+package com.java.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SignUpStatus {
+
+    public enum State { PENDING, CREATED, FAILED }
+
+    private String requestId;
+
+    private State state;
+
+    private UserDTO user;
+
+    private Integer code;
+
+    private String detail;
+
+    private LocalDateTime updated;
+
+    public static SignUpStatus created(UserDTO user) {
+        return new SignUpStatus(null, State.CREATED, user, null, null, LocalDateTime.now());
+    }
+
+    public static SignUpStatus failed(int code, String detail) {
+        return new SignUpStatus(null, State.FAILED, null, code, detail, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,15 @@
+package com.java.model;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRefreshRequest {
+
+    @NotBlank(message = "Enter the refresh token.")
+    private String refreshToken;
+}
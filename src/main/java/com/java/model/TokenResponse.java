@@ -0,0 +1,16 @@
+package com.java.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenResponse {
+
+    private String token;
+    private String refreshToken;
+    // Lifetime of the access token in seconds
+    private long expiresIn;
+}
@@ -0,0 +1,29 @@
+package com.java.model;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selects the users of a bulk operation. Criteria that are set must all match; at least one must be set.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBulkRequest {
+
+    @Size(max = 100000, message = "Enter at most 100000 emails.")
+    private List<String> emails;
+
+    // Created in [createdFrom, createdTo)
+    private LocalDateTime createdFrom;
+
+    private LocalDateTime createdTo;
+
+    // Last logged in before this time, or never logged in and created before it
+    private LocalDateTime inactiveSince;
+}
@@ -1,8 +1,10 @@
 package com.java.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,6 +17,9 @@ import java.util.List;
 @NoArgsConstructor
 public class UserDTO {
 
+    // 20 phones of the longest PhoneDTO fields serialize to under 2000 characters, the phones column length
+    public static final int MAX_PHONES = 20;
+
     private String id;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -32,7 +37,8 @@ public class UserDTO {
     private String password;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
-    private List<PhoneDTO> phones;
+    @Size(max = MAX_PHONES, message = "Enter at most 20 phones.")
+    private List<@Valid PhoneDTO> phones;
 
     private LocalDateTime created;
 
@@ -41,5 +47,8 @@ public class UserDTO {
 
     private String token;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+
     private Boolean isActive;
 }
@@ -1,5 +1,7 @@
 package com.java.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
@@ -7,6 +9,7 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -44,13 +47,28 @@ public class UserInfo {
         )
     private String password;
 
-    @OneToMany(cascade = CascadeType.ALL)
-    @Column(name = "phones", nullable = true)
-    @JoinColumn(name = "phone_id")
+    @Convert(converter = PhoneListConverter.class)
+    @Column(name = "phones", nullable = true, length = 2000)
     private List<PhoneInfo> phones;
 
     @Transient
     private String token;
 
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+
     private Boolean isActive;
+
+    // ROLE_USER or ROLE_ADMIN, rows written before the column existed are users
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ColumnDefault("'ROLE_USER'")
+    @Column(name = "role", length = 20)
+    private String role;
+
+    // Optimistic lock, rows written before the column existed start at 0
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
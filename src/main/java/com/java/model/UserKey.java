@@ -0,0 +1,9 @@
+package com.java.model;
+
+import java.util.UUID;
+
+/**
+ * Id and email of a user, read without loading the entity.
+ */
+public record UserKey(UUID id, String email) {
+}
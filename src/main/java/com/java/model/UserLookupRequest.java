@@ -0,0 +1,20 @@
+package com.java.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserLookupRequest {
+
+    // User ids or emails, in any mix
+    @NotEmpty(message = "Enter at least one user id or email.")
+    @Size(max = 1000, message = "Enter at most 1000 user ids or emails.")
+    private List<String> keys;
+}
@@ -0,0 +1,27 @@
+package com.java.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserLookupResponse {
+
+    // One entry per requested key, in request order; user is null when the key matched no user
+    private List<Result> results;
+
+    // Requested keys that matched no user, in request order
+    private List<String> misses;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Result {
+        private String key;
+        private UserProfile user;
+    }
+}
@@ -0,0 +1,9 @@
+package com.java.model;
+
+import java.util.UUID;
+
+/**
+ * Id and stored (encrypted) password of a user, read without loading the entity.
+ */
+public record UserPassword(UUID id, String password) {
+}
@@ -0,0 +1,39 @@
+package com.java.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Partial update of the signed-in user: only non-null fields are changed, and phones are added or removed
+ * one by one rather than replaced. {@code version} is the version the client last saw. The merged phone list is
+ * held to {@link UserDTO#MAX_PHONES} like a sign-up.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPatchRequest {
+
+    private String name;
+
+    @Pattern(
+            regexp = "^(?=^[^A-Z]*[A-Z][^A-Z]*$)(?=^([^\\d]*\\d[^\\d]*\\d[^\\d]*)$)(?!.*\\d\\d).{8,12}$",
+            message = "Invalid password. It must contain only one uppercase letter and only two numbers, in combination with lowercase letters, with a length between 8 and 12 characters."
+        )
+    private String password;
+
+    @Size(max = UserDTO.MAX_PHONES, message = "Add at most 20 phones.")
+    private List<@Valid PhoneDTO> addPhones;
+
+    @Size(max = UserDTO.MAX_PHONES, message = "Remove at most 20 phones.")
+    private List<@Valid PhoneDTO> removePhones;
+
+    @NotNull(message = "The current version of the user is required.")
+    private Long version;
+}
@@ -0,0 +1,27 @@
+package com.java.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * New version of the patched user. A password change ends every earlier session, so it also carries fresh tokens.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPatchResponse {
+
+    private Long version;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String token;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+
+    public UserPatchResponse(Long version) {
+        this.version = version;
+    }
+}
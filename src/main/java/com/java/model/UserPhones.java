@@ -0,0 +1,13 @@
+package com.java.model;
+
+import java.util.List;
+
+/**
+ * Projection of a user's phones and version, for updates that must not load the whole row.
+ */
+public interface UserPhones {
+
+    List<PhoneInfo> getPhones();
+
+    Long getVersion();
+}
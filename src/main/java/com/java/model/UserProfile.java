@@ -0,0 +1,31 @@
+package com.java.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserProfile {
+
+    private String id;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String name;
+
+    private String email;
+
+    private List<PhoneDTO> phones;
+
+    private LocalDateTime created;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime lastLogin;
+
+    private Boolean isActive;
+}
@@ -0,0 +1,15 @@
+package com.java.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSearchResult {
+
+    private String id;
+    private String name;
+    private String email;
+}
@@ -0,0 +1,151 @@
+package com.java.offheap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing hash index from a key to a record address, with linear probing in a direct buffer of 8-byte
+ * slots. A slot holds the top 24 bits of the key's mixed hash and the record address plus one (0 is an empty
+ * slot), so most mismatches are rejected without touching the record. Keys live in the records only: callers
+ * probe with {@link #start}/{@link #next} and compare the key at {@link #address} themselves, which keeps lookups
+ * free of allocation. Removal shifts later entries back instead of leaving tombstones.
+ *
+ * <p>Not thread-safe: guarded by the store's lock.</p>
+ */
+final class OffHeapHashIndex {
+
+    /**
+     * Hash of the key of the record at an address, needed to move entries when resizing or removing.
+     */
+    interface Hashes {
+        int hashAt(long address);
+    }
+
+    // 2^27 slots of 8 bytes is the largest power of two a ByteBuffer holds
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final long ADDRESS_MASK = (1L << 40) - 1;
+    private static final float MAX_LOAD = 0.7f;
+
+    private final Hashes hashes;
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    OffHeapHashIndex(int expectedSize, Hashes hashes) {
+        this.hashes = hashes;
+        int capacity = 16;
+        while (capacity < expectedSize / MAX_LOAD && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        this.slots = ByteBuffer.allocateDirect(capacity << 3);
+        this.mask = capacity - 1;
+    }
+
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    int start(int mixedHash) {
+        return mixedHash & mask;
+    }
+
+    int next(int slot) {
+        return (slot + 1) & mask;
+    }
+
+    long entry(int slot) {
+        return slots.getLong(slot << 3);
+    }
+
+    static boolean isEmpty(long entry) {
+        return entry == 0;
+    }
+
+    static boolean matches(long entry, int mixedHash) {
+        return (int) (entry >>> 40) == mixedHash >>> 8;
+    }
+
+    static long address(long entry) {
+        return (entry & ADDRESS_MASK) - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Stores a new entry in {@code slot}, the empty slot that ended an unsuccessful probe for the key.
+     */
+    void insert(int slot, int mixedHash, long address) {
+        slots.putLong(slot << 3, entry(mixedHash, address));
+        if (++size > MAX_LOAD * capacity()) {
+            grow();
+        }
+    }
+
+    /**
+     * Points the entry in {@code slot} at a new record with the same key.
+     */
+    void replace(int slot, long address) {
+        long entry = entry(slot);
+        slots.putLong(slot << 3, (entry & ~ADDRESS_MASK) | (address + 1));
+    }
+
+    void remove(int slot) {
+        int hole = slot;
+        int probe = slot;
+        while (true) {
+            probe = next(probe);
+            long entry = entry(probe);
+            if (isEmpty(entry)) {
+                break;
+            }
+            int home = start(mix(hashes.hashAt(address(entry))));
+            // An entry may move back into the hole unless its home lies cyclically in (hole, probe]
+            boolean homeBetween = hole <= probe ? home > hole && home <= probe : home > hole || home <= probe;
+            if (!homeBetween) {
+                slots.putLong(hole << 3, entry);
+                hole = probe;
+            }
+        }
+        slots.putLong(hole << 3, 0L);
+        size--;
+    }
+
+    private static long entry(int mixedHash, long address) {
+        if (address + 1 > ADDRESS_MASK) {
+            throw new IllegalStateException("Off-heap user store exceeds 1 TB of records");
+        }
+        return ((long) (mixedHash >>> 8) << 40) | (address + 1);
+    }
+
+    private void grow() {
+        int capacity = capacity();
+        if (capacity >= MAX_CAPACITY) {
+            if (size >= capacity - 1) {
+                throw new IllegalStateException("Off-heap user index is full at " + size + " entries");
+            }
+            return;
+        }
+        ByteBuffer old = slots;
+        slots = ByteBuffer.allocateDirect(capacity << 4);
+        mask = (capacity << 1) - 1;
+        for (int i = 0; i < capacity; i++) {
+            long entry = old.getLong(i << 3);
+            if (!isEmpty(entry)) {
+                int slot = start(mix(hashes.hashAt(address(entry))));
+                while (!isEmpty(entry(slot))) {
+                    slot = next(slot);
+                }
+                slots.putLong(slot << 3, entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.java.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only memory for user records in direct buffers of {@code 2^chunkBits} bytes. A record never spans two
+ * chunks. Addresses are {@code chunk << chunkBits | offset}; the memory is never handed back piecemeal, a
+ * compaction copies the live records into a new slab instead.
+ *
+ * <p>Not thread-safe: guarded by the store's lock.</p>
+ */
+final class OffHeapSlab {
+
+    private final int chunkBits;
+    private final int chunkSize;
+    private final long offsetMask;
+    private ByteBuffer[] chunks = new ByteBuffer[8];
+    private int[] chunkEnds = new int[8];
+    private int chunkCount;
+    private long usedBytes;
+
+    OffHeapSlab(int chunkBits) {
+        if (chunkBits < 12 || chunkBits > 30) {
+            throw new IllegalArgumentException("Chunk size must be between 2^12 and 2^30 bytes");
+        }
+        this.chunkBits = chunkBits;
+        this.chunkSize = 1 << chunkBits;
+        this.offsetMask = chunkSize - 1;
+    }
+
+    /**
+     * Reserves {@code length} bytes and returns their address.
+     */
+    long allocate(int length) {
+        if (length > chunkSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit a " + chunkSize + " byte chunk");
+        }
+        if (chunkCount == 0 || chunkEnds[chunkCount - 1] + length > chunkSize) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                chunkEnds = Arrays.copyOf(chunkEnds, chunkCount * 2);
+            }
+            chunks[chunkCount++] = ByteBuffer.allocateDirect(chunkSize);
+        }
+        int offset = chunkEnds[chunkCount - 1];
+        chunkEnds[chunkCount - 1] = offset + length;
+        usedBytes += length;
+        return ((long) (chunkCount - 1) << chunkBits) | offset;
+    }
+
+    ByteBuffer chunk(long address) {
+        return chunks[(int) (address >>> chunkBits)];
+    }
+
+    int offset(long address) {
+        return (int) (address & offsetMask);
+    }
+
+    int chunkCount() {
+        return chunkCount;
+    }
+
+    ByteBuffer chunkAt(int chunk) {
+        return chunks[chunk];
+    }
+
+    int chunkEnd(int chunk) {
+        return chunkEnds[chunk];
+    }
+
+    long address(int chunk, int offset) {
+        return ((long) chunk << chunkBits) | offset;
+    }
+
+    int chunkBits() {
+        return chunkBits;
+    }
+
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    long allocatedBytes() {
+        return (long) chunkCount * chunkSize;
+    }
+}
@@ -0,0 +1,80 @@
+package com.java.offheap;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.java.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * With {@code app.users.store=offheap} the services use an {@link OffHeapUserRepository} instead of the JPA one,
+ * so logins no longer touch Hibernate or JDBC. Other data (outbox, checkpoints) stays in the database. Cannot be
+ * combined with sharding.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.users.store", havingValue = "offheap")
+public class OffHeapUserConfig {
+
+	@Bean(destroyMethod = "close")
+	public OffHeapUserStore offHeapUserStore(@Value("${app.users.offheap.log-path:./data/users/users.log}") String logPath,
+			@Value("${app.users.offheap.chunk-size-mb:64}") int chunkSizeMb,
+			@Value("${app.users.offheap.expected-users:100000}") int expectedUsers,
+			@Value("${app.sharding.enabled:false}") boolean sharding) throws IOException {
+		if (sharding) {
+			throw new IllegalStateException("app.users.store=offheap cannot be combined with app.sharding.enabled");
+		}
+		if (Integer.bitCount(chunkSizeMb) != 1) {
+			throw new IllegalStateException("app.users.offheap.chunk-size-mb must be a power of two");
+		}
+		return new OffHeapUserStore(Paths.get(logPath), 20 + Integer.numberOfTrailingZeros(chunkSizeMb), expectedUsers);
+	}
+
+	@Bean
+	@Primary
+	public UserRepository offHeapUserRepository(OffHeapUserStore store) {
+		return new OffHeapUserRepository(store);
+	}
+
+	@Bean
+	public Maintenance offHeapUserStoreMaintenance(OffHeapUserStore store,
+			@Value("${app.users.offheap.compaction-garbage-ratio:0.5}") double garbageRatio,
+			@Value("${app.users.offheap.compaction-min-mb:64}") long minMb) {
+		return new Maintenance(store, garbageRatio, minMb << 20);
+	}
+
+	@Slf4j
+	public static class Maintenance {
+
+		private final OffHeapUserStore store;
+		private final double garbageRatio;
+		private final long minBytes;
+
+		Maintenance(OffHeapUserStore store, double garbageRatio, long minBytes) {
+			this.store = store;
+			this.garbageRatio = garbageRatio;
+			this.minBytes = minBytes;
+		}
+
+		@Scheduled(fixedDelayString = "${app.users.offheap.force-interval-ms:1000}")
+		public void force() throws IOException {
+			store.force();
+		}
+
+		@Scheduled(fixedDelayString = "${app.users.offheap.compaction-check-interval-ms:60000}")
+		public void compact() {
+			try {
+				store.compactIfNeeded(garbageRatio, minBytes);
+			} catch (IOException | RuntimeException e) {
+				log.error("Off-heap user store compaction failed", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package com.java.offheap;
+
+import com.java.model.UserBulkRequest;
+import com.java.model.UserInfo;
+import com.java.model.UserKey;
+import com.java.model.UserPassword;
+import com.java.model.UserPhones;
+import com.java.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link UserRepository} over the {@link OffHeapUserStore}, used with {@code app.users.store=offheap}. Covers
+ * what the services call; query by example, paging and sorting throw {@link UnsupportedOperationException}. Bulk
+ * operations not selecting by email scan every user.
+ *
+ * <p>The store applies writes immediately. A user inserted inside a transaction that then rolls back, e.g. a
+ * sign-up whose outbox insert failed, is deleted again; updates are not undone.</p>
+ */
+public class OffHeapUserRepository implements UserRepository {
+
+    private final OffHeapUserStore store;
+
+    public OffHeapUserRepository(OffHeapUserStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public UserInfo findByEmail(String email) {
+        return store.findByEmail(email);
+    }
+
+    @Override
+    public List<UserInfo> findByEmailIn(Collection<String> emails) {
+        List<UserInfo> users = new ArrayList<>();
+        for (String email : emails) {
+            UserInfo user = store.findByEmail(email);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<UserInfo> findByIdIn(Collection<UUID> ids) {
+        return findAllById(ids);
+    }
+
+    @Override
+    public long countByPasswordNotLike(String pattern) {
+        if (pattern.indexOf('%') != pattern.length() - 1 || pattern.indexOf('_') >= 0) {
+            throw new UnsupportedOperationException("Only prefix patterns are supported off-heap: " + pattern);
+        }
+        String prefix = pattern.substring(0, pattern.length() - 1);
+        long[] count = {0};
+        store.forEach(user -> {
+            if (user.getPassword() != null && !user.getPassword().startsWith(prefix)) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return store.existsByEmail(email);
+    }
+
+    @Override
+    public UserPhones findPhonesByEmail(String email) {
+        return store.findPhonesByEmail(email);
+    }
+
+    @Override
+    public int updateFieldsByEmail(String email, long version, Map<String, Object> fields) {
+        return store.updateFieldsByEmail(email, version, fields);
+    }
+
+    @Override
+    public int updateLastLoginByEmail(String email, LocalDateTime lastLogin) {
+        return store.updateLastLoginByEmail(email, lastLogin);
+    }
+
+    @Override
+    public List<UserKey> findKeys(UserBulkRequest criteria, boolean activeOnly, UUID after, int limit) {
+        // The first ids after "after", in the order of UUID.compareTo
+        TreeMap<UUID, String> page = new TreeMap<>();
+        Consumer<UserInfo> collect = user -> {
+            if (matches(user, criteria, activeOnly) && (after == null || user.getId().compareTo(after) > 0)) {
+                page.put(user.getId(), user.getEmail());
+                if (page.size() > limit) {
+                    page.pollLastEntry();
+                }
+            }
+        };
+        if (criteria.getEmails() != null && !criteria.getEmails().isEmpty()) {
+            findByEmailIn(criteria.getEmails()).forEach(collect);
+        } else {
+            store.forEach(collect);
+        }
+        return page.entrySet().stream().map(entry -> new UserKey(entry.getKey(), entry.getValue())).toList();
+    }
+
+    @Override
+    public long countMatching(UserBulkRequest criteria, boolean activeOnly) {
+        return findKeys(criteria, activeOnly, null, Integer.MAX_VALUE).size();
+    }
+
+    @Override
+    public List<UserPassword> findStalePasswords(String currentPrefix, UUID after, int limit) {
+        TreeMap<UUID, String> page = new TreeMap<>();
+        store.forEach(user -> {
+            String password = user.getPassword();
+            if (password != null && !password.startsWith(currentPrefix)
+                    && (after == null || user.getId().compareTo(after) > 0)) {
+                page.put(user.getId(), password);
+                if (page.size() > limit) {
+                    page.pollLastEntry();
+                }
+            }
+        });
+        return page.entrySet().stream().map(entry -> new UserPassword(entry.getKey(), entry.getValue())).toList();
+    }
+
+    @Override
+    public int replacePassword(UUID id, String expected, String password) {
+        return store.replacePassword(id, expected, password);
+    }
+
+    @Override
+    public int deactivateByIdIn(Collection<UUID> ids) {
+        int deactivated = 0;
+        for (UUID id : ids) {
+            UserInfo user = store.findById(id);
+            if (user != null && !Boolean.FALSE.equals(user.getIsActive())) {
+                deactivated += store.updateFieldsByEmail(user.getEmail(), user.getVersion(), Map.of("isActive", false));
+            }
+        }
+        return deactivated;
+    }
+
+    @Override
+    public int purgeByIdIn(Collection<UUID> ids) {
+        int purged = 0;
+        for (UUID id : ids) {
+            purged += store.deleteById(id) ? 1 : 0;
+        }
+        return purged;
+    }
+
+    private static boolean matches(UserInfo user, UserBulkRequest criteria, boolean activeOnly) {
+        LocalDateTime lastSeen = user.getLastLogin() != null ? user.getLastLogin() : user.getCreated();
+        return (criteria.getCreatedFrom() == null || !user.getCreated().isBefore(criteria.getCreatedFrom()))
+                && (criteria.getCreatedTo() == null || user.getCreated().isBefore(criteria.getCreatedTo()))
+                && (criteria.getInactiveSince() == null || lastSeen.isBefore(criteria.getInactiveSince()))
+                && (!activeOnly || !Boolean.FALSE.equals(user.getIsActive()));
+    }
+
+    @Override
+    public <S extends UserInfo> S save(S user) {
+        boolean inserted = user.getId() == null;
+        store.save(user);
+        if (inserted) {
+            deleteOnRollback(user.getId());
+        }
+        return user;
+    }
+
+    private void deleteOnRollback(UUID id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    store.deleteById(id);
+                }
+            }
+        });
+    }
+
+    @Override
+    public <S extends UserInfo> S saveAndFlush(S user) {
+        return save(user);
+    }
+
+    @Override
+    public <S extends UserInfo> List<S> saveAll(Iterable<S> users) {
+        List<S> saved = new ArrayList<>();
+        users.forEach(user -> saved.add(save(user)));
+        return saved;
+    }
+
+    @Override
+    public <S extends UserInfo> List<S> saveAllAndFlush(Iterable<S> users) {
+        return saveAll(users);
+    }
+
+    @Override
+    public Optional<UserInfo> findById(UUID id) {
+        return Optional.ofNullable(store.findById(id));
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return store.findById(id) != null;
+    }
+
+    @Override
+    public List<UserInfo> findAll() {
+        List<UserInfo> users = new ArrayList<>();
+        store.forEach(users::add);
+        return users;
+    }
+
+    @Override
+    public List<UserInfo> findAllById(Iterable<UUID> ids) {
+        List<UserInfo> users = new ArrayList<>();
+        for (UUID id : ids) {
+            UserInfo user = store.findById(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public long count() {
+        return store.count();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        store.deleteById(id);
+    }
+
+    @Override
+    public void delete(UserInfo user) {
+        if (user.getId() != null) {
+            store.deleteById(user.getId());
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends UUID> ids) {
+        ids.forEach(store::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends UserInfo> users) {
+        users.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        findAll().forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<UserInfo> users) {
+        deleteAll(users);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<UUID> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public void flush() {
+        // Every change is applied and logged as it is made
+    }
+
+    @Override
+    @Deprecated
+    public UserInfo getOne(UUID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public UserInfo getById(UUID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public UserInfo getReferenceById(UUID id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("No user with id " + id));
+    }
+
+    @Override
+    public List<UserInfo> findAll(Sort sort) {
+        throw unsupported("sorting");
+    }
+
+    @Override
+    public Page<UserInfo> findAll(Pageable pageable) {
+        throw unsupported("paging");
+    }
+
+    @Override
+    public <S extends UserInfo> Optional<S> findOne(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends UserInfo> List<S> findAll(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends UserInfo> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends UserInfo> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends UserInfo> long count(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends UserInfo> boolean exists(Example<S> example) {
+        throw unsupported("query by example");
+    }
+
+    @Override
+    public <S extends UserInfo, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported("query by example");
+    }
+
+    private static UnsupportedOperationException unsupported(String feature) {
+        return new UnsupportedOperationException("The off-heap user store does not support " + feature);
+    }
+}
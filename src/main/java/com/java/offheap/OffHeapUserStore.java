@@ -0,0 +1,516 @@
+package com.java.offheap;
+
+import com.java.model.PhoneInfo;
+import com.java.model.UserInfo;
+import com.java.model.UserPhones;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * User records kept outside the Java heap, for deployments that serve logins without Hibernate or JDBC. Records
+ * live in an {@link OffHeapSlab}, found through open-addressing {@link OffHeapHashIndex}es on email and id, so the
+ * heap holds a handful of objects whatever the number of users and finding a user allocates nothing. Every change
+ * is appended to a {@link UserLog}, replayed on startup.
+ *
+ * <p>Updates that leave email, name, password and phones as they are rewrite the record in place; other updates
+ * and deletes leave a dead record behind. {@link #compactIfNeeded} copies the live records into fresh memory and
+ * rewrites the log once either holds too much garbage.</p>
+ *
+ * <p>Reads run concurrently. Writes are serialized, and hold the read-write lock only while changing memory.
+ * Compaction blocks writes, not reads. Changes are not transactional: they apply immediately, whatever happens to
+ * a surrounding transaction. Like the JPA mapping, an update keeps the stored creation and last login times and
+ * only bumps the version when something else changed.</p>
+ */
+@Slf4j
+public class OffHeapUserStore implements Closeable {
+
+    private static final Set<String> UPDATABLE = Set.of("name", "password", "phones", "isActive");
+
+    private final StampedLock lock = new StampedLock();
+    private final Object writeMutex = new Object();
+    private final int chunkBits;
+    private final UserLog userLog;
+    private Memory memory;
+
+    public OffHeapUserStore(Path logFile, int chunkBits, int expectedUsers) throws IOException {
+        this.chunkBits = chunkBits;
+        this.memory = new Memory(chunkBits, expectedUsers);
+        this.userLog = new UserLog(logFile);
+
+        long start = System.nanoTime();
+        Memory loading = memory;
+        long entries = userLog.replay(new UserLog.Replay() {
+            @Override
+            public void put(ByteBuffer record) {
+                loading.put(record, 0);
+            }
+
+            @Override
+            public void delete(long msb, long lsb) {
+                loading.delete(msb, lsb);
+            }
+        });
+        log.info("Off-heap user store loaded {} user(s) from {} log entries of {} in {} ms", loading.byId.size(),
+                entries, logFile.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public UserInfo findByEmail(String email) {
+        long stamp = lock.readLock();
+        try {
+            Memory m = memory;
+            long address = m.emailAddress(email);
+            return address < 0 ? null : UserRecord.decode(m.slab.chunk(address), m.slab.offset(address));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean existsByEmail(String email) {
+        long stamp = lock.readLock();
+        try {
+            return memory.emailAddress(email) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public UserInfo findById(UUID id) {
+        long stamp = lock.readLock();
+        try {
+            Memory m = memory;
+            long address = m.idAddress(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            return address < 0 ? null : UserRecord.decode(m.slab.chunk(address), m.slab.offset(address));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public UserPhones findPhonesByEmail(String email) {
+        long stamp = lock.readLock();
+        try {
+            Memory m = memory;
+            long address = m.emailAddress(email);
+            if (address < 0) {
+                return null;
+            }
+            ByteBuffer chunk = m.slab.chunk(address);
+            int offset = m.slab.offset(address);
+            return new StoredPhones(UserRecord.phones(chunk, offset), UserRecord.version(chunk, offset));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long count() {
+        long stamp = lock.readLock();
+        try {
+            return memory.byId.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Hands every user to {@code action}. Writes wait until the scan is done.
+     */
+    public void forEach(Consumer<UserInfo> action) {
+        long stamp = lock.readLock();
+        try {
+            memory.forEachLive((chunk, offset) -> action.accept(UserRecord.decode(chunk, offset)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Inserts a user without an id (assigning one) or updates the user with its id, checking its version like
+     * an optimistic lock. Returns {@code user} with its id and version set.
+     */
+    public UserInfo save(UserInfo user) {
+        synchronized (writeMutex) {
+            Memory m = memory;
+            long emailOwner = m.emailAddress(user.getEmail());
+            long address = user.getId() == null ? -1
+                    : m.idAddress(user.getId().getMostSignificantBits(), user.getId().getLeastSignificantBits());
+            if (emailOwner >= 0 && emailOwner != address) {
+                throw new DataIntegrityViolationException("Email already taken: " + user.getEmail());
+            }
+
+            if (address < 0) {
+                if (user.getId() == null) {
+                    user.setId(UUID.randomUUID());
+                }
+                if (user.getVersion() == null) {
+                    user.setVersion(0L);
+                }
+                if (user.getCreated() == null) {
+                    user.setCreated(LocalDateTime.now());
+                }
+                write(UserRecord.encode(user));
+                return user;
+            }
+
+            ByteBuffer chunk = m.slab.chunk(address);
+            int offset = m.slab.offset(address);
+            long version = UserRecord.version(chunk, offset);
+            if (user.getVersion() != null && user.getVersion() != version) {
+                throw new ObjectOptimisticLockingFailureException(UserInfo.class, user.getId());
+            }
+            LocalDateTime created = UserRecord.created(chunk, offset);
+            LocalDateTime lastLogin = UserRecord.lastLogin(chunk, offset);
+            byte[] unchanged = UserRecord.encode(user, version, created, lastLogin);
+            if (!UserRecord.matches(chunk, offset, ByteBuffer.wrap(unchanged), 0, UserRecord.LENGTH)) {
+                write(UserRecord.encode(user, ++version, created, lastLogin));
+            }
+            user.setVersion(version);
+            if (user.getCreated() == null) {
+                user.setCreated(created);
+            }
+            return user;
+        }
+    }
+
+    /**
+     * Sets {@code fields} (name, password, phones, isActive) on the user with {@code email} if it still has
+     * {@code version}, bumping the version. Returns the number of users updated.
+     */
+    @SuppressWarnings("unchecked")
+    public int updateFieldsByEmail(String email, long version, Map<String, Object> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+        for (String field : fields.keySet()) {
+            if (!UPDATABLE.contains(field)) {
+                throw new IllegalArgumentException("Field cannot be updated: " + field);
+            }
+        }
+        synchronized (writeMutex) {
+            Memory m = memory;
+            long address = m.emailAddress(email);
+            if (address < 0) {
+                return 0;
+            }
+            ByteBuffer chunk = m.slab.chunk(address);
+            int offset = m.slab.offset(address);
+            if (UserRecord.version(chunk, offset) != version) {
+                return 0;
+            }
+            UserInfo user = UserRecord.decode(chunk, offset);
+            fields.forEach((field, value) -> {
+                switch (field) {
+                    case "name" -> user.setName((String) value);
+                    case "password" -> user.setPassword((String) value);
+                    case "phones" -> user.setPhones((List<PhoneInfo>) value);
+                    default -> user.setIsActive((Boolean) value);
+                }
+            });
+            write(UserRecord.encode(user, version + 1, user.getCreated(), user.getLastLogin()));
+            return 1;
+        }
+    }
+
+    /**
+     * Sets the last login of the user with {@code email}, keeping its version. Returns the number of users updated.
+     */
+    public int updateLastLoginByEmail(String email, LocalDateTime lastLogin) {
+        synchronized (writeMutex) {
+            Memory m = memory;
+            long address = m.emailAddress(email);
+            if (address < 0) {
+                return 0;
+            }
+            ByteBuffer chunk = m.slab.chunk(address);
+            int offset = m.slab.offset(address);
+            UserInfo user = UserRecord.decode(chunk, offset);
+            write(UserRecord.encode(user, user.getVersion(), user.getCreated(), lastLogin));
+            return 1;
+        }
+    }
+
+    /**
+     * Sets the password of the user with {@code id} if it still equals {@code expected}, keeping its version.
+     * Returns the number of users updated.
+     */
+    public int replacePassword(UUID id, String expected, String password) {
+        synchronized (writeMutex) {
+            Memory m = memory;
+            long address = m.idAddress(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (address < 0) {
+                return 0;
+            }
+            UserInfo user = UserRecord.decode(m.slab.chunk(address), m.slab.offset(address));
+            if (!expected.equals(user.getPassword())) {
+                return 0;
+            }
+            user.setPassword(password);
+            write(UserRecord.encode(user, user.getVersion(), user.getCreated(), user.getLastLogin()));
+            return 1;
+        }
+    }
+
+    public boolean deleteById(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        synchronized (writeMutex) {
+            if (memory.idAddress(msb, lsb) < 0) {
+                return false;
+            }
+            long stamp = lock.writeLock();
+            try {
+                memory.delete(msb, lsb);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            try {
+                userLog.appendDelete(msb, lsb);
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("Appending to the user log failed", e);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Compacts memory and log if either is at least {@code minBytes} and more than {@code garbageRatio} garbage.
+     */
+    public boolean compactIfNeeded(double garbageRatio, long minBytes) throws IOException {
+        synchronized (writeMutex) {
+            Memory m = memory;
+            long used = m.slab.usedBytes();
+            long logSize = userLog.size();
+            long liveLog = m.liveBytes + (long) m.byId.size() * UserLog.FRAME_OVERHEAD;
+            if ((used < minBytes || used - m.liveBytes <= garbageRatio * used)
+                    && (logSize < minBytes || logSize - liveLog <= garbageRatio * logSize)) {
+                return false;
+            }
+            compact();
+            return true;
+        }
+    }
+
+    public void compact() throws IOException {
+        synchronized (writeMutex) {
+            long start = System.nanoTime();
+            Memory old = memory;
+            long before = userLog.size();
+            Memory compacted = new Memory(chunkBits, old.byId.size());
+            old.forEachLive(compacted::put);
+            userLog.rewrite(target -> compacted.forEachLive(
+                    (chunk, offset) -> target.appendPut(chunk, offset, UserRecord.length(chunk, offset))));
+
+            long stamp = lock.writeLock();
+            try {
+                memory = compacted;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            log.info("Compacted off-heap user store: {} MB to {} MB of records, {} MB to {} MB of log in {} ms",
+                    old.slab.usedBytes() >> 20, compacted.slab.usedBytes() >> 20, before >> 20, userLog.size() >> 20,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public void force() throws IOException {
+        synchronized (writeMutex) {
+            userLog.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeMutex) {
+            userLog.close();
+        }
+    }
+
+    private void write(byte[] record) {
+        long stamp = lock.writeLock();
+        try {
+            memory.put(ByteBuffer.wrap(record), 0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        try {
+            userLog.appendPut(record);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Appending to the user log failed", e);
+        }
+    }
+
+    private record StoredPhones(List<PhoneInfo> phones, Long version) implements UserPhones {
+
+        @Override
+        public List<PhoneInfo> getPhones() {
+            return phones;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(ByteBuffer chunk, int offset) throws IOException;
+    }
+
+    /**
+     * Slab and indexes, replaced as a whole by compaction. Not thread-safe.
+     */
+    private static final class Memory {
+
+        final OffHeapSlab slab;
+        final OffHeapHashIndex byEmail;
+        final OffHeapHashIndex byId;
+        long liveBytes;
+
+        Memory(int chunkBits, int expectedUsers) {
+            slab = new OffHeapSlab(chunkBits);
+            byEmail = new OffHeapHashIndex(expectedUsers, a -> UserRecord.emailHash(slab.chunk(a), slab.offset(a)));
+            byId = new OffHeapHashIndex(expectedUsers, a -> UserRecord.idHash(slab.chunk(a), slab.offset(a)));
+        }
+
+        long emailAddress(String email) {
+            if (email == null) {
+                return -1;
+            }
+            int hash = OffHeapHashIndex.mix(email.hashCode());
+            for (int slot = byEmail.start(hash); ; slot = byEmail.next(slot)) {
+                long entry = byEmail.entry(slot);
+                if (OffHeapHashIndex.isEmpty(entry)) {
+                    return -1;
+                }
+                long address = OffHeapHashIndex.address(entry);
+                if (OffHeapHashIndex.matches(entry, hash)
+                        && UserRecord.emailEquals(slab.chunk(address), slab.offset(address), email)) {
+                    return address;
+                }
+            }
+        }
+
+        long idAddress(long msb, long lsb) {
+            int slot = idSlot(msb, lsb);
+            return slot < 0 ? -1 : OffHeapHashIndex.address(byId.entry(slot));
+        }
+
+        private int idSlot(long msb, long lsb) {
+            int hash = OffHeapHashIndex.mix(UserRecord.idHash(msb, lsb));
+            for (int slot = byId.start(hash); ; slot = byId.next(slot)) {
+                long entry = byId.entry(slot);
+                if (OffHeapHashIndex.isEmpty(entry)) {
+                    return ~slot;
+                }
+                long address = OffHeapHashIndex.address(entry);
+                if (OffHeapHashIndex.matches(entry, hash)
+                        && UserRecord.idEquals(slab.chunk(address), slab.offset(address), msb, lsb)) {
+                    return slot;
+                }
+            }
+        }
+
+        // Slot of the email entry pointing at a given record
+        private int emailSlotOf(long address) {
+            int hash = OffHeapHashIndex.mix(UserRecord.emailHash(slab.chunk(address), slab.offset(address)));
+            int slot = byEmail.start(hash);
+            while (OffHeapHashIndex.address(byEmail.entry(slot)) != address) {
+                slot = byEmail.next(slot);
+            }
+            return slot;
+        }
+
+        /**
+         * Inserts the record at {@code offset} of {@code source}, or replaces the record with its id. The email
+         * must not belong to another user.
+         */
+        void put(ByteBuffer source, int offset) {
+            int length = UserRecord.length(source, offset);
+            long msb = source.getLong(offset + UserRecord.ID_MSB);
+            long lsb = source.getLong(offset + UserRecord.ID_LSB);
+            int idSlot = idSlot(msb, lsb);
+
+            if (idSlot >= 0) {
+                long old = OffHeapHashIndex.address(byId.entry(idSlot));
+                ByteBuffer oldChunk = slab.chunk(old);
+                int oldOffset = slab.offset(old);
+                if (UserRecord.matches(oldChunk, oldOffset, source, offset, UserRecord.EMAIL)) {
+                    UserRecord.copyFixedPart(source, offset, oldChunk, oldOffset);
+                    return;
+                }
+                long address = copy(source, offset, length);
+                byId.replace(idSlot, address);
+                int emailSlot = emailSlotOf(old);
+                if (UserRecord.sameEmail(oldChunk, oldOffset, source, offset)) {
+                    byEmail.replace(emailSlot, address);
+                } else {
+                    byEmail.remove(emailSlot);
+                    addEmail(address);
+                }
+                UserRecord.markDead(oldChunk, oldOffset);
+                liveBytes -= UserRecord.length(oldChunk, oldOffset);
+                return;
+            }
+
+            long address = copy(source, offset, length);
+            byId.insert(~idSlot, OffHeapHashIndex.mix(UserRecord.idHash(msb, lsb)), address);
+            addEmail(address);
+        }
+
+        void delete(long msb, long lsb) {
+            int idSlot = idSlot(msb, lsb);
+            if (idSlot < 0) {
+                return;
+            }
+            long address = OffHeapHashIndex.address(byId.entry(idSlot));
+            byEmail.remove(emailSlotOf(address));
+            byId.remove(idSlot);
+            ByteBuffer chunk = slab.chunk(address);
+            int offset = slab.offset(address);
+            UserRecord.markDead(chunk, offset);
+            liveBytes -= UserRecord.length(chunk, offset);
+        }
+
+        void forEachLive(RecordVisitor visitor) throws IOException {
+            for (int c = 0; c < slab.chunkCount(); c++) {
+                ByteBuffer chunk = slab.chunkAt(c);
+                int end = slab.chunkEnd(c);
+                for (int offset = 0; offset < end; offset += UserRecord.length(chunk, offset)) {
+                    if (!UserRecord.isDead(chunk, offset)) {
+                        visitor.visit(chunk, offset);
+                    }
+                }
+            }
+        }
+
+        private long copy(ByteBuffer source, int offset, int length) {
+            long address = slab.allocate(length);
+            slab.chunk(address).put(slab.offset(address), source, offset, length);
+            liveBytes += length;
+            return address;
+        }
+
+        private void addEmail(long address) {
+            int hash = OffHeapHashIndex.mix(UserRecord.emailHash(slab.chunk(address), slab.offset(address)));
+            int slot = byEmail.start(hash);
+            while (!OffHeapHashIndex.isEmpty(byEmail.entry(slot))) {
+                slot = byEmail.next(slot);
+            }
+            byEmail.insert(slot, hash, address);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.java.offheap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log the off-heap store is rebuilt from on startup. Each entry is framed as
+ * {@code int payload length, byte type, payload, int CRC32C of type and payload}; a {@link #PUT} carries a whole
+ * {@link UserRecord}, a {@link #DELETE} a user id. Replay stops at the first torn or corrupt entry and truncates
+ * the log there. {@link #rewrite} replaces the log with a compacted one through an atomic rename.
+ *
+ * <p>Not thread-safe: guarded by the store's write mutex.</p>
+ */
+@Slf4j
+final class UserLog implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final int FRAME_OVERHEAD = 9;
+
+    interface Replay {
+        void put(ByteBuffer record);
+
+        void delete(long msb, long lsb);
+    }
+
+    interface Writer {
+        void append(UserLog log) throws IOException;
+    }
+
+    private final Path file;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer frame = ByteBuffer.allocateDirect(4096);
+    private FileChannel channel;
+
+    UserLog(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = open(file);
+    }
+
+    /**
+     * Feeds every intact entry to {@code replay} and positions the log after the last one.
+     */
+    long replay(Replay replay) throws IOException {
+        long good = 0;
+        long entries = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > 1 << 20) {
+                    break;
+                }
+                byte[] entry = new byte[length + 5];
+                try {
+                    in.readFully(entry);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(entry, 0, length + 1);
+                if ((int) crc.getValue() != ByteBuffer.wrap(entry, length + 1, 4).getInt()) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.wrap(entry, 1, length).slice();
+                if (entry[0] == PUT) {
+                    replay.put(payload);
+                } else if (entry[0] == DELETE) {
+                    replay.delete(payload.getLong(0), payload.getLong(8));
+                } else {
+                    break;
+                }
+                good += FRAME_OVERHEAD + length;
+                entries++;
+            }
+        }
+        if (good < channel.size()) {
+            log.warn("Truncating {} byte(s) of torn or corrupt entries at the end of {}", channel.size() - good, file);
+            channel.truncate(good);
+        }
+        channel.position(good);
+        return entries;
+    }
+
+    void appendPut(ByteBuffer source, int offset, int length) throws IOException {
+        ByteBuffer frame = frame(PUT, length);
+        frame.put(frame.position(), source, offset, length);
+        frame.position(frame.position() + length);
+        write(frame);
+    }
+
+    void appendPut(byte[] record) throws IOException {
+        ByteBuffer frame = frame(PUT, record.length);
+        frame.put(record);
+        write(frame);
+    }
+
+    void appendDelete(long msb, long lsb) throws IOException {
+        ByteBuffer frame = frame(DELETE, 16);
+        frame.putLong(msb).putLong(lsb);
+        write(frame);
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Writes a new log with whatever {@code writer} appends to it and swaps it in for the current one.
+     */
+    void rewrite(Writer writer) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel current = channel;
+        channel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        try {
+            writer.append(this);
+            channel.force(false);
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            channel = current;
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        current.close();
+        channel = open(file);
+        channel.position(channel.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private ByteBuffer frame(byte type, int length) {
+        if (frame.capacity() < length + FRAME_OVERHEAD) {
+            frame = ByteBuffer.allocateDirect(Integer.highestOneBit(length + FRAME_OVERHEAD) << 1);
+        }
+        frame.clear();
+        frame.putInt(length);
+        frame.put(type);
+        return frame;
+    }
+
+    private void write(ByteBuffer frame) throws IOException {
+        crc.reset();
+        crc.update(frame.slice(4, frame.position() - 4));
+        frame.putInt((int) crc.getValue());
+        frame.flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
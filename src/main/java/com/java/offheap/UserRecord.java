@@ -0,0 +1,329 @@
+package com.java.offheap;
+
+import com.java.jwt.SecurityConstants;
+import com.java.model.PhoneInfo;
+import com.java.model.UserInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary layout of a user record, as kept in the slab and written to the log:
+ *
+ * <pre>
+ *  0 int   record length        4 int   email hash        8 int   flags (dead, active set, active, admin)
+ * 12 long  id (msb)            20 long  id (lsb)          28 long  version
+ * 36 long  created (s)         44 int   created (ns)      48 long  last login (s, MIN_VALUE for none)
+ * 56 int   last login (ns)     60 ...   email, name, password: u16 UTF-8 length (0xFFFF for null) and bytes;
+ *                                       phones: u8 count (0xFF for null), then per phone number, city code and
+ *                                       country code as u8 length (0xFF for null) and bytes
+ * </pre>
+ *
+ * Times are the {@link LocalDateTime} fields read as UTC. Readers take a buffer and an offset and never allocate
+ * unless they return objects.
+ */
+final class UserRecord {
+
+    static final int LENGTH = 0;
+    static final int EMAIL_HASH = 4;
+    static final int FLAGS = 8;
+    static final int ID_MSB = 12;
+    static final int ID_LSB = 20;
+    static final int VERSION = 28;
+    static final int CREATED = 36;
+    static final int LAST_LOGIN = 48;
+    static final int EMAIL = 60;
+
+    static final int DEAD = 1;
+    private static final int ACTIVE_SET = 2;
+    private static final int ACTIVE = 4;
+    private static final int ADMIN = 8;
+
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int NULL_SHORT = 0xFF;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private UserRecord() {
+    }
+
+    static byte[] encode(UserInfo user) {
+        return encode(user, user.getVersion() == null ? 0 : user.getVersion(), user.getCreated(), user.getLastLogin());
+    }
+
+    /**
+     * Encodes {@code user} with the given version and times instead of its own.
+     */
+    static byte[] encode(UserInfo user, long version, LocalDateTime created, LocalDateTime lastLogin) {
+        byte[] email = utf8(user.getEmail());
+        byte[] name = utf8(user.getName());
+        byte[] password = utf8(user.getPassword());
+        List<PhoneInfo> phones = user.getPhones();
+        if (email == null) {
+            throw new IllegalArgumentException("A user needs an email");
+        }
+
+        int length = EMAIL + 6 + lengthOf(email) + lengthOf(name) + lengthOf(password) + 1;
+        List<byte[]> phoneParts = new ArrayList<>();
+        if (phones != null) {
+            if (phones.size() >= NULL_SHORT) {
+                throw new IllegalArgumentException("At most " + (NULL_SHORT - 1) + " phones per user");
+            }
+            for (PhoneInfo phone : phones) {
+                for (String part : new String[] {phone.getNumber(), phone.getCityCode(), phone.getCountryCode()}) {
+                    byte[] bytes = utf8(part);
+                    if (bytes != null && bytes.length >= NULL_SHORT) {
+                        throw new IllegalArgumentException("Phone fields hold at most " + (NULL_SHORT - 1) + " bytes");
+                    }
+                    phoneParts.add(bytes);
+                    length += 1 + (bytes == null ? 0 : bytes.length);
+                }
+            }
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length);
+        record.putInt(user.getEmail().hashCode());
+        int flags = user.getIsActive() == null ? 0 : user.getIsActive() ? ACTIVE_SET | ACTIVE : ACTIVE_SET;
+        if (SecurityConstants.ROLE_ADMIN.equals(user.getRole())) {
+            flags |= ADMIN;
+        }
+        record.putInt(flags);
+        record.putLong(user.getId().getMostSignificantBits());
+        record.putLong(user.getId().getLeastSignificantBits());
+        record.putLong(version);
+        putTime(record, created);
+        putTime(record, lastLogin);
+        putString(record, email);
+        putString(record, name);
+        putString(record, password);
+        if (phones == null) {
+            record.put((byte) NULL_SHORT);
+        } else {
+            record.put((byte) phones.size());
+            for (byte[] part : phoneParts) {
+                if (part == null) {
+                    record.put((byte) NULL_SHORT);
+                } else {
+                    record.put((byte) part.length);
+                    record.put(part);
+                }
+            }
+        }
+        return record.array();
+    }
+
+    static UserInfo decode(ByteBuffer buffer, int offset) {
+        UserInfo user = new UserInfo();
+        user.setId(new UUID(buffer.getLong(offset + ID_MSB), buffer.getLong(offset + ID_LSB)));
+        user.setVersion(buffer.getLong(offset + VERSION));
+        user.setCreated(getTime(buffer, offset + CREATED));
+        user.setLastLogin(getTime(buffer, offset + LAST_LOGIN));
+        int flags = buffer.getInt(offset + FLAGS);
+        user.setIsActive((flags & ACTIVE_SET) == 0 ? null : (flags & ACTIVE) != 0);
+        user.setRole((flags & ADMIN) != 0 ? SecurityConstants.ROLE_ADMIN : SecurityConstants.ROLE_USER);
+
+        int position = offset + EMAIL;
+        user.setEmail(getString(buffer, position));
+        position = skipString(buffer, position);
+        user.setName(getString(buffer, position));
+        position = skipString(buffer, position);
+        user.setPassword(getString(buffer, position));
+        position = skipString(buffer, position);
+        user.setPhones(getPhones(buffer, position));
+        return user;
+    }
+
+    static List<PhoneInfo> phones(ByteBuffer buffer, int offset) {
+        int position = skipString(buffer, skipString(buffer, skipString(buffer, offset + EMAIL)));
+        return getPhones(buffer, position);
+    }
+
+    static int length(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + LENGTH);
+    }
+
+    static int emailHash(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + EMAIL_HASH);
+    }
+
+    static long version(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + VERSION);
+    }
+
+    static LocalDateTime created(ByteBuffer buffer, int offset) {
+        return getTime(buffer, offset + CREATED);
+    }
+
+    static LocalDateTime lastLogin(ByteBuffer buffer, int offset) {
+        return getTime(buffer, offset + LAST_LOGIN);
+    }
+
+    static boolean isDead(ByteBuffer buffer, int offset) {
+        return (buffer.getInt(offset + FLAGS) & DEAD) != 0;
+    }
+
+    static void markDead(ByteBuffer buffer, int offset) {
+        buffer.putInt(offset + FLAGS, buffer.getInt(offset + FLAGS) | DEAD);
+    }
+
+    static boolean idEquals(ByteBuffer buffer, int offset, long msb, long lsb) {
+        return buffer.getLong(offset + ID_MSB) == msb && buffer.getLong(offset + ID_LSB) == lsb;
+    }
+
+    static int idHash(long msb, long lsb) {
+        long hash = msb ^ lsb;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    static int idHash(ByteBuffer buffer, int offset) {
+        return idHash(buffer.getLong(offset + ID_MSB), buffer.getLong(offset + ID_LSB));
+    }
+
+    /**
+     * Compares the stored email with {@code email}, encoding it to UTF-8 on the fly.
+     */
+    static boolean emailEquals(ByteBuffer buffer, int offset, String email) {
+        int length = buffer.getShort(offset + EMAIL) & 0xFFFF;
+        int position = offset + EMAIL + 2;
+        int end = position + length;
+        for (int i = 0; i < email.length(); i++) {
+            int c = email.charAt(i);
+            if (c < 0x80) {
+                if (position >= end || buffer.get(position++) != (byte) c) {
+                    return false;
+                }
+                continue;
+            }
+            if (Character.isHighSurrogate((char) c) && i + 1 < email.length()) {
+                c = Character.toCodePoint((char) c, email.charAt(++i));
+            }
+            int bytes = c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            if (position + bytes > end) {
+                return false;
+            }
+            int lead = bytes == 2 ? 0xC0 | (c >> 6) : bytes == 3 ? 0xE0 | (c >> 12) : 0xF0 | (c >> 18);
+            if (buffer.get(position++) != (byte) lead) {
+                return false;
+            }
+            for (int shift = (bytes - 2) * 6; shift >= 0; shift -= 6) {
+                if (buffer.get(position++) != (byte) (0x80 | ((c >> shift) & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return position == end;
+    }
+
+    /**
+     * Whether the record at {@code offset} holds the bytes of {@code record} from {@code from} on. From
+     * {@link #EMAIL} that is the variable part (email, name, password, phones): if it matches, the fixed fields can
+     * be updated in place.
+     */
+    static boolean matches(ByteBuffer buffer, int offset, ByteBuffer source, int sourceOffset, int from) {
+        int length = length(source, sourceOffset);
+        if (length(buffer, offset) != length) {
+            return false;
+        }
+        for (int i = from; i < length; i++) {
+            if (buffer.get(offset + i) != source.get(sourceOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether two records have the same email.
+     */
+    static boolean sameEmail(ByteBuffer buffer, int offset, ByteBuffer other, int otherOffset) {
+        int length = buffer.getShort(offset + EMAIL) & 0xFFFF;
+        return length == (other.getShort(otherOffset + EMAIL) & 0xFFFF)
+                && buffer.slice(offset + EMAIL + 2, length).equals(other.slice(otherOffset + EMAIL + 2, length));
+    }
+
+    /**
+     * Copies the fixed fields of {@code record} (flags, version, times) over the record at {@code offset}.
+     */
+    static void copyFixedPart(ByteBuffer source, int sourceOffset, ByteBuffer buffer, int offset) {
+        buffer.put(offset + FLAGS, source, sourceOffset + FLAGS, EMAIL - FLAGS);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        if (value != null && value.length >= NULL_STRING) {
+            throw new IllegalArgumentException("User fields hold at most " + (NULL_STRING - 1) + " bytes");
+        }
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer record, byte[] value) {
+        if (value == null) {
+            record.putShort((short) NULL_STRING);
+        } else {
+            record.putShort((short) value.length);
+            record.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer, int position) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int skipString(ByteBuffer buffer, int position) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        return position + 2 + (length == NULL_STRING ? 0 : length);
+    }
+
+    private static List<PhoneInfo> getPhones(ByteBuffer buffer, int position) {
+        int count = buffer.get(position++) & 0xFF;
+        if (count == NULL_SHORT) {
+            return null;
+        }
+        List<PhoneInfo> phones = new ArrayList<>(count);
+        String[] parts = new String[3];
+        for (int i = 0; i < count; i++) {
+            for (int p = 0; p < 3; p++) {
+                int length = buffer.get(position++) & 0xFF;
+                if (length == NULL_SHORT) {
+                    parts[p] = null;
+                } else {
+                    byte[] bytes = new byte[length];
+                    buffer.get(position, bytes);
+                    parts[p] = new String(bytes, StandardCharsets.UTF_8);
+                    position += length;
+                }
+            }
+            phones.add(new PhoneInfo(parts[0], parts[1], parts[2]));
+        }
+        return phones;
+    }
+
+    private static void putTime(ByteBuffer record, LocalDateTime time) {
+        if (time == null) {
+            record.putLong(NO_TIME);
+            record.putInt(0);
+        } else {
+            record.putLong(time.toEpochSecond(ZoneOffset.UTC));
+            record.putInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer, int position) {
+        long seconds = buffer.getLong(position);
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, buffer.getInt(position + 8), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,171 @@
+package com.java.outbox;
+
+import com.java.datasource.DataSourceRouting;
+import com.java.model.OutboxCheckpoint;
+import com.java.model.OutboxEvent;
+import com.java.repository.OutboxCheckpointRepository;
+import com.java.repository.OutboxEventRepository;
+import com.java.sharding.UserShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox in id order to the configured {@link OutboxSink}, one batch at a time, and records the last
+ * delivered id as a checkpoint (per shard). Delivery is at-least-once: a crash between publishing and
+ * checkpointing redelivers the batch. Run the relay on a single instance: it is off unless
+ * {@code app.outbox.relay.enabled=true}, so enable it on exactly one.
+ *
+ * <p>IDENTITY ids are assigned at insert but become visible at commit, so a missing id may still be in flight.
+ * The relay stops at such a gap until it is older than {@code app.outbox.relay.gap-timeout-ms}, after which it is
+ * skipped as a probable rollback. Only delivered events are deleted, so an insert that commits after its gap was
+ * skipped stays behind the checkpoint and is delivered late, out of id order, on the next drain.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    static final String CHECKPOINT_NAME = "user-events";
+
+    private final OutboxEventRepository outboxRepo;
+    private final OutboxCheckpointRepository checkpointRepo;
+    private final OutboxSink sink;
+    private final UserShards userShards;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter delivered;
+    private final AtomicLong lagEvents = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${app.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.relay.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxRepo, OutboxCheckpointRepository checkpointRepo, OutboxSink sink,
+            UserShards userShards, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.outboxRepo = outboxRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.sink = sink;
+        this.userShards = userShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.delivered = Counter.builder("outbox.delivered").description("Outbox events handed to the sink")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.events", lagEvents, AtomicLong::get)
+                .description("Outbox events not yet delivered").register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest undelivered outbox event").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:1000}")
+    public void drain() {
+        long pendingEvents = 0;
+        long oldestSeconds = 0;
+        for (int shard : userShards.ids()) {
+            long[] lag = userShards.on(shard, () -> DataSourceRouting.onPrimary(this::drainShard));
+            pendingEvents += lag[0];
+            oldestSeconds = Math.max(oldestSeconds, lag[1]);
+        }
+        lagEvents.set(pendingEvents);
+        lagSeconds.set(oldestSeconds);
+    }
+
+    /**
+     * Drains the current shard until it is empty, blocked by a gap or the sink fails.
+     *
+     * @return the remaining lag as {events, seconds}
+     */
+    private long[] drainShard() {
+        long checkpoint = checkpointRepo.findById(CHECKPOINT_NAME).map(OutboxCheckpoint::getLastEventId).orElse(0L);
+
+        // Whatever is left at or below the checkpoint committed after its gap was skipped
+        List<OutboxEvent> late;
+        do {
+            late = outboxRepo.findByIdLessThanEqualOrderByIdAsc(checkpoint, PageRequest.of(0, batchSize));
+            if (late.isEmpty()) {
+                break;
+            }
+            log.warn("Delivering {} outbox event(s) committed after their gap was skipped", late.size());
+            if (!deliver(late, checkpoint)) {
+                return lag(late);
+            }
+        } while (late.size() == batchSize);
+
+        while (true) {
+            List<OutboxEvent> batch = outboxRepo.findByIdGreaterThanOrderByIdAsc(checkpoint, PageRequest.of(0, batchSize));
+            List<OutboxEvent> deliverable = deliverablePrefix(batch, checkpoint);
+            if (deliverable.isEmpty()) {
+                return lag(batch);
+            }
+            long lastId = deliverable.get(deliverable.size() - 1).getId();
+            if (!deliver(deliverable, lastId)) {
+                return lag(batch);
+            }
+            checkpoint = lastId;
+
+            if (deliverable.size() < batch.size() || batch.size() < batchSize) {
+                return lag(outboxRepo.findByIdGreaterThanOrderByIdAsc(checkpoint, PageRequest.of(0, 1)));
+            }
+        }
+    }
+
+    /**
+     * Publishes {@code events}, then moves the checkpoint to {@code checkpoint} and deletes exactly those events.
+     *
+     * @return false if the sink failed and the events will be retried
+     */
+    private boolean deliver(List<OutboxEvent> events, long checkpoint) {
+        try {
+            sink.publish(events);
+        } catch (Exception e) {
+            log.warn("Outbox sink failed, {} event(s) will be retried", events.size(), e);
+            return false;
+        }
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            checkpointRepo.save(new OutboxCheckpoint(CHECKPOINT_NAME, checkpoint, LocalDateTime.now()));
+            outboxRepo.deleteDelivered(ids);
+        });
+        delivered.increment(events.size());
+        return true;
+    }
+
+    private List<OutboxEvent> deliverablePrefix(List<OutboxEvent> batch, long checkpoint) {
+        LocalDateTime gapDeadline = LocalDateTime.now().minus(Duration.ofMillis(gapTimeoutMs));
+        long expected = checkpoint + 1;
+        int end = 0;
+        for (OutboxEvent event : batch) {
+            if (event.getId() != expected && event.getCreatedAt().isAfter(gapDeadline)) {
+                break;
+            }
+            expected = event.getId() + 1;
+            end++;
+        }
+        return batch.subList(0, end);
+    }
+
+    private long[] lag(List<OutboxEvent> pending) {
+        if (pending.isEmpty()) {
+            return new long[] {0, 0};
+        }
+        // Delivered events are deleted, so every row left is pending
+        long seconds = Duration.between(pending.get(0).getCreatedAt(), LocalDateTime.now()).toSeconds();
+        return new long[] {outboxRepo.count(), Math.max(seconds, 0)};
+    }
+}
@@ -0,0 +1,14 @@
+package com.java.outbox;
+
+import com.java.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of relayed outbox events. A batch is only checkpointed after {@link #publish} returns,
+ * so implementations must be idempotent or tolerate redelivery.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,50 @@
+package com.java.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.model.OutboxEvent;
+import com.java.model.UserInfo;
+import com.java.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes user events to the outbox table. Must run inside the transaction that changes the user,
+ * so the event is committed if and only if the change is.
+ */
+@Component
+public class UserEventOutbox {
+
+    public static final String USER_REGISTERED = "UserRegistered";
+
+    @Autowired
+    private OutboxEventRepository outboxRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userRegistered(UserInfo user) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", String.valueOf(user.getId()));
+        payload.put("email", user.getEmail());
+        payload.put("name", user.getName());
+        payload.put("registeredAt", LocalDateTime.now().toString());
+
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(String.valueOf(user.getId()));
+        event.setEventType(USER_REGISTERED);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializing outbox payload", e);
+        }
+        outboxRepo.save(event);
+    }
+}
@@ -0,0 +1,25 @@
+package com.java.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Encryption or decryption of a stored password.
+ */
+@Name("com.java.Crypto")
+@Label("Password Encryption")
+@Category({"Java Spring Evaluation", "Crypto"})
+@StackTrace(false)
+public class CryptoEvent extends StageEvent {
+
+    @Label("Operation")
+    @Description("encrypt or decrypt")
+    String operation;
+
+    public CryptoEvent(String operation) {
+        this.operation = operation;
+    }
+}
@@ -0,0 +1,127 @@
+package com.java.profiling;
+
+import com.java.exceptions.UserException;
+import com.java.model.RecordingStatus;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Flight recordings started through {@code /app/admin/recordings}. Recordings use the JDK's {@code default} settings
+ * (the low-overhead profile meant for production) overlaid with the hot-path event settings, and keep at most
+ * {@code max-age} / {@code max-size} of data on disk. Dumps are written to {@code directory} as {@code .jfr} files.
+ */
+@Slf4j
+public class FlightRecordings {
+
+    // Names end up in dump file names
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Map<String, String> settings;
+    private final Path directory;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public FlightRecordings(Resource hotPathSettings, Path directory, Duration maxAge, long maxSizeBytes)
+            throws IOException, ParseException {
+        this.settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(hotPathSettings.getInputStream(), StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public RecordingStatus start(String name) throws UserException {
+        if (!NAME.matcher(name).matches()) {
+            throw new UserException("Recording names are 1 to 64 letters, digits, '.', '_' or '-'");
+        }
+        Recording recording = new Recording(settings);
+        recording.setName(name);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Started flight recording {} ({})", recording.getId(), recording.getName());
+        return status(recording, null);
+    }
+
+    public List<RecordingStatus> list() {
+        List<RecordingStatus> statuses = new ArrayList<>();
+        recordings.values().forEach(recording -> statuses.add(status(recording, null)));
+        return statuses;
+    }
+
+    /**
+     * Writes what the recording holds so far to a new file and keeps recording.
+     */
+    public RecordingStatus dump(long id) throws UserException, IOException {
+        Recording recording = get(id);
+        Path file = dumpFile(recording, "");
+        recording.dump(file);
+        return status(recording, file);
+    }
+
+    /**
+     * Stops the recording, writes its data to a new file and discards it.
+     */
+    public RecordingStatus stop(long id) throws UserException, IOException {
+        Recording recording = get(id);
+        try {
+            Path file = dumpFile(recording, "-final");
+            recording.stop();
+            recording.dump(file);
+            log.info("Stopped flight recording {}, written to {}", id, file);
+            return status(recording, file);
+        } finally {
+            recordings.remove(id);
+            recording.close();
+        }
+    }
+
+    public void closeAll() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private Recording get(long id) throws UserException {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new UserException("No recording found with id: " + id);
+        }
+        return recording;
+    }
+
+    private Path dumpFile(Recording recording, String suffix) throws IOException {
+        Files.createDirectories(directory);
+        return directory.resolve(recording.getName() + "-" + recording.getId() + "-"
+                + LocalDateTime.now().format(FILE_TIMESTAMP) + suffix + ".jfr");
+    }
+
+    private static RecordingStatus status(Recording recording, Path file) {
+        return new RecordingStatus(recording.getId(), recording.getName(), recording.getState().name(),
+                recording.getStartTime(), file != null ? file.toAbsolutePath().normalize().toString() : null);
+    }
+}
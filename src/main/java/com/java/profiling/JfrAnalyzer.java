@@ -0,0 +1,101 @@
+package com.java.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline summary of the hot-path events in a {@code .jfr} file: count and latency percentiles per stage and
+ * outcome. Only events over their recording threshold are in the file, so counts are of slow calls unless the
+ * thresholds were lowered to 0.
+ *
+ * <pre>java -cp app.jar -Dloader.main=com.java.profiling.JfrAnalyzer org.springframework.boot.loader.PropertiesLauncher recording.jfr</pre>
+ */
+public final class JfrAnalyzer {
+
+    private static final String EVENT_PREFIX = "com.java.";
+
+    public record StageSummary(String stage, String outcome, int count, double p50Millis, double p95Millis,
+            double p99Millis, double maxMillis, double totalMillis) {
+    }
+
+    private JfrAnalyzer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JfrAnalyzer <recording.jfr>...");
+            System.exit(2);
+        }
+        for (String file : args) {
+            print(Path.of(file), summarize(Path.of(file)), System.out);
+        }
+    }
+
+    public static List<StageSummary> summarize(Path recording) throws IOException {
+        // Stage -> outcome -> durations in nanoseconds
+        Map<String, Map<String, List<Long>>> durations = new TreeMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (!event.getEventType().getName().startsWith(EVENT_PREFIX)) {
+                    continue;
+                }
+                String outcome = event.hasField("outcome") ? String.valueOf(event.getString("outcome")) : "";
+                durations.computeIfAbsent(stageOf(event), stage -> new TreeMap<>())
+                        .computeIfAbsent(outcome, o -> new ArrayList<>())
+                        .add(event.getDuration().toNanos());
+            }
+        }
+
+        List<StageSummary> summaries = new ArrayList<>();
+        durations.forEach((stage, byOutcome) -> byOutcome.forEach((outcome, values) -> {
+            long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+            summaries.add(new StageSummary(stage, outcome, sorted.length, millis(percentile(sorted, 50)),
+                    millis(percentile(sorted, 95)), millis(percentile(sorted, 99)), millis(sorted[sorted.length - 1]),
+                    millis(Arrays.stream(sorted).sum())));
+        }));
+        return summaries;
+    }
+
+    static void print(Path recording, List<StageSummary> summaries, PrintStream out) {
+        out.println(recording);
+        if (summaries.isEmpty()) {
+            out.println("  no hot-path events");
+            return;
+        }
+        out.printf("  %-32s %-14s %8s %10s %10s %10s %10s %12s%n", "stage", "outcome", "count", "p50 ms",
+                "p95 ms", "p99 ms", "max ms", "total ms");
+        for (StageSummary s : summaries) {
+            out.printf("  %-32s %-14s %8d %10.3f %10.3f %10.3f %10.3f %12.1f%n", s.stage(), s.outcome(), s.count(),
+                    s.p50Millis(), s.p95Millis(), s.p99Millis(), s.maxMillis(), s.totalMillis());
+        }
+    }
+
+    // Events of one type are split by their detail field: token type, crypto operation or repository method
+    private static String stageOf(RecordedEvent event) {
+        String label = event.getEventType().getLabel();
+        for (String field : new String[] {"tokenType", "operation", "method"}) {
+            if (event.hasField(field)) {
+                return label + " (" + event.getString(field) + ")";
+            }
+        }
+        return label;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.max(0, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
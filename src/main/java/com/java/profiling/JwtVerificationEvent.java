@@ -0,0 +1,16 @@
+package com.java.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Signature and claim checks of the access token on an authenticated request. Outcomes: ok, invalid, refresh-token.
+ */
+@Name("com.java.JwtVerification")
+@Label("JWT Verification")
+@Category({"Java Spring Evaluation", "Auth"})
+@StackTrace(false)
+public class JwtVerificationEvent extends StageEvent {
+}
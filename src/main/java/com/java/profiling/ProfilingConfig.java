@@ -0,0 +1,39 @@
+package com.java.profiling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Java Flight Recorder support, on with {@code app.jfr.enabled=true}: the repository events aspect and the recordings behind {@code /app/admin/recordings}.
+ * The JWT, token and crypto events are emitted inline and cost next to nothing while no recording enables them.
+ * A recording named {@code app.jfr.boot-recording} runs from startup, so the time before an incident can be dumped.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.jfr.enabled", havingValue = "true")
+public class ProfilingConfig {
+
+	@Bean
+	public UserRepositoryEventsAspect userRepositoryEventsAspect() {
+		return new UserRepositoryEventsAspect();
+	}
+
+	@Bean(destroyMethod = "closeAll")
+	public FlightRecordings flightRecordings(@Value("${app.jfr.settings:classpath:jfr/hot-path.jfc}") Resource settings,
+			@Value("${app.jfr.directory:./data/recordings}") String directory,
+			@Value("${app.jfr.max-age-minutes:60}") long maxAgeMinutes,
+			@Value("${app.jfr.max-size-mb:250}") long maxSizeMb,
+			@Value("${app.jfr.boot-recording:continuous}") String bootRecording) throws Exception {
+		FlightRecordings recordings = new FlightRecordings(settings, Paths.get(directory), Duration.ofMinutes(maxAgeMinutes),
+				maxSizeMb * 1024 * 1024);
+		if (!bootRecording.isBlank()) {
+			recordings.start(bootRecording);
+		}
+		return recordings;
+	}
+}
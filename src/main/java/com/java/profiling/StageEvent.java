@@ -0,0 +1,32 @@
+package com.java.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the hot-path JFR events. An event starts timing when created and is recorded by {@link #commit()} only if
+ * a recording has it enabled and it took at least the configured threshold (see {@code jfr/hot-path.jfc}). Its
+ * outcome stays {@link #ERROR} unless the stage reports another one, so a stage that throws is recorded as failed.
+ */
+public abstract class StageEvent extends Event {
+
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+
+    @Label("Outcome")
+    @Description("ok, error, or a stage-specific result")
+    String outcome = ERROR;
+
+    protected StageEvent() {
+        begin();
+    }
+
+    public void outcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+}
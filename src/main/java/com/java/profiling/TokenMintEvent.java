@@ -0,0 +1,23 @@
+package com.java.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Signing of an access or refresh token.
+ */
+@Name("com.java.TokenMint")
+@Label("Token Minting")
+@Category({"Java Spring Evaluation", "Auth"})
+@StackTrace(false)
+public class TokenMintEvent extends StageEvent {
+
+    @Label("Token Type")
+    String tokenType;
+
+    public TokenMintEvent(String tokenType) {
+        this.tokenType = tokenType;
+    }
+}
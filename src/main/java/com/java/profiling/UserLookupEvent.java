@@ -0,0 +1,23 @@
+package com.java.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Repository read of users. Outcomes: found, not-found, error.
+ */
+@Name("com.java.UserLookup")
+@Label("User Lookup")
+@Category({"Java Spring Evaluation", "Database"})
+@StackTrace(false)
+public class UserLookupEvent extends StageEvent {
+
+    @Label("Method")
+    String method;
+
+    public UserLookupEvent(String method) {
+        this.method = method;
+    }
+}
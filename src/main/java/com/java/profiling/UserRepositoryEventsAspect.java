@@ -0,0 +1,64 @@
+package com.java.profiling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * {@link UserLookupEvent}s and {@link UserSaveEvent}s around {@link com.java.repository.UserRepository} calls.
+ * Without a recording that enables them the events are never committed and the advice just proceeds.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class UserRepositoryEventsAspect {
+
+    @Around("execution(* com.java.repository.UserRepository.find*(..))"
+            + " || execution(* com.java.repository.UserRepository.exists*(..))")
+    public Object lookup(ProceedingJoinPoint pjp) throws Throwable {
+        UserLookupEvent event = new UserLookupEvent(pjp.getSignature().getName());
+        if (!event.isEnabled()) {
+            return pjp.proceed();
+        }
+        try {
+            Object result = pjp.proceed();
+            event.outcome(isFound(result) ? "found" : "not-found");
+            return result;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Around("execution(* com.java.repository.UserRepository.save*(..))"
+            + " || execution(* com.java.repository.UserRepository.update*(..))")
+    public Object save(ProceedingJoinPoint pjp) throws Throwable {
+        UserSaveEvent event = new UserSaveEvent(pjp.getSignature().getName());
+        if (!event.isEnabled()) {
+            return pjp.proceed();
+        }
+        try {
+            Object result = pjp.proceed();
+            event.outcome(Integer.valueOf(0).equals(result) ? "not-updated" : StageEvent.OK);
+            return result;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static boolean isFound(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent();
+        }
+        if (result instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        if (result instanceof Boolean exists) {
+            return exists;
+        }
+        return result != null;
+    }
+}
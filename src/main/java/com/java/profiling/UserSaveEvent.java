@@ -0,0 +1,23 @@
+package com.java.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Repository write of users. Outcomes: ok, not-updated (no row matched), error.
+ */
+@Name("com.java.UserSave")
+@Label("User Save")
+@Category({"Java Spring Evaluation", "Database"})
+@StackTrace(false)
+public class UserSaveEvent extends StageEvent {
+
+    @Label("Method")
+    String method;
+
+    public UserSaveEvent(String method) {
+        this.method = method;
+    }
+}
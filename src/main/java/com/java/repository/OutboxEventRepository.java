@@ -0,0 +1,25 @@
+package com.java.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.java.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+	List<OutboxEvent> findByIdLessThanEqualOrderByIdAsc(Long id, Pageable pageable);
+
+	@Modifying
+	@Query("delete from OutboxEvent e where e.id in :ids")
+	int deleteDelivered(@Param("ids") Collection<Long> ids);
+}
@@ -1,13 +1,32 @@
 package com.java.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.java.model.UserInfo;
+import com.java.model.UserPhones;
 
 @Repository
-public interface UserRepository  extends JpaRepository<UserInfo, Integer>{
+public interface UserRepository  extends JpaRepository<UserInfo, UUID>, UserRepositoryCustom {
 
 	UserInfo findByEmail(String username);
 
+	List<UserInfo> findByEmailIn(Collection<String> emails);
+
+	List<UserInfo> findByIdIn(Collection<UUID> ids);
+
+	long countByPasswordNotLike(String pattern);
+
+	boolean existsByEmail(String email);
+
+	// Reads the phones column and the version only, the user is not loaded as an entity
+	@Query("select u.phones as phones, u.version as version from UserInfo u where u.email = :email")
+	UserPhones findPhonesByEmail(@Param("email") String email);
+
 }
@@ -0,0 +1,66 @@
+package com.java.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.java.model.UserBulkRequest;
+import com.java.model.UserKey;
+import com.java.model.UserPassword;
+
+public interface UserRepositoryCustom {
+
+	/**
+	 * Sets only the given attributes of the user with {@code email} in one UPDATE, provided its version still
+	 * equals {@code version}, and increments the version.
+	 *
+	 * @return 1 when updated, 0 when the user does not exist or was changed concurrently
+	 */
+	int updateFieldsByEmail(String email, long version, Map<String, Object> fields);
+
+	/**
+	 * Sets the last login of the user with {@code email} in one UPDATE. The column is not updatable through the
+	 * entity, and the version is left alone since logging in does not change the profile.
+	 *
+	 * @return 1 when updated, 0 when the user does not exist
+	 */
+	int updateLastLoginByEmail(String email, LocalDateTime lastLogin);
+
+	/**
+	 * Ids and emails of at most {@code limit} users matching {@code criteria}, ordered by id and starting after
+	 * {@code after} (null for the first page). With {@code activeOnly} users already deactivated are skipped.
+	 */
+	List<UserKey> findKeys(UserBulkRequest criteria, boolean activeOnly, UUID after, int limit);
+
+	long countMatching(UserBulkRequest criteria, boolean activeOnly);
+
+	/**
+	 * Ids and passwords of at most {@code limit} users whose password does not start with {@code currentPrefix},
+	 * ordered by id and starting after {@code after} (null for the first page).
+	 */
+	List<UserPassword> findStalePasswords(String currentPrefix, UUID after, int limit);
+
+	/**
+	 * Replaces the password of the user with {@code id} in one UPDATE, provided it still equals {@code expected}.
+	 * The version is left alone since the password itself does not change, only its encryption.
+	 *
+	 * @return 1 when replaced, 0 when the user is gone or its password was changed meanwhile
+	 */
+	int replacePassword(UUID id, String expected, String password);
+
+	/**
+	 * Deactivates those of the given users that are still active in one UPDATE, incrementing their version.
+	 *
+	 * @return the number of users deactivated
+	 */
+	int deactivateByIdIn(Collection<UUID> ids);
+
+	/**
+	 * Deletes the given users in one DELETE, after any of their phones still in the legacy phone table.
+	 *
+	 * @return the number of users deleted
+	 */
+	int purgeByIdIn(Collection<UUID> ids);
+}
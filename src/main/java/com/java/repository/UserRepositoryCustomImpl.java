@@ -0,0 +1,188 @@
+package com.java.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.java.model.UserBulkRequest;
+import com.java.model.UserKey;
+import com.java.model.UserPassword;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+	// Attribute names end up in the JPQL text, so only these can be updated
+	private static final Set<String> UPDATABLE = Set.of("name", "password", "phones", "isActive");
+
+	private static final String ACTIVE = "(u.isActive is null or u.isActive = true)";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional
+	public int updateFieldsByEmail(String email, long version, Map<String, Object> fields) {
+		if (fields.isEmpty()) {
+			throw new IllegalArgumentException("No fields to update");
+		}
+
+		StringBuilder jpql = new StringBuilder("update UserInfo u set u.version = u.version + 1");
+		for (String field : fields.keySet()) {
+			if (!UPDATABLE.contains(field)) {
+				throw new IllegalArgumentException("Field cannot be updated: " + field);
+			}
+			jpql.append(", u.").append(field).append(" = :").append(field);
+		}
+		jpql.append(" where u.email = :email and u.version = :version");
+
+		Query query = entityManager.createQuery(jpql.toString());
+		fields.forEach(query::setParameter);
+		return query.setParameter("email", email).setParameter("version", version).executeUpdate();
+	}
+
+	@Override
+	@Transactional
+	public int updateLastLoginByEmail(String email, LocalDateTime lastLogin) {
+		return entityManager.createQuery("update UserInfo u set u.lastLogin = :lastLogin where u.email = :email")
+				.setParameter("lastLogin", lastLogin)
+				.setParameter("email", email)
+				.executeUpdate();
+	}
+
+	@Override
+	public List<UserKey> findKeys(UserBulkRequest criteria, boolean activeOnly, UUID after, int limit) {
+		StringBuilder jpql = new StringBuilder("select new com.java.model.UserKey(u.id, u.email) from UserInfo u");
+		where(jpql, criteria, activeOnly);
+		if (after != null) {
+			jpql.append(" and u.id > :after");
+		}
+		jpql.append(" order by u.id");
+
+		TypedQuery<UserKey> query = entityManager.createQuery(jpql.toString(), UserKey.class);
+		bind(query, criteria);
+		if (after != null) {
+			query.setParameter("after", after);
+		}
+		return query.setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public long countMatching(UserBulkRequest criteria, boolean activeOnly) {
+		StringBuilder jpql = new StringBuilder("select count(u) from UserInfo u");
+		where(jpql, criteria, activeOnly);
+		TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+		bind(query, criteria);
+		return query.getSingleResult();
+	}
+
+	@Override
+	public List<UserPassword> findStalePasswords(String currentPrefix, UUID after, int limit) {
+		String jpql = "select new com.java.model.UserPassword(u.id, u.password) from UserInfo u"
+				+ " where u.password not like :prefix" + (after != null ? " and u.id > :after" : "") + " order by u.id";
+		TypedQuery<UserPassword> query = entityManager.createQuery(jpql, UserPassword.class)
+				.setParameter("prefix", currentPrefix + "%");
+		if (after != null) {
+			query.setParameter("after", after);
+		}
+		return query.setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	@Transactional
+	public int replacePassword(UUID id, String expected, String password) {
+		return entityManager.createQuery("update UserInfo u set u.password = :password"
+						+ " where u.id = :id and u.password = :expected")
+				.setParameter("password", password)
+				.setParameter("id", id)
+				.setParameter("expected", expected)
+				.executeUpdate();
+	}
+
+	@Override
+	@Transactional
+	public int deactivateByIdIn(Collection<UUID> ids) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		return entityManager.createQuery("update UserInfo u set u.isActive = false, u.version = u.version + 1"
+				+ " where u.id in :ids and " + ACTIVE)
+				.setParameter("ids", ids)
+				.executeUpdate();
+	}
+
+	@Override
+	@Transactional
+	public int purgeByIdIn(Collection<UUID> ids) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		// Rows PhoneStorageMigration left behind still reference their user
+		if (legacyPhoneTableExists()) {
+			entityManager.createNativeQuery("delete from phone_info_legacy where phone_id in (:ids)")
+					.setParameter("ids", ids)
+					.executeUpdate();
+		}
+		return entityManager.createQuery("delete from UserInfo u where u.id in :ids")
+				.setParameter("ids", ids)
+				.executeUpdate();
+	}
+
+	private static void where(StringBuilder jpql, UserBulkRequest criteria, boolean activeOnly) {
+		jpql.append(" where 1 = 1");
+		if (criteria.getEmails() != null && !criteria.getEmails().isEmpty()) {
+			jpql.append(" and u.email in :emails");
+		}
+		if (criteria.getCreatedFrom() != null) {
+			jpql.append(" and u.created >= :createdFrom");
+		}
+		if (criteria.getCreatedTo() != null) {
+			jpql.append(" and u.created < :createdTo");
+		}
+		if (criteria.getInactiveSince() != null) {
+			jpql.append(" and coalesce(u.lastLogin, u.created) < :inactiveSince");
+		}
+		if (activeOnly) {
+			jpql.append(" and ").append(ACTIVE);
+		}
+	}
+
+	private static void bind(Query query, UserBulkRequest criteria) {
+		if (criteria.getEmails() != null && !criteria.getEmails().isEmpty()) {
+			query.setParameter("emails", criteria.getEmails());
+		}
+		if (criteria.getCreatedFrom() != null) {
+			query.setParameter("createdFrom", criteria.getCreatedFrom());
+		}
+		if (criteria.getCreatedTo() != null) {
+			query.setParameter("createdTo", criteria.getCreatedTo());
+		}
+		if (criteria.getInactiveSince() != null) {
+			query.setParameter("inactiveSince", criteria.getInactiveSince());
+		}
+	}
+
+	private boolean legacyPhoneTableExists() {
+		return entityManager.unwrap(Session.class).doReturningWork((Connection connection) -> {
+			for (String name : new String[] {"phone_info_legacy", "PHONE_INFO_LEGACY"}) {
+				try (ResultSet tables = connection.getMetaData().getTables(null, null, name, new String[] {"TABLE"})) {
+					if (tables.next()) {
+						return true;
+					}
+				}
+			}
+			return false;
+		});
+	}
+}
@@ -0,0 +1,90 @@
+package com.java.requestlog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes request log records as JSON lines to the {@code requests} logger. Request threads only enqueue; a
+ * background thread serializes and logs them. Records arriving while the queue is full are dropped and counted in
+ * {@code request.log.dropped}.
+ */
+@Slf4j
+public class AsyncRequestLogSink implements RequestLogSink, AutoCloseable {
+
+    // Route it to its own appender, or turn it off, through the usual logging.level.requests settings
+    public static final String LOGGER = "requests";
+
+    private static final int BATCH_SIZE = 512;
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<String> out;
+    private final BlockingQueue<RequestLogRecord> queue;
+    private final Counter dropped;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AsyncRequestLogSink(ObjectMapper objectMapper, int queueCapacity, MeterRegistry meterRegistry) {
+        this(objectMapper, queueCapacity, meterRegistry, LoggerFactory.getLogger(LOGGER)::info);
+    }
+
+    AsyncRequestLogSink(ObjectMapper objectMapper, int queueCapacity, MeterRegistry meterRegistry,
+            Consumer<String> out) {
+        this.objectMapper = objectMapper;
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = Counter.builder("request.log.dropped")
+                .description("Request log records not written because the queue was full")
+                .register(meterRegistry);
+        this.writer = new Thread(this::writeLoop, "request-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void accept(RequestLogRecord record) {
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void writeLoop() {
+        List<RequestLogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                RequestLogRecord first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (RequestLogRecord record : batch) {
+                    out.accept(objectMapper.writeValueAsString(record));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Writing {} request log record(s) failed", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.java.requestlog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.tracing.Tracer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Structured request log, on with {@code app.request-log.enabled=true}: one JSON line per sampled request on the
+ * {@code requests} logger, written off the request thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.request-log.enabled", havingValue = "true")
+public class RequestLogConfig {
+
+	@Bean
+	public AsyncRequestLogSink requestLogSink(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${app.request-log.queue-capacity:10000}") int queueCapacity) {
+		return new AsyncRequestLogSink(objectMapper, queueCapacity, meterRegistry);
+	}
+
+	@Bean
+	public FilterRegistrationBean<RequestLogFilter> requestLogFilter(RequestLogSink sink, Tracer tracer,
+			@Value("${app.request-log.sample.1xx:0.1}") double informational,
+			@Value("${app.request-log.sample.2xx:0.1}") double success,
+			@Value("${app.request-log.sample.3xx:0.1}") double redirection,
+			@Value("${app.request-log.sample.4xx:1.0}") double clientError,
+			@Value("${app.request-log.sample.5xx:1.0}") double serverError) {
+		double[] sampleRatios = {1.0, informational, success, redirection, clientError, serverError};
+		FilterRegistrationBean<RequestLogFilter> registration = new FilterRegistrationBean<>(
+				new RequestLogFilter(sink, tracer, sampleRatios));
+		// Inside the tracing filter so records carry the trace id, ahead of Spring Security
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+		return registration;
+	}
+}
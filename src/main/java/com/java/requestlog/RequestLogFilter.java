@@ -0,0 +1,71 @@
+package com.java.requestlog;
+
+import com.java.exceptions.ErrorResponses;
+import com.java.jwt.SecurityConstants;
+import com.java.tracing.Span;
+import com.java.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emits one {@link RequestLogRecord} per request to a {@link RequestLogSink}, for a share of the requests set per
+ * status class ({@code sampleRatios[status / 100]}). Requests that are not sampled cost a timestamp and a random
+ * number. Runs ahead of Spring Security, so rejected tokens are logged too.
+ */
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    private final RequestLogSink sink;
+    private final Tracer tracer;
+    private final double[] sampleRatios;
+
+    /**
+     * @param sampleRatios share of the requests to log, indexed by status class: 1 for 1xx up to 5 for 5xx
+     */
+    public RequestLogFilter(RequestLogSink sink, Tracer tracer, double[] sampleRatios) {
+        this.sink = sink;
+        this.tracer = tracer;
+        this.sampleRatios = sampleRatios.clone();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        Span span = tracer.current();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            // An exception leaving the chain becomes a 500 in the container
+            int status = failed ? 500 : response.getStatus();
+            if (sampled(status)) {
+                sink.accept(record(request, status, (System.nanoTime() - start) / 1_000, span));
+            }
+        }
+    }
+
+    boolean sampled(int status) {
+        int statusClass = status / 100;
+        double ratio = statusClass > 0 && statusClass < sampleRatios.length ? sampleRatios[statusClass] : 1.0;
+        return ratio >= 1.0 || (ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio);
+    }
+
+    private static RequestLogRecord record(HttpServletRequest request, int status, long latencyMicros, Span span) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Object user = request.getAttribute(SecurityConstants.AUTHENTICATED_USER_ATTRIBUTE);
+        Object errorCode = request.getAttribute(ErrorResponses.ERROR_CODE_ATTRIBUTE);
+        return new RequestLogRecord(Instant.now(), request.getMethod(),
+                route != null ? route.toString() : request.getRequestURI(), status, latencyMicros,
+                user != null ? user.toString() : null, errorCode instanceof Integer code ? code : null,
+                span.isRecording() ? span.getTraceId() : null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.java.requestlog;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * One line of the request log. {@code route} is the matched handler pattern (the path when nothing matched),
+ * {@code user} the authenticated email, {@code errorCode} the {@link com.java.exceptions.ErrorCode} of an error
+ * response and {@code traceId} the trace of a traced request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RequestLogRecord(Instant timestamp, String method, String route, int status, long latencyMicros,
+        String user, Integer errorCode, String traceId) {
+}
@@ -0,0 +1,9 @@
+package com.java.requestlog;
+
+/**
+ * Receives the sampled request log records, on the request thread, so it must not block.
+ */
+public interface RequestLogSink {
+
+    void accept(RequestLogRecord record);
+}
@@ -0,0 +1,97 @@
+package com.java.search;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a packed trigram to a growable, ascending list of document ids,
+ * kept in primitive arrays to avoid boxing and per-entry objects.
+ */
+class TrigramPostings {
+
+    private static final long EMPTY = 0L;
+    private static final long USED = 1L << 63;
+
+    private long[] keys = new long[1 << 12];
+    private int[][] lists = new int[1 << 12][];
+    private int[] sizes = new int[1 << 12];
+    private int count;
+
+    static long pack(char a, char b, char c) {
+        return USED | ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    void add(long gram, int docId) {
+        if ((count + 1) * 2 > keys.length) {
+            resize();
+        }
+        int slot = slotFor(gram, keys);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = gram;
+            lists[slot] = new int[2];
+            count++;
+        }
+        int size = sizes[slot];
+        int[] list = lists[slot];
+        if (size > 0 && list[size - 1] == docId) {
+            return;
+        }
+        if (size == list.length) {
+            list = lists[slot] = Arrays.copyOf(list, size + (size >> 1) + 2);
+        }
+        list[size] = docId;
+        sizes[slot] = size + 1;
+    }
+
+    /**
+     * Returns the posting list of a gram (valid up to {@link #size}) or null when the gram is unknown.
+     */
+    int[] list(long gram) {
+        int slot = slotFor(gram, keys);
+        return keys[slot] == EMPTY ? null : lists[slot];
+    }
+
+    int size(long gram) {
+        int slot = slotFor(gram, keys);
+        return keys[slot] == EMPTY ? 0 : sizes[slot];
+    }
+
+    void clear() {
+        keys = new long[1 << 12];
+        lists = new int[1 << 12][];
+        sizes = new int[1 << 12];
+        count = 0;
+    }
+
+    private static int slotFor(long gram, long[] table) {
+        int mask = table.length - 1;
+        int slot = (int) (mix(gram) & mask);
+        while (table[slot] != EMPTY && table[slot] != gram) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[][] oldLists = lists;
+        int[] oldSizes = sizes;
+        keys = new long[oldKeys.length * 2];
+        lists = new int[keys.length][];
+        sizes = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotFor(oldKeys[i], keys);
+                keys[slot] = oldKeys[i];
+                lists[slot] = oldLists[i];
+                sizes[slot] = oldSizes[i];
+            }
+        }
+    }
+}
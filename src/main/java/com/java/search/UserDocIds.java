@@ -0,0 +1,113 @@
+package com.java.search;
+
+/**
+ * Open-addressing map from a user id, as the two longs of its UUID, to a document id. Keys and values sit in
+ * parallel primitive arrays with linear probing, and removal shifts later entries back instead of leaving
+ * tombstones, so there is no boxing and no per-entry object.
+ *
+ * <p>Not thread-safe: guarded by the index lock.</p>
+ */
+class UserDocIds {
+
+    private static final int INITIAL_CAPACITY = 1 << 11;
+
+    private long[] msbs = new long[INITIAL_CAPACITY];
+    private long[] lsbs = new long[INITIAL_CAPACITY];
+    // doc + 1, 0 marks an empty slot
+    private int[] docs = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the document of the user, or -1 when it is unknown.
+     */
+    int get(long msb, long lsb) {
+        int slot = find(msb, lsb);
+        return docs[slot] - 1;
+    }
+
+    void put(long msb, long lsb, int doc) {
+        if ((size + 1) * 2 > docs.length) {
+            resize(docs.length << 1);
+        }
+        int slot = find(msb, lsb);
+        if (docs[slot] == 0) {
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            size++;
+        }
+        docs[slot] = doc + 1;
+    }
+
+    /**
+     * Removes the user and returns its document, or -1 when it is unknown.
+     */
+    int remove(long msb, long lsb) {
+        int slot = find(msb, lsb);
+        int doc = docs[slot] - 1;
+        if (doc < 0) {
+            return -1;
+        }
+        int mask = docs.length - 1;
+        int hole = slot;
+        for (int i = (hole + 1) & mask; docs[i] != 0; i = (i + 1) & mask) {
+            // Move an entry back into the hole unless its home slot lies cyclically after the hole
+            int home = slot(msbs[i], lsbs[i], mask);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                msbs[hole] = msbs[i];
+                lsbs[hole] = lsbs[i];
+                docs[hole] = docs[i];
+                hole = i;
+            }
+        }
+        docs[hole] = 0;
+        size--;
+        return doc;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        msbs = new long[INITIAL_CAPACITY];
+        lsbs = new long[INITIAL_CAPACITY];
+        docs = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private int find(long msb, long lsb) {
+        int mask = docs.length - 1;
+        int i = slot(msb, lsb, mask);
+        while (docs[i] != 0 && (msbs[i] != msb || lsbs[i] != lsb)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        int[] oldDocs = docs;
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        docs = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldDocs.length; i++) {
+            if (oldDocs[i] != 0) {
+                int slot = slot(oldMsbs[i], oldLsbs[i], mask);
+                while (docs[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                msbs[slot] = oldMsbs[i];
+                lsbs[slot] = oldLsbs[i];
+                docs[slot] = oldDocs[i];
+            }
+        }
+    }
+
+    private static int slot(long msb, long lsb, int mask) {
+        // Random UUIDs are already well mixed, the multiply keeps sequential ones apart
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,486 @@
+package com.java.search;
+
+import com.java.model.UserSearchResult;
+import com.java.service.UserChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory type-ahead index over user names and emails. Each field is split into case-insensitive trigrams,
+ * padded with two start markers of its own so prefixes of either field have grams of their own. A query is answered
+ * rank by rank, best first: each rank intersects the posting lists of the grams its matches must contain (e.g. the
+ * email start grams for email prefixes), and the walk stops once a rank fills the page. Within a rank, every match is
+ * considered, and those that cannot beat a full page are skipped before they are verified.
+ *
+ * <p>Documents live in parallel arrays addressed by an int id, users are found by the two longs of their UUID in
+ * an open-addressing table and postings are ascending int arrays, so the index holds no per-entry objects besides
+ * the name and email strings. An updated or removed user leaves a dead document
+ * behind, which is reclaimed by rebuilding the postings once dead documents outnumber live ones.</p>
+ */
+@Component
+public class UserSearchIndex {
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final char NAME_START = '\u0001';
+    private static final char EMAIL_START = '\u0002';
+
+    private static final int EMAIL_PREFIX = 0;
+    private static final int NAME_PREFIX = 1;
+    private static final int NAME_WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TrigramPostings postings = new TrigramPostings();
+    private final UserDocIds docByUserId = new UserDocIds();
+    private final BitSet dead = new BitSet();
+
+    // Open-addressing table of doc + 1 by email, dead docs are skipped and dropped when it is rebuilt
+    private int[] emailSlots = new int[2048];
+
+    private long[] idMsbs = new long[1024];
+    private long[] idLsbs = new long[1024];
+    private String[] names = new String[1024];
+    private String[] emails = new String[1024];
+    // Lower-cased like the trigrams, so candidates are verified with indexOf; the same instance when already lower
+    private String[] foldedNames = new String[1024];
+    private String[] foldedEmails = new String[1024];
+    // Ties within a rank go to the shorter email, compared without touching the strings
+    private int[] emailLengths = new int[1024];
+    private int docCount;
+    private int deadCount;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.removed()) {
+            remove(event.id());
+        } else if (event.id() == null) {
+            rename(event.email(), event.name());
+        } else {
+            put(event.id(), event.name(), event.email());
+        }
+    }
+
+    /**
+     * Adds a user, or replaces the indexed name and email of a known one.
+     */
+    public void put(String userId, String name, String email) {
+        UUID id = UUID.fromString(userId);
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        lock.writeLock().lock();
+        try {
+            int previous = docByUserId.get(msb, lsb);
+            if (previous >= 0) {
+                if (equals(names[previous], name) && equals(emails[previous], email)) {
+                    return;
+                }
+                kill(previous);
+            }
+            docByUserId.put(msb, lsb, append(msb, lsb, name, email));
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the indexed name of the user with {@code email}, for changes made without knowing the user id.
+     */
+    public void rename(String email, String name) {
+        lock.writeLock().lock();
+        try {
+            int doc = liveDocByEmail(email);
+            if (doc >= 0 && !equals(names[doc], name)) {
+                long msb = idMsbs[doc];
+                long lsb = idLsbs[doc];
+                kill(doc);
+                docByUserId.put(msb, lsb, append(msb, lsb, name, email));
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String userId) {
+        UUID id = UUID.fromString(userId);
+        lock.writeLock().lock();
+        try {
+            int doc = docByUserId.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (doc >= 0) {
+                kill(doc);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docByUserId.clear();
+            dead.clear();
+            idMsbs = new long[1024];
+            idLsbs = new long[1024];
+            names = new String[1024];
+            emails = new String[1024];
+            foldedNames = new String[1024];
+            foldedEmails = new String[1024];
+            emailLengths = new int[1024];
+            emailSlots = new int[2048];
+            docCount = 0;
+            deadCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByUserId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds users whose email or name contains {@code query} (one or two characters match field prefixes only).
+     * Email prefixes rank first, then name prefixes, name word prefixes and plain substrings; ties go to the
+     * shorter email.
+     */
+    public List<UserSearchResult> search(String query, int limit) {
+        String q = query == null ? "" : query.trim();
+        int max = Math.min(Math.max(limit, 0), MAX_LIMIT);
+        if (q.isEmpty() || max == 0) {
+            return List.of();
+        }
+        String folded = fold(q);
+        String wordPrefix = " " + folded;
+
+        lock.readLock().lock();
+        try {
+            // Top hits packed as (rank, email length, doc) so ordering is a plain long comparison
+            long[] top = new long[max];
+            int found = 0;
+            // One or two characters only match field prefixes; a lower rank never beats a full page of a higher one
+            int lowestRank = q.length() < 3 ? NAME_PREFIX : SUBSTRING;
+            for (int rank = EMAIL_PREFIX; rank <= lowestRank && found < max; rank++) {
+                found = collect(queryGrams(q, rank), rank, folded, wordPrefix, top, found);
+            }
+
+            List<UserSearchResult> results = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                int doc = (int) top[i];
+                results.add(new UserSearchResult(new UUID(idMsbs[doc], idLsbs[doc]).toString(), names[doc], emails[doc]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the documents of exactly {@code rank} to the hits in {@code top}, walking the rarest posting list of
+     * {@code grams} and advancing a cursor in each other one. Returns the new number of hits.
+     */
+    private int collect(long[] grams, int rank, String q, String wordPrefix, long[] top, int found) {
+        int[][] lists = new int[grams.length][];
+        int[] sizes = new int[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.list(grams[i]);
+            sizes[i] = postings.size(grams[i]);
+            if (lists[i] == null) {
+                return found;
+            }
+        }
+        Integer[] order = new Integer[grams.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[a], sizes[b]));
+
+        int max = top.length;
+        int[] rarest = lists[order[0]];
+        int[] cursors = new int[order.length];
+        candidates:
+        for (int i = 0; i < sizes[order[0]]; i++) {
+            int doc = rarest[i];
+            if (dead.get(doc)) {
+                continue;
+            }
+            long key = ((long) rank << 60) | ((long) Math.min(emailLengths[doc], 0xFFFFFFF) << 32) | doc;
+            // Most matches of a broad query lose to a full page on length alone, before any verification
+            if (found == max && key >= top[max - 1]) {
+                continue;
+            }
+            for (int k = 1; k < order.length; k++) {
+                int[] list = lists[order[k]];
+                int end = sizes[order[k]];
+                int c = cursors[k];
+                while (c < end && list[c] < doc) {
+                    c++;
+                }
+                cursors[k] = c;
+                if (c == end) {
+                    break candidates;
+                }
+                if (list[c] != doc) {
+                    continue candidates;
+                }
+            }
+            // Better ranked documents were collected by an earlier rank
+            if (rank(doc, q, wordPrefix, rank) != rank) {
+                continue;
+            }
+            found = insert(top, Math.min(found, max - 1), key);
+        }
+        return found;
+    }
+
+    // Inserts in order into the first size + 1 slots, dropping the last hit of a full page
+    private static int insert(long[] top, int size, long key) {
+        int i = size;
+        while (i > 0 && top[i - 1] > key) {
+            top[i] = top[i - 1];
+            i--;
+        }
+        top[i] = key;
+        return size + 1;
+    }
+
+    /**
+     * Rank of the document for the lower-cased query, or -1 when it does not match or ranks below {@code worstRank}.
+     */
+    private int rank(int doc, String q, String wordPrefix, int worstRank) {
+        String email = foldedEmails[doc];
+        String name = foldedNames[doc];
+        if (worstRank < EMAIL_PREFIX) {
+            return -1;
+        }
+        if (email.startsWith(q)) {
+            return EMAIL_PREFIX;
+        }
+        if (worstRank < NAME_PREFIX) {
+            return -1;
+        }
+        if (name.startsWith(q)) {
+            return NAME_PREFIX;
+        }
+        if (q.length() < 3 || worstRank < NAME_WORD_PREFIX) {
+            return -1;
+        }
+        if (name.contains(wordPrefix)) {
+            return NAME_WORD_PREFIX;
+        }
+        if (worstRank < SUBSTRING) {
+            return -1;
+        }
+        return email.contains(q) || name.contains(q) ? SUBSTRING : -1;
+    }
+
+    private int append(long msb, long lsb, String name, String email) {
+        if (docCount == idMsbs.length) {
+            int capacity = docCount + (docCount >> 1);
+            idMsbs = Arrays.copyOf(idMsbs, capacity);
+            idLsbs = Arrays.copyOf(idLsbs, capacity);
+            names = Arrays.copyOf(names, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            foldedNames = Arrays.copyOf(foldedNames, capacity);
+            foldedEmails = Arrays.copyOf(foldedEmails, capacity);
+            emailLengths = Arrays.copyOf(emailLengths, capacity);
+        }
+        int doc = docCount++;
+        idMsbs[doc] = msb;
+        idLsbs[doc] = lsb;
+        names[doc] = name == null ? "" : name;
+        emails[doc] = email == null ? "" : email;
+        foldedNames[doc] = fold(names[doc]);
+        foldedEmails[doc] = fold(emails[doc]);
+        emailLengths[doc] = emails[doc].length();
+        indexDoc(doc);
+        if (docCount * 2 > emailSlots.length) {
+            rebuildEmailSlots();
+        } else {
+            addEmailSlot(doc);
+        }
+        return doc;
+    }
+
+    private int liveDocByEmail(String email) {
+        int mask = emailSlots.length - 1;
+        for (int i = emailSlot(email, mask); emailSlots[i] != 0; i = (i + 1) & mask) {
+            int doc = emailSlots[i] - 1;
+            if (!dead.get(doc) && emails[doc].equals(email)) {
+                return doc;
+            }
+        }
+        return -1;
+    }
+
+    private void addEmailSlot(int doc) {
+        int mask = emailSlots.length - 1;
+        int i = emailSlot(emails[doc], mask);
+        while (emailSlots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        emailSlots[i] = doc + 1;
+    }
+
+    private void rebuildEmailSlots() {
+        int capacity = 2048;
+        while (docCount * 2 > capacity) {
+            capacity <<= 1;
+        }
+        emailSlots = new int[capacity];
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!dead.get(doc)) {
+                addEmailSlot(doc);
+            }
+        }
+    }
+
+    private static int emailSlot(String email, int mask) {
+        int hash = email.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void indexDoc(int doc) {
+        long[] grams = fieldGrams(names[doc], emails[doc]);
+        Arrays.sort(grams);
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                postings.add(grams[i], doc);
+            }
+        }
+    }
+
+    private void kill(int doc) {
+        dead.set(doc);
+        deadCount++;
+    }
+
+    private void compactIfSparse() {
+        if (deadCount < 1024 || deadCount < docCount - deadCount) {
+            return;
+        }
+        long[] liveMsbs = new long[Math.max(1024, docCount - deadCount)];
+        long[] liveLsbs = new long[liveMsbs.length];
+        String[] liveNames = new String[liveMsbs.length];
+        String[] liveEmails = new String[liveMsbs.length];
+        String[] liveFoldedNames = new String[liveMsbs.length];
+        String[] liveFoldedEmails = new String[liveMsbs.length];
+        int[] liveEmailLengths = new int[liveMsbs.length];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!dead.get(doc)) {
+                liveMsbs[live] = idMsbs[doc];
+                liveLsbs[live] = idLsbs[doc];
+                liveNames[live] = names[doc];
+                liveEmails[live] = emails[doc];
+                liveFoldedNames[live] = foldedNames[doc];
+                liveFoldedEmails[live] = foldedEmails[doc];
+                liveEmailLengths[live] = emailLengths[doc];
+                live++;
+            }
+        }
+
+        postings.clear();
+        docByUserId.clear();
+        dead.clear();
+        idMsbs = liveMsbs;
+        idLsbs = liveLsbs;
+        names = liveNames;
+        emails = liveEmails;
+        foldedNames = liveFoldedNames;
+        foldedEmails = liveFoldedEmails;
+        emailLengths = liveEmailLengths;
+        docCount = live;
+        deadCount = 0;
+        for (int doc = 0; doc < live; doc++) {
+            docByUserId.put(idMsbs[doc], idLsbs[doc], doc);
+            indexDoc(doc);
+        }
+        rebuildEmailSlots();
+    }
+
+    private static long[] fieldGrams(String name, String email) {
+        long[] grams = new long[name.length() + email.length()];
+        int count = addGrams(name, NAME_START, grams, 0);
+        count = addGrams(email, EMAIL_START, grams, count);
+        return count == grams.length ? grams : Arrays.copyOf(grams, count);
+    }
+
+    private static int addGrams(String text, char start, long[] grams, int offset) {
+        char a = start;
+        char b = start;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            grams[offset++] = TrigramPostings.pack(a, b, c);
+            a = b;
+            b = c;
+        }
+        return offset;
+    }
+
+    /**
+     * Grams every match of {@code rank} contains: the field start grams for prefixes, the gram after a space for name
+     * word prefixes, and the inner grams of queries of three or more characters.
+     */
+    private static long[] queryGrams(String q, int rank) {
+        char first = Character.toLowerCase(q.charAt(0));
+        char second = q.length() > 1 ? Character.toLowerCase(q.charAt(1)) : 0;
+        long[] grams = new long[Math.max(q.length() - 2, 0) + 2];
+        int count = 0;
+        for (int i = 2; i < q.length(); i++) {
+            grams[count++] = TrigramPostings.pack(Character.toLowerCase(q.charAt(i - 2)),
+                    Character.toLowerCase(q.charAt(i - 1)), Character.toLowerCase(q.charAt(i)));
+        }
+        if (rank == EMAIL_PREFIX || rank == NAME_PREFIX) {
+            char start = rank == EMAIL_PREFIX ? EMAIL_START : NAME_START;
+            grams[count++] = TrigramPostings.pack(start, start, first);
+            if (q.length() > 1) {
+                grams[count++] = TrigramPostings.pack(start, first, second);
+            }
+        } else if (rank == NAME_WORD_PREFIX) {
+            grams[count++] = TrigramPostings.pack(' ', first, second);
+        }
+        grams = Arrays.copyOf(grams, count);
+        Arrays.sort(grams);
+        int unique = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[unique - 1]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    // Character by character, like the trigrams, so a match of all grams is a match of the text
+    private static String fold(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.toLowerCase(text.charAt(i)) != text.charAt(i)) {
+                char[] chars = text.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    chars[j] = Character.toLowerCase(chars[j]);
+                }
+                return new String(chars);
+            }
+        }
+        return text;
+    }
+
+    private static boolean equals(String indexed, String value) {
+        return indexed.equals(value == null ? "" : value);
+    }
+}
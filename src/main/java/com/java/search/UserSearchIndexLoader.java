@@ -0,0 +1,56 @@
+package com.java.search;
+
+import com.java.offheap.OffHeapUserStore;
+import com.java.sharding.UserShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the {@link UserSearchIndex} on startup with a forward-only scan of {@code user_info} on every shard,
+ * reading only the indexed columns, or of the off-heap store when users live there. Users registered meanwhile
+ * reach the index through their change events.
+ */
+@Slf4j
+@Component
+@Order(10)
+public class UserSearchIndexLoader implements ApplicationRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserShards userShards;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    // Only present when app.users.store=offheap
+    @Autowired(required = false)
+    private OffHeapUserStore offHeapUserStore;
+
+    @Value("${app.search.load-fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        if (offHeapUserStore != null) {
+            offHeapUserStore.forEach(user -> searchIndex.put(user.getId().toString(), user.getName(), user.getEmail()));
+            log.info("Indexed {} user(s) for search in {} ms", searchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+        JdbcTemplate scan = new JdbcTemplate(jdbcTemplate.getDataSource());
+        scan.setFetchSize(fetchSize);
+        userShards.forEach(() -> scan.query("select id, name, email from user_info",
+                rs -> {
+                    searchIndex.put(rs.getString("id"), rs.getString("name"), rs.getString("email"));
+                }));
+        log.info("Indexed {} user(s) for search in {} ms", searchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -3,64 +3,131 @@ package com.java.security;
 import java.util.Arrays;
 import java.util.Collections;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.ExceptionTranslationFilter;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.web.cors.CorsConfiguration;
-import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
 
+import com.java.jwt.JwtAuthenticationEntryPoint;
 import com.java.jwt.JwtValidationFilter;
-
-import jakarta.servlet.http.HttpServletRequest;
+import com.java.jwt.TokenRevocationList;
+import com.java.tracing.Tracer;
 
 @Configuration
 public class SecurityConfig {
-	
+
+	// Endpoints anyone may call, the lean chain does not run the security filters for them at all
+	private static final String[] PUBLIC_POST = {"/app/sign-up", "/app/token/refresh"};
+	private static final String[] PUBLIC_GET = {"/app/sign-up/status/*", "/actuator/health/**"};
+	private static final String[] PUBLIC_DOCS = {"/v3/api-docs/**", "/swagger-ui*/**"};
+	// Operational endpoints
+	private static final String ADMIN = "/app/admin/**";
+
+	// Built once and shared by every request
+	@Bean
+	public UrlBasedCorsConfigurationSource corsConfigurationSource() {
+		CorsConfiguration cfg = new CorsConfiguration();
+		cfg.setAllowedOriginPatterns(Collections.singletonList("*"));
+		cfg.setAllowedMethods(Collections.singletonList("*"));
+		cfg.setAllowCredentials(true);
+		cfg.setAllowedHeaders(Collections.singletonList("*"));
+		cfg.setExposedHeaders(Arrays.asList("Authorization"));
+
+		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+		source.registerCorsConfiguration("/**", cfg);
+		return source;
+	}
+
+	/**
+	 * Stateless JWT-only chain: no CSRF tokens, sessions, saved requests, anonymous users, basic or form login.
+	 * CORS is handled by a servlet filter ahead of Spring Security so ignored public endpoints get it too.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "app.security.lean", havingValue = "true", matchIfMissing = true)
+	public SecurityFilterChain leanSecurityConfig(HttpSecurity http, Tracer tracer, TokenRevocationList revocationList)
+			throws Exception
+	{
+		http.sessionManagement(sessionmangement -> sessionmangement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+		.securityContext(context -> context.securityContextRepository(new NullSecurityContextRepository()))
+		.authorizeHttpRequests(
+				(auth)-> auth
+				.requestMatchers(ADMIN).hasRole("ADMIN")
+				.requestMatchers("/**").hasAnyRole("USER","ADMIN")
+				.anyRequest().authenticated()
+				)
+		.exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new JwtAuthenticationEntryPoint()))
+		// Behind ExceptionTranslationFilter, so rejected tokens end at the entry point
+		.addFilterAfter(new JwtValidationFilter(tracer, revocationList), ExceptionTranslationFilter.class)
+		.cors(AbstractHttpConfigurer::disable)
+		.csrf(AbstractHttpConfigurer::disable)
+		.httpBasic(AbstractHttpConfigurer::disable)
+		.formLogin(AbstractHttpConfigurer::disable)
+		.logout(AbstractHttpConfigurer::disable)
+		.requestCache(AbstractHttpConfigurer::disable)
+		.anonymous(AbstractHttpConfigurer::disable);
+
+		return http.build();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.security.lean", havingValue = "true", matchIfMissing = true)
+	public WebSecurityCustomizer publicEndpoints() {
+		return web -> web.ignoring()
+				.requestMatchers(HttpMethod.POST, PUBLIC_POST)
+				.requestMatchers(HttpMethod.GET, PUBLIC_GET)
+				.requestMatchers(PUBLIC_DOCS);
+	}
+
 	@Bean
-	public SecurityFilterChain mySecurityConfig(HttpSecurity http) throws Exception
+	@ConditionalOnProperty(name = "app.security.lean", havingValue = "true", matchIfMissing = true)
+	public FilterRegistrationBean<CorsFilter> corsFilter(UrlBasedCorsConfigurationSource corsConfigurationSource) {
+		FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(corsConfigurationSource));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	// Previous chain, kept behind app.security.lean=false
+	@Bean
+	@ConditionalOnProperty(name = "app.security.lean", havingValue = "false")
+	public SecurityFilterChain mySecurityConfig(HttpSecurity http, UrlBasedCorsConfigurationSource corsConfigurationSource,
+			Tracer tracer, TokenRevocationList revocationList) throws Exception
 	{
-		
+
 	// CORS configuration
 		http.sessionManagement( sessionmangement ->  sessionmangement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-		.cors(cors -> {
-			cors.configurationSource(new CorsConfigurationSource() {
-				
-				@Override
-				public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
-					
-					CorsConfiguration cfg = new CorsConfiguration();
-					cfg.setAllowedOriginPatterns(Collections.singletonList("*"));
-					cfg.setAllowedMethods(Collections.singletonList("*"));
-					cfg.setAllowCredentials(true);
-					cfg.setAllowedHeaders(Collections.singletonList("*"));
-					cfg.setExposedHeaders(Arrays.asList("Authorization"));
-					
-				   return cfg;
-					
-				}
-			});
-		})
-			
+		.cors(cors -> cors.configurationSource(corsConfigurationSource))
+
 		.authorizeHttpRequests(
 				(auth)-> auth
-				.requestMatchers(HttpMethod.POST,"/app/sign-up").permitAll()
-				.requestMatchers("/v3/api-docs/**", "/swagger-ui*/**").permitAll()
+				.requestMatchers(HttpMethod.POST, PUBLIC_POST).permitAll()
+				.requestMatchers(HttpMethod.GET, PUBLIC_GET).permitAll()
+				.requestMatchers(PUBLIC_DOCS).permitAll()
+				.requestMatchers(ADMIN).hasRole("ADMIN")
 				.requestMatchers("/**").hasAnyRole("USER","ADMIN")
 				.anyRequest().authenticated()
 				)
 		.csrf(csrf -> csrf.ignoringRequestMatchers("/**")
 				.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
 				)
-		.addFilterBefore(new JwtValidationFilter(), BasicAuthenticationFilter.class)
+		.addFilterBefore(new JwtValidationFilter(tracer, revocationList), BasicAuthenticationFilter.class)
 		.httpBasic(Customizer.withDefaults())
 		.formLogin(Customizer.withDefaults());
-		
+
 		 return http.build();
 	}
 
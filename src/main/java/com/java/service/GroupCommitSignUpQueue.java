@@ -0,0 +1,203 @@
+package com.java.service;
+
+import com.java.datasource.DataSourceRouting;
+import com.java.exceptions.ErrorCode;
+import com.java.exceptions.SignUpQueueFullException;
+import com.java.exceptions.UserException;
+import com.java.model.SignUpStatus;
+import com.java.model.UserDTO;
+import com.java.repository.UserRepository;
+import com.java.sharding.UserShards;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous sign-up mode: requests are validated on the caller thread, queued in a bounded queue and
+ * persisted by a single background thread in group commits of up to {@code batch-size} users, waiting at most
+ * {@code max-latency-ms} for a batch to fill. Each request's outcome is kept for {@code status-ttl-ms}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.signup.async.enabled", havingValue = "true")
+public class GroupCommitSignUpQueue {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepo;
+
+	@Autowired
+	private UserShards userShards;
+
+	@Value("${app.signup.async.queue-capacity:10000}")
+	private int queueCapacity;
+
+	@Value("${app.signup.async.batch-size:100}")
+	private int batchSize;
+
+	@Value("${app.signup.async.max-latency-ms:10}")
+	private long maxLatencyMs;
+
+	@Value("${app.signup.async.status-ttl-ms:600000}")
+	private long statusTtlMs;
+
+	private BlockingQueue<PendingSignUp> queue;
+	private final Map<String, SignUpStatus> statuses = new ConcurrentHashMap<>();
+	private final Set<String> pendingEmails = ConcurrentHashMap.newKeySet();
+	private Thread persister;
+	private volatile boolean running;
+
+	private record PendingSignUp(String requestId, UserDTO user) {
+	}
+
+	@PostConstruct
+	public void start() {
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		running = true;
+		persister = new Thread(this::persistLoop, "sign-up-group-commit");
+		persister.setDaemon(true);
+		persister.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		persister.join(TimeUnit.SECONDS.toMillis(30));
+	}
+
+	public SignUpStatus submit(UserDTO user) throws UserException {
+
+		if (!pendingEmails.add(user.getEmail())) {
+			throw new UserException("User already exist with email: " + user.getEmail());
+		}
+		if (DataSourceRouting.onPrimary(() -> userRepo.findByEmail(user.getEmail())) != null) {
+			pendingEmails.remove(user.getEmail());
+			throw new UserException("User already exist with email: " + user.getEmail());
+		}
+
+		String requestId = UUID.randomUUID().toString();
+		SignUpStatus status = new SignUpStatus(requestId, SignUpStatus.State.PENDING, null, null, null, LocalDateTime.now());
+		statuses.put(requestId, status);
+		if (!queue.offer(new PendingSignUp(requestId, user))) {
+			statuses.remove(requestId);
+			pendingEmails.remove(user.getEmail());
+			throw new SignUpQueueFullException("Sign-up queue is full, please retry later");
+		}
+		return status;
+	}
+
+	public SignUpStatus getStatus(String requestId) {
+		return statuses.get(requestId);
+	}
+
+	private void persistLoop() {
+		List<PendingSignUp> batch = new ArrayList<>(batchSize);
+		long lastSweep = System.currentTimeMillis();
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingSignUp first = queue.poll(200, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+					while (batch.size() < batchSize) {
+						PendingSignUp next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+						if (next == null) {
+							break;
+						}
+						batch.add(next);
+					}
+					commit(batch);
+					batch.clear();
+				}
+				if (System.currentTimeMillis() - lastSweep > statusTtlMs / 10) {
+					expireStatuses();
+					lastSweep = System.currentTimeMillis();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				log.error("Sign-up group commit of {} sign-up(s) failed", batch.size(), e);
+				failPending(batch, e);
+				batch.clear();
+			}
+		}
+	}
+
+	private void commit(List<PendingSignUp> batch) {
+		// A transaction lives on a single shard, so each shard gets its own group commit
+		Map<Integer, List<PendingSignUp>> byShard = new LinkedHashMap<>();
+		for (PendingSignUp pending : batch) {
+			byShard.computeIfAbsent(userShards.shardFor(pending.user().getEmail()), shard -> new ArrayList<>()).add(pending);
+		}
+		byShard.forEach((shard, group) -> userShards.on(shard, () -> {
+			commitGroup(group);
+			return null;
+		}));
+	}
+
+	private void commitGroup(List<PendingSignUp> group) {
+		List<SignUpStatus> results;
+		try {
+			results = userService.registerUsers(group.stream().map(PendingSignUp::user).toList());
+		} catch (RuntimeException e) {
+			// e.g. a unique constraint hit by a concurrent synchronous sign-up: isolate the failing user
+			log.warn("Group commit of {} sign-up(s) failed, retrying individually", group.size(), e);
+			results = new ArrayList<>();
+			for (PendingSignUp pending : group) {
+				try {
+					results.add(SignUpStatus.created(userService.registerUser(pending.user())));
+				} catch (UserException ue) {
+					results.add(SignUpStatus.failed(ErrorCode.ERROR_INPUT_REQUEST, ue.getMessage()));
+				} catch (RuntimeException re) {
+					results.add(SignUpStatus.failed(ErrorCode.INTERNAL_ERROR, re.getMessage()));
+				}
+			}
+		}
+
+		for (int i = 0; i < group.size(); i++) {
+			PendingSignUp pending = group.get(i);
+			SignUpStatus status = results.get(i);
+			status.setRequestId(pending.requestId());
+			statuses.put(pending.requestId(), status);
+			pendingEmails.remove(pending.user().getEmail());
+		}
+	}
+
+	// Sign-ups of the failed batch that no group resolved would otherwise stay PENDING and keep their email taken
+	private void failPending(List<PendingSignUp> batch, RuntimeException e) {
+		for (PendingSignUp pending : batch) {
+			SignUpStatus status = statuses.get(pending.requestId());
+			if (status == null || status.getState() == SignUpStatus.State.PENDING) {
+				SignUpStatus failed = SignUpStatus.failed(ErrorCode.INTERNAL_ERROR, e.getMessage());
+				failed.setRequestId(pending.requestId());
+				statuses.put(pending.requestId(), failed);
+			}
+			pendingEmails.remove(pending.user().getEmail());
+		}
+	}
+
+	private void expireStatuses() {
+		LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(statusTtlMs));
+		statuses.values().removeIf(status -> status.getState() != SignUpStatus.State.PENDING
+				&& status.getUpdated().isBefore(cutoff));
+	}
+}
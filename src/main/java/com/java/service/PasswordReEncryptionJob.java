@@ -0,0 +1,97 @@
+package com.java.service;
+
+import com.java.model.UserPassword;
+import com.java.repository.UserRepository;
+import com.java.sharding.UserShards;
+import com.java.utils.EncryptionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Migrates stored passwords to the active encryption key version in small, throttled batches. Each password is
+ * replaced with a conditional UPDATE, so concurrent changes to the user are neither overwritten nor failed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "encryption.reencrypt.enabled", havingValue = "true")
+public class PasswordReEncryptionJob {
+
+	@Autowired
+	private UserRepository userRepo;
+
+	@Autowired
+	private EncryptionUtil encryptionUtil;
+
+	@Autowired
+	private UserShards userShards;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${encryption.reencrypt.batch-size:200}")
+	private int batchSize;
+
+	@Value("${encryption.reencrypt.pause-ms:500}")
+	private long pauseMs;
+
+	@Scheduled(initialDelayString = "${encryption.reencrypt.initial-delay-ms:60000}",
+			fixedDelayString = "${encryption.reencrypt.interval-ms:3600000}")
+	public void reEncryptStaleRows() {
+		userShards.forEach(this::reEncryptShard);
+	}
+
+	private void reEncryptShard() {
+
+		String currentPrefix = encryptionUtil.getCurrentPrefix();
+		long stale = userRepo.countByPasswordNotLike(currentPrefix + "%");
+		if (stale == 0) {
+			return;
+		}
+		log.info("Re-encrypting {} password(s) to key version {}", stale, encryptionUtil.getCurrentVersion());
+
+		int migrated = 0;
+		int changed = 0;
+		int failed = 0;
+		UUID after = null;
+		while (true) {
+			// Keyset paging: rows migrated meanwhile drop out of the query without shifting later pages
+			List<UserPassword> batch = userRepo.findStalePasswords(currentPrefix, after, batchSize);
+			int[] counts = transactionTemplate.execute(tx -> {
+				int[] replaced = new int[3];
+				for (UserPassword user : batch) {
+					try {
+						// Only if unchanged, so a password set concurrently is never overwritten
+						replaced[userRepo.replacePassword(user.id(), user.password(),
+								encryptionUtil.reEncrypt(user.password())) == 1 ? 0 : 1]++;
+					} catch (RuntimeException e) {
+						replaced[2]++;
+						log.warn("Could not re-encrypt password of user {}", user.id(), e);
+					}
+				}
+				return replaced;
+			});
+			migrated += counts[0];
+			changed += counts[1];
+			failed += counts[2];
+			if (batch.size() < batchSize) {
+				break;
+			}
+			after = batch.get(batch.size() - 1).id();
+			try {
+				Thread.sleep(pauseMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		log.info("Re-encryption run finished: {} migrated, {} changed concurrently, {} failed", migrated, changed, failed);
+	}
+}
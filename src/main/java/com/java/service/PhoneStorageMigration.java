@@ -0,0 +1,112 @@
+package com.java.service;
+
+import com.java.model.PhoneInfo;
+import com.java.model.PhoneListConverter;
+import com.java.sharding.UserShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off migration from the old {@code phone_info} table (one row per phone, joined on {@code phone_id})
+ * to the {@code user_info.phones} column, one transaction per batch of {@code migrate-batch-size} users. The legacy
+ * table is renamed to {@code phone_info_legacy} afterwards so the migration runs once and the original rows stay
+ * available until dropped by hand; a run interrupted before the rename simply starts over.
+ */
+@Slf4j
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "app.phones.migrate-legacy", havingValue = "true", matchIfMissing = true)
+public class PhoneStorageMigration implements ApplicationRunner {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private UserShards userShards;
+
+	@Value("${app.phones.migrate-batch-size:500}")
+	private int batchSize;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		userShards.forEach(this::migrateShard);
+	}
+
+	private void migrateShard() {
+		if (!legacyTableExists()) {
+			return;
+		}
+
+		PhoneListConverter converter = new PhoneListConverter();
+		int migrated = 0;
+		Object after = null;
+		while (true) {
+			// Keyset paging over user ids, so only one batch of users' phones is held in memory at a time
+			List<Object> userIds = nextUserIds(after);
+			if (userIds.isEmpty()) {
+				break;
+			}
+			Map<Object, List<PhoneInfo>> phonesByUser = new LinkedHashMap<>();
+			jdbcTemplate.query("select phone_id, number, city_code, country_code from phone_info"
+					+ " where phone_id >= ? and phone_id <= ? order by phone_id, id", rs -> {
+				phonesByUser.computeIfAbsent(rs.getObject("phone_id"), id -> new ArrayList<>())
+						.add(new PhoneInfo(rs.getString("number"), rs.getString("city_code"), rs.getString("country_code")));
+			}, userIds.get(0), userIds.get(userIds.size() - 1));
+
+			List<Object[]> updates = new ArrayList<>(phonesByUser.size());
+			phonesByUser.forEach((userId, phones) -> updates.add(new Object[] {converter.convertToDatabaseColumn(phones), userId}));
+			// Only rows still without phones are written, so a batch redone after a crash changes nothing
+			transactionTemplate.executeWithoutResult(status ->
+					jdbcTemplate.batchUpdate("update user_info set phones = ? where id = ? and phones is null", updates));
+			migrated += updates.size();
+			if (userIds.size() < batchSize) {
+				break;
+			}
+			after = userIds.get(userIds.size() - 1);
+		}
+
+		jdbcTemplate.execute("alter table phone_info rename to phone_info_legacy");
+		log.info("Migrated phones of {} user(s) from phone_info into user_info.phones", migrated);
+	}
+
+	private List<Object> nextUserIds(Object after) {
+		if (after == null) {
+			return jdbcTemplate.queryForList("select distinct phone_id from phone_info"
+					+ " where phone_id is not null order by phone_id limit ?", Object.class, batchSize);
+		}
+		return jdbcTemplate.queryForList("select distinct phone_id from phone_info"
+				+ " where phone_id > ? order by phone_id limit ?", Object.class, after, batchSize);
+	}
+
+	private boolean legacyTableExists() {
+		Boolean exists = jdbcTemplate.execute((Connection connection) -> {
+			for (String name : new String[] {"phone_info", "PHONE_INFO"}) {
+				try (ResultSet tables = connection.getMetaData().getTables(null, null, name, new String[] {"TABLE"})) {
+					if (tables.next()) {
+						return true;
+					}
+				}
+			}
+			return false;
+		});
+		return Boolean.TRUE.equals(exists);
+	}
+}
@@ -0,0 +1,74 @@
+package com.java.service;
+
+import com.java.exceptions.InvalidCredentialsException;
+import com.java.jwt.SecurityConstants;
+import com.java.jwt.TokenRevocationList;
+import com.java.model.TokenResponse;
+import com.java.model.UserInfo;
+import com.java.repository.UserRepository;
+import com.java.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exchanges a refresh token for a new access token using only the token's signature and expiry and the in-memory
+ * revocation list, so sessions never touch the database. The role travels in the refresh token. Deactivating or
+ * deleting users revokes their tokens on the instance doing it; {@code app.jwt.refresh.check-user=true} adds a user
+ * lookup per exchange so such users are refused on every instance. Refresh tokens are single use and rotated on every
+ * exchange; presenting a rotated-out token again means it was copied, so every token of that user is revoked.
+ */
+@Service
+public class TokenRefreshService {
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private TokenRevocationList revocationList;
+
+	@Autowired
+	private UserRepository userRepo;
+
+	@Value("${app.jwt.refresh.check-user:false}")
+	private boolean checkUser;
+
+	public TokenResponse refresh(String refreshToken) {
+
+		Claims claims;
+		try {
+			claims = jwtUtil.parseRefreshToken(refreshToken);
+		} catch (JwtException | IllegalArgumentException e) {
+			throw new InvalidCredentialsException("Invalid refresh token", e);
+		}
+
+		if (revocationList.isRevoked(claims)) {
+			if (revocationList.isRevokedId(claims.getId())) {
+				revocationList.revokeAll(claims.getSubject());
+			}
+			throw new InvalidCredentialsException("Refresh token has been revoked");
+		}
+		if (!revocationList.revoke(claims.getId(), claims.getExpiration())) {
+			// Lost a race with a concurrent exchange of the same token
+			revocationList.revokeAll(claims.getSubject());
+			throw new InvalidCredentialsException("Refresh token has been revoked");
+		}
+
+		String email = claims.getSubject();
+		// Anything but a known elevated role, including tokens minted before the claim existed, is a user
+		String role = SecurityConstants.ROLE_ADMIN.equals(claims.get(SecurityConstants.ROLE_CLAIM))
+				? SecurityConstants.ROLE_ADMIN : SecurityConstants.ROLE_USER;
+		if (checkUser) {
+			UserInfo user = userRepo.findByEmail(email);
+			if (user == null || Boolean.FALSE.equals(user.getIsActive())) {
+				revocationList.revokeAll(email);
+				throw new InvalidCredentialsException("User no longer exists or has been deactivated");
+			}
+			role = UserServiceImpl.roleOf(user);
+		}
+		return new TokenResponse(jwtUtil.generateToken(email, role), jwtUtil.generateRefreshToken(email, role),
+				jwtUtil.getAccessTokenTtlSeconds());
+	}
+}
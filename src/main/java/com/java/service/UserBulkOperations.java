@@ -0,0 +1,242 @@
+package com.java.service;
+
+import com.java.exceptions.UserException;
+import com.java.jwt.TokenIssuer;
+import com.java.jwt.TokenRevocationList;
+import com.java.model.BulkOperationStatus;
+import com.java.model.UserBulkRequest;
+import com.java.model.UserKey;
+import com.java.repository.UserRepository;
+import com.java.sharding.UserShards;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deactivates or purges the users selected by a {@link UserBulkRequest}, one operation at a time on a background
+ * thread. Each shard is worked through in chunks of {@code app.users.bulk.chunk-size} users: a chunk's ids are read
+ * and then updated or deleted with one set-based statement, in a transaction of its own, so no transaction spans
+ * more than one chunk and a failure leaves the chunks before it done. Every token of an affected user is revoked,
+ * and purged users leave the search index. Progress is kept for {@code app.users.bulk.status-ttl-ms}.
+ */
+@Slf4j
+@Service
+public class UserBulkOperations {
+
+	@Autowired
+	private UserRepository userRepo;
+
+	@Autowired
+	private UserShards userShards;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private TokenIssuer tokenIssuer;
+
+	@Autowired
+	private TokenRevocationList revocationList;
+
+	@Value("${app.users.bulk.chunk-size:500}")
+	private int chunkSize;
+
+	@Value("${app.users.bulk.pause-ms:10}")
+	private long pauseMs;
+
+	@Value("${app.users.bulk.queue-capacity:10}")
+	private int queueCapacity;
+
+	@Value("${app.users.bulk.status-ttl-ms:86400000}")
+	private long statusTtlMs;
+
+	private ThreadPoolExecutor executor;
+	private final Map<String, BulkOperationStatus> statuses = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void start() {
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), work -> {
+			Thread thread = new Thread(work, "user-bulk-operations");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		executor.shutdownNow();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+	public BulkOperationStatus deactivate(UserBulkRequest request) throws UserException {
+		return submit(BulkOperationStatus.Type.DEACTIVATE, request);
+	}
+
+	public BulkOperationStatus purge(UserBulkRequest request) throws UserException {
+		return submit(BulkOperationStatus.Type.PURGE, request);
+	}
+
+	public BulkOperationStatus getStatus(String id) {
+		return statuses.get(id);
+	}
+
+	// Most recent first
+	public List<BulkOperationStatus> getStatuses() {
+		return statuses.values().stream()
+				.sorted(Comparator.comparing(BulkOperationStatus::getStarted).reversed())
+				.toList();
+	}
+
+	private BulkOperationStatus submit(BulkOperationStatus.Type type, UserBulkRequest request) throws UserException {
+		boolean byEmail = request.getEmails() != null && !request.getEmails().isEmpty();
+		if (!byEmail && request.getCreatedFrom() == null && request.getCreatedTo() == null
+				&& request.getInactiveSince() == null) {
+			throw new UserException("Select users by emails, creation time or inactivity");
+		}
+		if (request.getCreatedFrom() != null && request.getCreatedTo() != null
+				&& !request.getCreatedFrom().isBefore(request.getCreatedTo())) {
+			throw new UserException("createdFrom must be before createdTo");
+		}
+		expireStatuses();
+
+		LocalDateTime now = LocalDateTime.now();
+		BulkOperationStatus status = new BulkOperationStatus(UUID.randomUUID().toString(), type,
+				BulkOperationStatus.State.PENDING, null, 0, null, now, now);
+		statuses.put(status.getId(), status);
+		try {
+			executor.execute(() -> run(status, request));
+		} catch (RejectedExecutionException e) {
+			statuses.remove(status.getId());
+			throw new UserException("Too many bulk operations pending, please retry later");
+		}
+		return status;
+	}
+
+	void run(BulkOperationStatus status, UserBulkRequest request) {
+		boolean purge = status.getType() == BulkOperationStatus.Type.PURGE;
+		Progress progress = new Progress(status);
+		try {
+			long[] matched = {0};
+			userShards.forEach(() -> matched[0] += userRepo.countMatching(request, !purge));
+			progress.matched = matched[0];
+			progress.report(BulkOperationStatus.State.RUNNING, null);
+
+			for (Map.Entry<Integer, List<UserBulkRequest>> shard : selectionsByShard(request).entrySet()) {
+				for (UserBulkRequest selection : shard.getValue()) {
+					processShard(shard.getKey(), selection, purge, progress);
+				}
+			}
+			progress.report(BulkOperationStatus.State.DONE, null);
+			log.info("Bulk {} {} finished: {} of {} matching user(s)", status.getType(), status.getId(),
+					progress.processed, progress.matched);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			progress.report(BulkOperationStatus.State.FAILED, "Interrupted");
+		} catch (RuntimeException e) {
+			log.error("Bulk {} {} failed after {} user(s)", status.getType(), status.getId(), progress.processed, e);
+			progress.report(BulkOperationStatus.State.FAILED, e.getMessage());
+		}
+	}
+
+	// Email lists are split by shard and into chunks, other selections run on every shard as they are
+	private Map<Integer, List<UserBulkRequest>> selectionsByShard(UserBulkRequest request) {
+		Map<Integer, List<UserBulkRequest>> selections = new LinkedHashMap<>();
+		if (request.getEmails() == null || request.getEmails().isEmpty()) {
+			userShards.ids().forEach(shard -> selections.put(shard, List.of(request)));
+			return selections;
+		}
+		Map<Integer, List<String>> emailsByShard = new LinkedHashMap<>();
+		for (String email : new LinkedHashSet<>(request.getEmails())) {
+			emailsByShard.computeIfAbsent(userShards.shardFor(email), shard -> new ArrayList<>()).add(email);
+		}
+		emailsByShard.forEach((shard, emails) -> {
+			List<UserBulkRequest> chunks = new ArrayList<>();
+			for (int from = 0; from < emails.size(); from += chunkSize) {
+				chunks.add(new UserBulkRequest(emails.subList(from, Math.min(from + chunkSize, emails.size())),
+						request.getCreatedFrom(), request.getCreatedTo(), request.getInactiveSince()));
+			}
+			selections.put(shard, chunks);
+		});
+		return selections;
+	}
+
+	private void processShard(int shard, UserBulkRequest selection, boolean purge, Progress progress)
+			throws InterruptedException {
+		UUID after = null;
+		while (true) {
+			UUID from = after;
+			int[] changed = {0};
+			List<UserKey> chunk = userShards.on(shard, () -> transactionTemplate.execute(tx -> {
+				List<UserKey> keys = userRepo.findKeys(selection, !purge, from, chunkSize);
+				List<UUID> ids = keys.stream().map(UserKey::id).toList();
+				changed[0] = purge ? userRepo.purgeByIdIn(ids) : userRepo.deactivateByIdIn(ids);
+				if (purge) {
+					// Applied by the search index once the chunk commits
+					ids.forEach(id -> eventPublisher.publishEvent(UserChangedEvent.removed(id.toString())));
+				}
+				return keys;
+			}));
+			if (chunk.isEmpty()) {
+				return;
+			}
+
+			for (UserKey key : chunk) {
+				revocationList.revokeAll(key.email());
+				tokenIssuer.forget(key.email());
+			}
+			progress.processed += changed[0];
+			progress.report(BulkOperationStatus.State.RUNNING, null);
+			if (chunk.size() < chunkSize) {
+				return;
+			}
+			after = chunk.get(chunk.size() - 1).id();
+			if (pauseMs > 0) {
+				Thread.sleep(pauseMs);
+			}
+		}
+	}
+
+	private void expireStatuses() {
+		LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(statusTtlMs));
+		statuses.values().removeIf(status -> (status.getState() == BulkOperationStatus.State.DONE
+				|| status.getState() == BulkOperationStatus.State.FAILED) && status.getUpdated().isBefore(cutoff));
+	}
+
+	// Counters of the running operation, published as a fresh status after every chunk
+	private class Progress {
+
+		private final BulkOperationStatus initial;
+		private Long matched;
+		private long processed;
+
+		Progress(BulkOperationStatus initial) {
+			this.initial = initial;
+		}
+
+		void report(BulkOperationStatus.State state, String detail) {
+			statuses.put(initial.getId(), initial.progress(state, matched, processed, detail));
+		}
+	}
+}
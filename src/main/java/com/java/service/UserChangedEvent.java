@@ -0,0 +1,25 @@
+package com.java.service;
+
+import com.java.model.UserInfo;
+
+/**
+ * Published when a user's searchable fields change or the user goes away. A renamed user may be identified by email
+ * only. Listeners bound to the transaction see it after commit only.
+ */
+public record UserChangedEvent(String id, String name, String email, boolean removed) {
+
+    public static UserChangedEvent saved(UserInfo user) {
+        return new UserChangedEvent(String.valueOf(user.getId()), user.getName(), user.getEmail(), false);
+    }
+
+    /**
+     * A new name for the user with {@code email}, whose id the publisher may not know.
+     */
+    public static UserChangedEvent renamed(String email, String name) {
+        return new UserChangedEvent(null, name, email, false);
+    }
+
+    public static UserChangedEvent removed(String id) {
+        return new UserChangedEvent(id, null, null, true);
+    }
+}
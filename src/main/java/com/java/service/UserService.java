@@ -1,11 +1,26 @@
 package com.java.service;
 
+import java.util.List;
+
 import com.java.exceptions.UserException;
+import com.java.model.SignUpStatus;
 import com.java.model.UserDTO;
 import com.java.model.UserInfo;
+import com.java.model.UserLookupResponse;
+import com.java.model.UserPatchRequest;
+import com.java.model.UserPatchResponse;
 
 public interface UserService {
 
 	public UserDTO registerUser(UserDTO user) throws UserException;
 	public UserInfo loginUser()  throws UserException;
+
+	// Registers all users in one transaction, returning a status per user in input order
+	public List<SignUpStatus> registerUsers(List<UserDTO> users);
+
+	// Resolves user ids and emails with batched queries, one result per key in input order
+	public UserLookupResponse lookupUsers(List<String> keys);
+
+	// Applies the non-null fields and phone changes to the signed-in user if its version is unchanged
+	public UserPatchResponse updateCurrentUser(UserPatchRequest patch) throws UserException;
 }
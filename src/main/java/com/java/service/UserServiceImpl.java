@@ -1,14 +1,36 @@
 package com.java.service;
 
+import com.java.audit.AuditLog;
+import com.java.audit.AuditRecord;
+import com.java.datasource.DataSourceRouting;
+import com.java.datasource.ReadYourWritesTracker;
+import com.java.jwt.IssuedTokens;
+import com.java.jwt.SecurityConstants;
+import com.java.jwt.TokenIssuer;
+import com.java.jwt.TokenRevocationList;
 import com.java.model.PhoneDTO;
+import com.java.exceptions.ErrorCode;
+import com.java.exceptions.InvalidCredentialsException;
+import com.java.exceptions.UserConflictException;
 import com.java.model.PhoneInfo;
+import com.java.model.SignUpStatus;
+import com.java.model.UserLookupResponse;
+import com.java.model.UserPatchRequest;
+import com.java.model.UserPatchResponse;
+import com.java.model.UserPhones;
+import com.java.model.UserProfile;
+import com.java.outbox.UserEventOutbox;
 import com.java.utils.EncryptionUtil;
-import com.java.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.java.exceptions.UserException;
 import com.java.model.UserDTO;
@@ -17,7 +39,16 @@ import com.java.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -26,27 +57,283 @@ public class UserServiceImpl implements UserService {
 	private UserRepository userRepo;
 
 	@Autowired
-	private JwtUtil jwtUtil;
+	private TokenIssuer tokenIssuer;
+
+	@Autowired
+	private TokenRevocationList revocationList;
 
 	@Autowired
 	private EncryptionUtil encryptionUtil;
 
+	@Autowired
+	private ReadYourWritesTracker readYourWrites;
+
+	@Autowired
+	private UserEventOutbox userEventOutbox;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private AuditLog auditLog;
+
+	@Value("${app.users.lookup.chunk-size:100}")
+	private int lookupChunkSize = 100;
+
+	// Users signing up with these emails become admins
+	@Value("${app.security.admin-emails:}")
+	private Set<String> adminEmails = Set.of();
+
 	@Override
+	@Transactional(rollbackFor = UserException.class)
 	public UserDTO registerUser(UserDTO user) throws UserException {
  
-		UserInfo findUser = userRepo.findByEmail(user.getEmail());
+		// Duplicate check must see the latest writes, never a lagging replica
+		UserInfo findUser = DataSourceRouting.onPrimary(() -> userRepo.findByEmail(user.getEmail()));
 		
 		if(findUser!=null) {
+			auditLog.record(AuditRecord.Type.SIGN_UP, null, AuditRecord.Result.FAILURE);
 			throw new UserException("User already exist with email: "+user.getEmail());
 		}
 
+		UserInfo savedUser = userRepo.save(newUserInfo(user));
+		userEventOutbox.userRegistered(savedUser);
+		readYourWrites.recordWrite(savedUser.getEmail());
+		eventPublisher.publishEvent(UserChangedEvent.saved(savedUser));
+		auditLog.recordOnCompletion(AuditRecord.Type.SIGN_UP, savedUser.getId());
+
+		return getUserResponse(savedUser);
+	}
+
+	@Override
+	@Transactional
+	public List<SignUpStatus> registerUsers(List<UserDTO> users) {
+
+		Set<String> takenEmails = new HashSet<>();
+		for (UserInfo existing : userRepo.findByEmailIn(users.stream().map(UserDTO::getEmail).toList())) {
+			takenEmails.add(existing.getEmail());
+		}
+
+		// Duplicates inside the batch resolve like sequential sign-ups: the first one wins
+		List<UserInfo> newUsers = new ArrayList<>();
+		for (UserDTO user : users) {
+			newUsers.add(takenEmails.add(user.getEmail()) ? newUserInfo(user) : null);
+		}
+		userRepo.saveAll(newUsers.stream().filter(Objects::nonNull).toList());
+
+		List<SignUpStatus> statuses = new ArrayList<>(users.size());
+		for (int i = 0; i < users.size(); i++) {
+			UserInfo savedUser = newUsers.get(i);
+			if (savedUser == null) {
+				auditLog.record(AuditRecord.Type.SIGN_UP, null, AuditRecord.Result.FAILURE);
+				statuses.add(SignUpStatus.failed(ErrorCode.ERROR_INPUT_REQUEST,
+						"User already exist with email: " + users.get(i).getEmail()));
+				continue;
+			}
+			userEventOutbox.userRegistered(savedUser);
+			readYourWrites.recordWrite(savedUser.getEmail());
+			eventPublisher.publishEvent(UserChangedEvent.saved(savedUser));
+			auditLog.recordOnCompletion(AuditRecord.Type.SIGN_UP, savedUser.getId());
+			statuses.add(SignUpStatus.created(getUserResponse(savedUser)));
+		}
+		return statuses;
+	}
+
+	@Override
+	public UserLookupResponse lookupUsers(List<String> keys) {
+
+		// Keys holding an '@' are emails, anything else has to be a user id
+		Set<String> emails = new LinkedHashSet<>();
+		Set<UUID> ids = new LinkedHashSet<>();
+		for (String key : keys) {
+			if (key == null) {
+				continue;
+			}
+			if (key.indexOf('@') >= 0) {
+				emails.add(key);
+			} else {
+				UUID id = parseUserId(key);
+				if (id != null) {
+					ids.add(id);
+				}
+			}
+		}
+
+		// Phones live in the user row, so these IN queries are all it takes
+		Map<String, UserInfo> byEmail = new HashMap<>();
+		for (List<String> chunk : chunks(emails, lookupChunkSize)) {
+			userRepo.findByEmailIn(chunk).forEach(user -> byEmail.put(user.getEmail(), user));
+		}
+		Map<UUID, UserInfo> byId = new HashMap<>();
+		for (List<UUID> chunk : chunks(ids, lookupChunkSize)) {
+			userRepo.findByIdIn(chunk).forEach(user -> byId.put(user.getId(), user));
+		}
+
+		List<UserLookupResponse.Result> results = new ArrayList<>(keys.size());
+		List<String> misses = new ArrayList<>();
+		for (String key : keys) {
+			UserInfo user = key == null ? null
+					: key.indexOf('@') >= 0 ? byEmail.get(key) : byId.get(parseUserId(key));
+			if (user == null) {
+				misses.add(key);
+			}
+			results.add(new UserLookupResponse.Result(key, user != null ? getUserProfile(user) : null));
+		}
+		return new UserLookupResponse(results, misses);
+	}
+
+	@Override
+	@Transactional(rollbackFor = UserException.class)
+	public UserPatchResponse updateCurrentUser(UserPatchRequest patch) throws UserException {
+
+		String email = SecurityContextHolder.getContext().getAuthentication().getName();
+		boolean phonesChanged = hasItems(patch.getAddPhones()) || hasItems(patch.getRemovePhones());
+		if (patch.getName() == null && patch.getPassword() == null && !phonesChanged) {
+			throw new UserException("Nothing to update");
+		}
+
+		Map<String, Object> fields = new LinkedHashMap<>();
+		if (patch.getName() != null) {
+			fields.put("name", patch.getName());
+		}
+		if (patch.getPassword() != null) {
+			fields.put("password", encryptionUtil.encrypt(patch.getPassword()));
+		}
+		if (phonesChanged) {
+			// Phones share one column, so the delta needs the current list but never the rest of the row
+			UserPhones current = DataSourceRouting.onPrimary(() -> userRepo.findPhonesByEmail(email));
+			if (current == null) {
+				throw new UserException("No user found with email: " + email);
+			}
+			if (!current.getVersion().equals(patch.getVersion())) {
+				throw new UserConflictException("User was changed concurrently, current version is " + current.getVersion());
+			}
+			List<PhoneInfo> phones = applyPhoneDelta(current.getPhones(), patch.getAddPhones(), patch.getRemovePhones());
+			if (phones.size() > UserDTO.MAX_PHONES) {
+				throw new UserException("Enter at most " + UserDTO.MAX_PHONES + " phones.");
+			}
+			if (!phones.equals(current.getPhones() == null ? List.of() : current.getPhones())) {
+				fields.put("phones", phones);
+			}
+		}
+		if (fields.isEmpty()) {
+			return new UserPatchResponse(patch.getVersion());
+		}
+
+		if (userRepo.updateFieldsByEmail(email, patch.getVersion(), fields) == 0) {
+			if (!DataSourceRouting.onPrimary(() -> userRepo.existsByEmail(email))) {
+				throw new UserException("No user found with email: " + email);
+			}
+			throw new UserConflictException("User was changed concurrently, reload it and retry");
+		}
+		readYourWrites.recordWrite(email);
+		if (patch.getName() != null) {
+			eventPublisher.publishEvent(UserChangedEvent.renamed(email, patch.getName()));
+		}
+		UserPatchResponse response = new UserPatchResponse(patch.getVersion() + 1);
+		if (patch.getPassword() != null) {
+			// Sessions opened with the old password end once the new one is committed, this one continues with new tokens
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			String role = authentication.getAuthorities().stream()
+					.anyMatch(authority -> SecurityConstants.ROLE_ADMIN.equals(authority.getAuthority()))
+					? SecurityConstants.ROLE_ADMIN : SecurityConstants.ROLE_USER;
+			afterCommit(() -> {
+				revocationList.revokeAll(email);
+				tokenIssuer.forget(email);
+				IssuedTokens tokens = tokenIssuer.issue(email, role);
+				response.setToken(tokens.accessToken());
+				response.setRefreshToken(tokens.refreshToken());
+			});
+		}
+		return response;
+	}
+
+	private static void afterCommit(Runnable work) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			work.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				work.run();
+			}
+		});
+	}
+
+	private static boolean hasItems(List<?> list) {
+		return list != null && !list.isEmpty();
+	}
+
+	// Removals match on all phone fields, additions already present are ignored
+	private static List<PhoneInfo> applyPhoneDelta(List<PhoneInfo> current, List<PhoneDTO> add, List<PhoneDTO> remove) {
+		List<PhoneInfo> phones = current == null ? new ArrayList<>() : new ArrayList<>(current);
+		if (remove != null) {
+			for (PhoneDTO phone : remove) {
+				phones.remove(toPhoneInfo(phone));
+			}
+		}
+		if (add != null) {
+			for (PhoneDTO phone : add) {
+				PhoneInfo phoneInfo = toPhoneInfo(phone);
+				if (!phones.contains(phoneInfo)) {
+					phones.add(phoneInfo);
+				}
+			}
+		}
+		return phones;
+	}
+
+	private static PhoneInfo toPhoneInfo(PhoneDTO phoneDTO) {
+		return new PhoneInfo(phoneDTO.getNumber(), phoneDTO.getCityCode(), phoneDTO.getCountryCode());
+	}
+
+	private static UUID parseUserId(String key) {
+		try {
+			return UUID.fromString(key);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static <T> List<List<T>> chunks(Collection<T> items, int size) {
+		List<List<T>> chunks = new ArrayList<>();
+		List<T> all = new ArrayList<>(items);
+		for (int from = 0; from < all.size(); from += size) {
+			chunks.add(all.subList(from, Math.min(from + size, all.size())));
+		}
+		return chunks;
+	}
+
+	private static UserProfile getUserProfile(UserInfo userInfo) {
+		List<PhoneDTO> phones = new ArrayList<>();
+		if (userInfo.getPhones() != null) {
+			for (PhoneInfo phoneInfo : userInfo.getPhones()) {
+				PhoneDTO phoneDTO = new PhoneDTO();
+				phoneDTO.setNumber(phoneInfo.getNumber());
+				phoneDTO.setCityCode(phoneInfo.getCityCode());
+				phoneDTO.setCountryCode(phoneInfo.getCountryCode());
+				phones.add(phoneDTO);
+			}
+		}
+		return new UserProfile(String.valueOf(userInfo.getId()), userInfo.getName(), userInfo.getEmail(), phones,
+				userInfo.getCreated(), userInfo.getLastLogin(), userInfo.getIsActive());
+	}
+
+	private UserInfo newUserInfo(UserDTO user) {
 		UserInfo newUser = getUserInfo(user);
 		newUser.setPassword(encryptionUtil.encrypt(newUser.getPassword()));
 
-		newUser.setToken(jwtUtil.generateToken(user.getEmail()));
+		newUser.setRole(adminEmails.contains(user.getEmail()) ? SecurityConstants.ROLE_ADMIN : SecurityConstants.ROLE_USER);
+		IssuedTokens tokens = tokenIssuer.issue(user.getEmail(), newUser.getRole());
+		newUser.setToken(tokens.accessToken());
+		newUser.setRefreshToken(tokens.refreshToken());
 		newUser.setIsActive(true);
+		return newUser;
+	}
 
-		return getUserResponse(userRepo.save(newUser));
+	static String roleOf(UserInfo user) {
+		return SecurityConstants.ROLE_ADMIN.equals(user.getRole()) ? SecurityConstants.ROLE_ADMIN : SecurityConstants.ROLE_USER;
 	}
 
 	private static UserDTO getUserResponse(UserInfo userInfo) {
@@ -55,6 +342,7 @@ public class UserServiceImpl implements UserService {
 		userResponse.setCreated(userInfo.getCreated());
 		userResponse.setLastLogin(userInfo.getLastLogin());
 		userResponse.setToken(userInfo.getToken());
+		userResponse.setRefreshToken(userInfo.getRefreshToken());
 		userResponse.setIsActive(userInfo.getIsActive());
 		return userResponse;
 	}
@@ -81,21 +369,36 @@ public class UserServiceImpl implements UserService {
 	}
 
 	@Override
-	public UserInfo loginUser() {
+	public UserInfo loginUser() throws UserException {
 			
 		SecurityContext sc  = SecurityContextHolder.getContext();
 		Authentication auth  = sc.getAuthentication();
 		String userName = auth.getName();
-		UserInfo user = userRepo.findByEmail(userName);
+		UserInfo user = readYourWrites.isSticky(userName)
+				? DataSourceRouting.onPrimary(() -> userRepo.findByEmail(userName))
+				: userRepo.findByEmail(userName);
+		if (user == null) {
+			auditLog.record(AuditRecord.Type.LOGIN, null, AuditRecord.Result.FAILURE);
+			throw new UserException("No user found with email: " + userName);
+		}
+		if (Boolean.FALSE.equals(user.getIsActive())) {
+			// Deactivated on another instance, whose revocation list this one does not see
+			auditLog.record(AuditRecord.Type.LOGIN, user.getId(), AuditRecord.Result.FAILURE);
+			throw new InvalidCredentialsException("User has been deactivated");
+		}
 
 		// Update Token and Last Login Date
-		user.setToken(jwtUtil.generateToken(user.getEmail()));
+		IssuedTokens tokens = tokenIssuer.issue(user.getEmail(), roleOf(user));
+		user.setToken(tokens.accessToken());
+		user.setRefreshToken(tokens.refreshToken());
 		user.setLastLogin(LocalDateTime.now());
 
-		UserInfo userResponse = userRepo.save(user);
-		userResponse.setPassword(encryptionUtil.decrypt(userResponse.getPassword()));
+		// The only column a login changes, one UPDATE without a version check so a concurrent PATCH does not collide
+		userRepo.updateLastLoginByEmail(user.getEmail(), user.getLastLogin());
+		auditLog.record(AuditRecord.Type.LOGIN, user.getId(), AuditRecord.Result.SUCCESS);
+		user.setPassword(encryptionUtil.decrypt(user.getPassword()));
 
-		return userResponse;
+		return user;
 	}
 	
 }
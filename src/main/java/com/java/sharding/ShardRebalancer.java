@@ -0,0 +1,112 @@
+package com.java.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Moves users (phones are stored in the user row) whose owning shard changed, e.g. after shards were added to the configuration.
+ * Each user is copied to its new shard before it is deleted from the old one, so a crash mid-run at worst
+ * leaves a copy behind that the next run cleans up. Run the application with {@code --rebalance-shards}.
+ */
+@Slf4j
+public class ShardRebalancer implements ApplicationRunner {
+
+    static final String REBALANCE_OPTION = "rebalance-shards";
+
+    private final List<DataSource> shardDataSources;
+    private final UserShards shards;
+    private final int batchSize;
+
+    public ShardRebalancer(List<DataSource> shardDataSources, UserShards shards, int batchSize) {
+        this.shardDataSources = shardDataSources;
+        this.shards = shards;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(REBALANCE_OPTION)) {
+            rebalance();
+        }
+    }
+
+    public long rebalance() {
+        long moved = 0;
+        for (int source = 0; source < shardDataSources.size(); source++) {
+            JdbcTemplate jdbc = new JdbcTemplate(shardDataSources.get(source));
+            long shardMoved = 0;
+            // Keyset pages, so only one batch of keys is held at a time however large the shard is
+            Object after = null;
+            while (true) {
+                List<Map<String, Object>> page = after == null
+                        ? jdbc.queryForList("select id, email from user_info order by id limit ?", batchSize)
+                        : jdbc.queryForList("select id, email from user_info where id > ? order by id limit ?",
+                                after, batchSize);
+                for (Map<String, Object> row : page) {
+                    int target = shards.shardFor((String) row.get("EMAIL"));
+                    if (target != source) {
+                        moveUser(source, target, row.get("ID"));
+                        shardMoved++;
+                    }
+                }
+                if (page.size() < batchSize) {
+                    break;
+                }
+                after = page.get(page.size() - 1).get("ID");
+                log.info("Rebalancing shard {}: moved {} users so far", source, shardMoved);
+            }
+            moved += shardMoved;
+        }
+        log.info("Shard rebalance finished, {} users moved", moved);
+        return moved;
+    }
+
+    private void moveUser(int source, int target, Object userId) {
+        JdbcTemplate from = new JdbcTemplate(shardDataSources.get(source));
+        JdbcTemplate to = new JdbcTemplate(shardDataSources.get(target));
+
+        SqlRowSet user = from.queryForRowSet("select * from user_info where id = ?", userId);
+
+        inTransaction(target, () -> {
+            Integer existing = to.queryForObject("select count(*) from user_info where id = ?", Integer.class, userId);
+            if (existing == 0) {
+                copyRows(user, "user_info", to);
+            }
+        });
+        inTransaction(source, () -> from.update("delete from user_info where id = ?", userId));
+    }
+
+    private static void copyRows(SqlRowSet rows, String table, JdbcTemplate to) {
+        SqlRowSetMetaData meta = rows.getMetaData();
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner params = new StringJoiner(", ");
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columns.add(meta.getColumnName(i));
+            params.add("?");
+        }
+        String sql = "insert into " + table + " (" + columns + ") values (" + params + ")";
+        while (rows.next()) {
+            Object[] values = new Object[meta.getColumnCount()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = rows.getObject(i + 1);
+            }
+            to.update(sql, values);
+        }
+    }
+
+    private void inTransaction(int shard, Runnable work) {
+        new TransactionTemplate(new DataSourceTransactionManager(shardDataSources.get(shard)))
+                .executeWithoutResult(status -> work.run());
+    }
+}
@@ -0,0 +1,37 @@
+package com.java.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Hibernate only generates the schema on the default shard; this creates the mapped tables on the others.
+ */
+@Slf4j
+public class ShardSchemaInitializer {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserShards shards;
+
+    public ShardSchemaInitializer(EntityManagerFactory entityManagerFactory, UserShards shards) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.shards = shards;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void createSchemaOnAllShards() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        for (int shard : shards.ids()) {
+            if (shard == 0) {
+                continue;
+            }
+            shards.on(shard, () -> {
+                sessionFactory.getSchemaManager().exportMappedObjects(true);
+                return null;
+            });
+            log.info("Schema initialized on shard {}", shard);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.java.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code app.sharding.enabled=true} users are hash-sharded by email over the data sources listed under
+ * {@code app.sharding.shards[n].*}. Cannot be combined with replica routing.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+	@Bean
+	public UserShards userShards(ShardingProperties properties) {
+		if (!properties.isEnabled()) {
+			return UserShards.single();
+		}
+		return new UserShards(new ConsistentHashRing(properties.getShards().size(), properties.getVirtualNodes()));
+	}
+
+	@Configuration
+	@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+	static class Enabled {
+
+		@Bean
+		public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties, DataSourceProperties defaults,
+				Environment environment) {
+			// Both would declare the primary data source, and reads routed to a replica would ignore the shard
+			if (environment.getProperty("app.datasource.routing.enabled", Boolean.class, false)) {
+				throw new IllegalStateException(
+						"app.sharding.enabled cannot be combined with app.datasource.routing.enabled");
+			}
+			if (properties.getShards().isEmpty()) {
+				throw new IllegalStateException("app.sharding.enabled is set but no app.sharding.shards are configured");
+			}
+			List<DataSource> shards = new ArrayList<>();
+			for (ShardingProperties.Shard shard : properties.getShards()) {
+				shards.add(DataSourceBuilder.create()
+						.url(shard.getUrl())
+						.username(shard.getUsername())
+						.password(shard.getPassword())
+						.driverClassName(shard.getDriverClassName() != null
+								? shard.getDriverClassName() : defaults.getDriverClassName())
+						.build());
+			}
+			return new ShardRoutingDataSource(shards);
+		}
+
+		@Bean
+		@Primary
+		public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+			return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+		}
+
+		@Bean
+		public UserRepositoryShardingAspect userRepositoryShardingAspect(UserShards shards) {
+			return new UserRepositoryShardingAspect(shards);
+		}
+
+		@Bean
+		@ConditionalOnProperty(name = "app.sharding.initialize-schema", havingValue = "true", matchIfMissing = true)
+		public ShardSchemaInitializer shardSchemaInitializer(EntityManagerFactory entityManagerFactory, UserShards shards) {
+			return new ShardSchemaInitializer(entityManagerFactory, shards);
+		}
+
+		@Bean
+		public ShardRebalancer shardRebalancer(ShardRoutingDataSource shardRoutingDataSource, UserShards shards,
+				ShardingProperties properties) {
+			return new ShardRebalancer(shardRoutingDataSource.getShards(), shards, properties.getRebalanceBatchSize());
+		}
+	}
+}
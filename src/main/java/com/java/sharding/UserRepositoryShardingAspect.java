@@ -0,0 +1,180 @@
+package com.java.sharding;
+
+import com.java.model.UserInfo;
+import com.java.repository.UserRepository;
+import com.java.repository.UserRepositoryCustom;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sharding layer under {@link com.java.repository.UserRepository}. Calls keyed by a user or an email go to
+ * the owning shard, calls carrying several users or emails are split per shard, and everything else is
+ * scatter-gathered across all shards. Calls made while a shard is already bound run on that shard only.
+ *
+ * <p>Methods declared by this project's repository interfaces are checked on construction, so one whose result
+ * cannot be merged across shards fails startup. Inherited Spring Data methods with such results (e.g. {@code Page})
+ * are rejected before any shard is queried.</p>
+ */
+@Aspect
+public class UserRepositoryShardingAspect {
+
+    private final UserShards shards;
+
+    public UserRepositoryShardingAspect(UserShards shards) {
+        this.shards = shards;
+        List<String> unsupported = new ArrayList<>();
+        for (Class<?> repository : List.of(UserRepository.class, UserRepositoryCustom.class)) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!isSingleShard(method) && !isMergeable(method.getReturnType())) {
+                    unsupported.add(repository.getSimpleName() + "." + method.getName() + " returning "
+                            + method.getReturnType().getSimpleName());
+                }
+            }
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("Results cannot be merged across shards: " + unsupported);
+        }
+    }
+
+    private static boolean isSingleShard(Method method) {
+        Class<?>[] params = method.getParameterTypes();
+        return params.length > 0 && (UserInfo.class.isAssignableFrom(params[0])
+                || (params[0] == String.class && method.getName().contains("Email")));
+    }
+
+    static boolean isMergeable(Class<?> type) {
+        return type == void.class || isListCompatible(type) || type == long.class
+                || type == Long.class || type == int.class || type == Integer.class || type == boolean.class
+                || type == Boolean.class || type == Optional.class || UserInfo.class.isAssignableFrom(type);
+    }
+
+    // Page and Slice are Iterable too, but a merged List cannot stand in for them
+    private static boolean isListCompatible(Class<?> type) {
+        return Iterable.class.isAssignableFrom(type) && type.isAssignableFrom(List.class);
+    }
+
+    @Around("execution(* com.java.repository.UserRepository.*(..))")
+    public Object route(ProceedingJoinPoint pjp) throws Throwable {
+        if (ShardContext.current() != null) {
+            return pjp.proceed();
+        }
+
+        Object[] args = pjp.getArgs();
+        Object first = args.length > 0 ? args[0] : null;
+        String method = pjp.getSignature().getName();
+
+        if (first instanceof UserInfo user) {
+            return onShard(shards.shardFor(user.getEmail()), pjp, args);
+        }
+        if (first instanceof String email && method.contains("Email")) {
+            return onShard(shards.shardFor(email), pjp, args);
+        }
+        if (first instanceof Iterable<?> items && isShardKeyed(items, method)) {
+            return partitioned(pjp, args, items);
+        }
+        return scatterGather(pjp, args);
+    }
+
+    private boolean isShardKeyed(Iterable<?> items, String method) {
+        for (Object item : items) {
+            return item instanceof UserInfo || (item instanceof String && method.contains("Email"));
+        }
+        return false;
+    }
+
+    private Object partitioned(ProceedingJoinPoint pjp, Object[] args, Iterable<?> items) throws Throwable {
+        Map<Integer, List<Object>> byShard = new LinkedHashMap<>();
+        for (Object item : items) {
+            String email = item instanceof UserInfo user ? user.getEmail() : (String) item;
+            byShard.computeIfAbsent(shards.shardFor(email), shard -> new ArrayList<>()).add(item);
+        }
+
+        List<Object> results = new ArrayList<>();
+        for (Map.Entry<Integer, List<Object>> entry : byShard.entrySet()) {
+            Object[] shardArgs = args.clone();
+            shardArgs[0] = entry.getValue();
+            results.add(onShard(entry.getKey(), pjp, shardArgs));
+        }
+        return combine(results, returnType(pjp));
+    }
+
+    private Object scatterGather(ProceedingJoinPoint pjp, Object[] args) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cross-shard call " + pjp.getSignature().getName()
+                    + " cannot join a transaction bound to a single shard");
+        }
+        Class<?> returnType = returnType(pjp);
+        if (shards.ids().size() > 1 && !isMergeable(returnType)) {
+            throw new UnsupportedOperationException("Cannot merge " + returnType.getSimpleName()
+                    + " results across shards, run " + pjp.getSignature().getName() + " per shard through UserShards");
+        }
+        List<Object> results = new ArrayList<>();
+        for (int shard : shards.ids()) {
+            results.add(onShard(shard, pjp, args));
+        }
+        return combine(results, returnType);
+    }
+
+    private static Class<?> returnType(ProceedingJoinPoint pjp) {
+        return ((MethodSignature) pjp.getSignature()).getReturnType();
+    }
+
+    private Object onShard(int shard, ProceedingJoinPoint pjp, Object[] args) throws Throwable {
+        try {
+            return shards.on(shard, () -> {
+                try {
+                    return pjp.proceed(args);
+                } catch (Throwable e) {
+                    throw new ShardInvocationException(e);
+                }
+            });
+        } catch (ShardInvocationException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object combine(List<Object> results, Class<?> returnType) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        if (isListCompatible(returnType)) {
+            List<Object> all = new ArrayList<>();
+            results.stream().filter(r -> r != null).forEach(r -> ((Iterable<?>) r).forEach(all::add));
+            return all;
+        }
+        if (returnType == long.class || returnType == Long.class) {
+            return results.stream().filter(r -> r != null).mapToLong(r -> (Long) r).sum();
+        }
+        if (returnType == int.class || returnType == Integer.class) {
+            return results.stream().filter(r -> r != null).mapToInt(r -> (Integer) r).sum();
+        }
+        if (returnType == boolean.class || returnType == Boolean.class) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (returnType == Optional.class) {
+            return results.stream().map(r -> (Optional<?>) r).filter(r -> r != null && r.isPresent()).findFirst()
+                    .orElse(Optional.empty());
+        }
+        if (returnType == void.class || UserInfo.class.isAssignableFrom(returnType)) {
+            return results.stream().filter(r -> r != null).findFirst().orElse(null);
+        }
+        throw new UnsupportedOperationException("Cannot merge " + returnType.getSimpleName()
+                + " results across shards, run the call per shard through UserShards");
+    }
+
+    private static class ShardInvocationException extends RuntimeException {
+        ShardInvocationException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
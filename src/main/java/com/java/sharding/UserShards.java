@@ -0,0 +1,45 @@
+package com.java.sharding;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Entry point for work that has to visit every user shard (scans, batch jobs, bulk updates) or group
+ * users by shard. Without sharding there is a single shard and {@link #on} simply runs the work.
+ */
+public class UserShards {
+
+    private final ConsistentHashRing ring;
+    private final List<Integer> ids;
+
+    public UserShards(ConsistentHashRing ring) {
+        this.ring = ring;
+        this.ids = IntStream.range(0, ring.getShardCount()).boxed().toList();
+    }
+
+    public static UserShards single() {
+        return new UserShards(new ConsistentHashRing(1, 1));
+    }
+
+    public List<Integer> ids() {
+        return ids;
+    }
+
+    public int shardFor(String email) {
+        return ids.size() == 1 ? 0 : ring.shardFor(email);
+    }
+
+    public <T> T on(int shard, Supplier<T> work) {
+        return ShardContext.on(shard, work);
+    }
+
+    public void forEach(Runnable work) {
+        for (int shard : ids) {
+            on(shard, () -> {
+                work.run();
+                return null;
+            });
+        }
+    }
+}
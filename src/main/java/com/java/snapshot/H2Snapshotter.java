@@ -0,0 +1,199 @@
+package com.java.snapshot;
+
+import com.java.datasource.DataSourceRouting;
+import com.java.sharding.UserShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the users of an in-memory H2 database across restarts. The user and outbox tables are written with
+ * H2's {@code SCRIPT ... COMPRESSION GZIP} every {@code app.snapshot.interval-ms} and on shutdown, from a single
+ * repeatable-read transaction so the snapshot is consistent, to a temporary file that atomically replaces the
+ * previous snapshot. On startup, once the schema exists but before schedulers and the web server start, an empty
+ * database is reloaded with {@code RUNSCRIPT}, which bulk-inserts multi-row statements and adds the unique
+ * constraints after the data. Columns the current schema has but an older snapshot lacks are added back after the
+ * restore, with their defaults.
+ *
+ * <p>With sharding each in-memory shard has its own snapshot file; shards on disk are left alone.</p>
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory") // snapshot on shutdown before Hibernate's create-drop empties the schema
+@ConditionalOnProperty(name = "app.snapshot.enabled", havingValue = "true")
+public class H2Snapshotter implements SmartInitializingSingleton {
+
+    private static final String[] TABLES = {"USER_INFO", "OUTBOX_EVENT", "OUTBOX_CHECKPOINT"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserShards userShards;
+
+    @Value("${app.snapshot.directory:./data/snapshots}")
+    private String directory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (int shard : userShards.ids()) {
+            userShards.on(shard, () -> DataSourceRouting.onPrimary(() -> jdbcTemplate.execute(
+                    (ConnectionCallback<Void>) connection -> {
+                        restore(connection, shard);
+                        return null;
+                    })));
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.interval-ms:300000}", initialDelayString = "${app.snapshot.interval-ms:300000}")
+    public synchronized void snapshot() {
+        for (int shard : userShards.ids()) {
+            try {
+                userShards.on(shard, () -> DataSourceRouting.onPrimary(() -> jdbcTemplate.execute(
+                        (ConnectionCallback<Void>) connection -> {
+                            write(connection, shard);
+                            return null;
+                        })));
+            } catch (RuntimeException e) {
+                log.error("Snapshot of shard {} failed, keeping the previous one", shard, e);
+            }
+        }
+    }
+
+    private void write(Connection connection, int shard) throws SQLException {
+        if (!isInMemory(connection)) {
+            return;
+        }
+        List<String> tables = existingTables(connection);
+        if (!tables.contains("USER_INFO")) {
+            log.warn("No USER_INFO table on shard {}, snapshot skipped", shard);
+            return;
+        }
+
+        Path target = snapshotFile(shard);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        long start = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        int isolation = connection.getTransactionIsolation();
+        try (Statement statement = connection.createStatement()) {
+            Files.createDirectories(target.getParent());
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            long users = count(statement);
+            statement.execute("SCRIPT DROP TO " + quote(temporary) + " COMPRESSION GZIP TABLE " + String.join(", ", tables));
+            connection.rollback();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Snapshot of {} user(s) on shard {} written to {} ({} KB) in {} ms", users, shard, target,
+                    Files.size(target) / 1024, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + target, e);
+        } finally {
+            connection.setTransactionIsolation(isolation);
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void restore(Connection connection, int shard) throws SQLException {
+        Path source = snapshotFile(shard);
+        if (!isInMemory(connection) || Files.notExists(source)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (existingTables(connection).contains("USER_INFO") && count(statement) > 0) {
+                log.warn("Shard {} already holds users, snapshot {} not restored", shard, source);
+                return;
+            }
+
+            long start = System.nanoTime();
+            List<String> columns = columnDefinitions(statement);
+            statement.execute("RUNSCRIPT FROM " + quote(source) + " COMPRESSION GZIP");
+            for (String column : columns) {
+                statement.execute(column);
+            }
+            long users = count(statement);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Restored {} user(s) on shard {} from {} in {} ms{}", users, shard, source, millis,
+                    users >= 10_000 ? " (" + millis * 1_000_000 / users + " ms per million users)" : "");
+        }
+    }
+
+    private Path snapshotFile(int shard) {
+        return Paths.get(directory).toAbsolutePath().normalize().resolve("shard-" + shard + ".sql.gz");
+    }
+
+    private static boolean isInMemory(Connection connection) throws SQLException {
+        return connection.getMetaData().getURL().startsWith("jdbc:h2:mem:");
+    }
+
+    private static List<String> existingTables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        for (String table : TABLES) {
+            try (ResultSet result = connection.getMetaData().getTables(null, "PUBLIC", table, new String[] {"TABLE"})) {
+                if (result.next()) {
+                    tables.add(table);
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * {@code ADD COLUMN IF NOT EXISTS} statements for every column of the schema as created by Hibernate.
+     */
+    private static List<String> columnDefinitions(Statement statement) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet result = statement.executeQuery("SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, "
+                + "CHARACTER_MAXIMUM_LENGTH, COLUMN_DEFAULT FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME IN ('" + String.join("', '", TABLES) + "')")) {
+            while (result.next()) {
+                String type = result.getString("DATA_TYPE");
+                long length = result.getLong("CHARACTER_MAXIMUM_LENGTH");
+                if (type.startsWith("CHARACTER") && length > 0) {
+                    type += "(" + length + ")";
+                }
+                String defaultValue = result.getString("COLUMN_DEFAULT");
+                columns.add("ALTER TABLE \"" + result.getString("TABLE_NAME") + "\" ADD COLUMN IF NOT EXISTS \""
+                        + result.getString("COLUMN_NAME") + "\" " + type
+                        + (defaultValue != null ? " DEFAULT " + defaultValue : ""));
+            }
+        }
+        return columns;
+    }
+
+    private static long count(Statement statement) throws SQLException {
+        try (ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM USER_INFO")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static String quote(Path file) {
+        return "'" + file.toString().replace("'", "''") + "'";
+    }
+}
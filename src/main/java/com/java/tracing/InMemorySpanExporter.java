@@ -0,0 +1,55 @@
+package com.java.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the most recent {@code capacity} spans in memory, served by {@code GET /app/admin/traces}.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final ArrayDeque<Span> spans;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        if (spans.size() == capacity) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * Spans of one trace in the order they ended, children before their parents.
+     */
+    public synchronized List<Span> trace(String traceId) {
+        List<Span> trace = new ArrayList<>();
+        for (Span span : spans) {
+            if (span.getTraceId().equals(traceId)) {
+                trace.add(span);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Root spans of the most recent traces, newest first.
+     */
+    public synchronized List<Span> recentTraces(int limit) {
+        List<Span> roots = new ArrayList<>();
+        for (Iterator<Span> it = spans.descendingIterator(); it.hasNext() && roots.size() < limit; ) {
+            Span span = it.next();
+            if (span.getPrevious() == null) {
+                roots.add(span);
+            }
+        }
+        return roots;
+    }
+}
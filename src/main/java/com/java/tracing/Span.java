@@ -0,0 +1,123 @@
+package com.java.tracing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed stage of a traced request. Spans are started by {@link Tracer}, become the current span of their thread
+ * and are exported when closed; a span that is not sampled is {@link #NOOP} and records nothing.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class Span implements AutoCloseable {
+
+    public static final Span NOOP = new Span(null, null, null, null, null, null);
+
+    private final Tracer tracer;
+    private final Span previous;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private String name;
+    private Map<String, String> attributes;
+    private String error;
+    private long durationMicros = -1;
+
+    Span(Tracer tracer, Span previous, String traceId, String spanId, String parentSpanId, String name) {
+        this.tracer = tracer;
+        this.previous = previous;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startEpochMicros = tracer == null ? 0 : System.currentTimeMillis() * 1000;
+        this.startNanos = tracer == null ? 0 : System.nanoTime();
+    }
+
+    @JsonIgnore
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    public Span tag(String key, Object value) {
+        if (tracer != null && value != null) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>();
+            }
+            attributes.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    public Span error(Throwable e) {
+        if (tracer != null) {
+            error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        }
+        return this;
+    }
+
+    public Span rename(String name) {
+        if (tracer != null) {
+            this.name = name;
+        }
+        return this;
+    }
+
+    /**
+     * Context to hand to the next hop, for the {@code traceparent} header.
+     */
+    @JsonIgnore
+    public TraceContext context() {
+        return tracer == null ? null : new TraceContext(traceId, spanId, true);
+    }
+
+    @Override
+    public void close() {
+        if (tracer != null && durationMicros < 0) {
+            durationMicros = (System.nanoTime() - startNanos) / 1000;
+            tracer.end(this);
+        }
+    }
+
+    @JsonIgnore
+    Span getPrevious() {
+        return previous;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes == null ? null : Collections.unmodifiableMap(attributes);
+    }
+
+    public String getError() {
+        return error;
+    }
+}
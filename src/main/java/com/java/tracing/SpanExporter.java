@@ -0,0 +1,9 @@
+package com.java.tracing;
+
+/**
+ * Receives every sampled span once it is closed, on the thread that closed it.
+ */
+public interface SpanExporter {
+
+    void export(Span span);
+}
@@ -0,0 +1,126 @@
+package com.java.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts spans and tracks the current one per thread. A trace starts at the edge of a request with
+ * {@link #startTrace}: it continues the caller's trace if one came in. A caller asking for sampling gets it up to
+ * {@code forcedPerSecond} times a second, so clients cannot force every request through the exporter; otherwise,
+ * and beyond that limit, a trace is sampled with probability {@code sampleRatio}. A caller asking not to be
+ * sampled never is. Everything else uses {@link #startSpan}, which records a child of the current
+ * span, or nothing when the thread is not in a sampled trace. Spans must be closed on the thread that started them.
+ */
+@Slf4j
+public class Tracer {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    private final double sampleRatio;
+    private final int forcedPerSecond;
+    private final SpanExporter exporter;
+
+    private long forcedSecond;
+    private int forcedCount;
+
+    public Tracer(double sampleRatio, SpanExporter exporter) {
+        this(sampleRatio, Integer.MAX_VALUE, exporter);
+    }
+
+    public Tracer(double sampleRatio, int forcedPerSecond, SpanExporter exporter) {
+        this.sampleRatio = sampleRatio;
+        this.forcedPerSecond = forcedPerSecond;
+        this.exporter = exporter;
+    }
+
+    /**
+     * Tracer that never records, also not for callers asking for sampling.
+     */
+    public static Tracer noop() {
+        return new Tracer(0, null);
+    }
+
+    public Span startTrace(String name, TraceContext parent) {
+        if (exporter == null) {
+            return Span.NOOP;
+        }
+        boolean sampled;
+        if (parent == null) {
+            sampled = ThreadLocalRandom.current().nextDouble() < sampleRatio;
+        } else {
+            sampled = parent.sampled() && (allowForced() || ThreadLocalRandom.current().nextDouble() < sampleRatio);
+        }
+        if (!sampled) {
+            return Span.NOOP;
+        }
+        String traceId = parent != null ? parent.traceId() : randomHex(2);
+        return begin(new Span(this, current.get(), traceId, randomHex(1), parent != null ? parent.spanId() : null, name));
+    }
+
+    // Only reached for callers asking for sampling, a lock there costs nothing on other requests
+    private synchronized boolean allowForced() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != forcedSecond) {
+            forcedSecond = second;
+            forcedCount = 0;
+        }
+        if (forcedCount >= forcedPerSecond) {
+            return false;
+        }
+        forcedCount++;
+        return true;
+    }
+
+    public Span startSpan(String name) {
+        Span parent = current.get();
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        return begin(new Span(this, parent, parent.getTraceId(), randomHex(1), parent.getSpanId(), name));
+    }
+
+    /**
+     * The thread's current span, {@link Span#NOOP} outside a sampled trace.
+     */
+    public Span current() {
+        Span span = current.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    private Span begin(Span span) {
+        current.set(span);
+        return span;
+    }
+
+    void end(Span span) {
+        if (current.get() == span) {
+            if (span.getPrevious() != null) {
+                current.set(span.getPrevious());
+            } else {
+                current.remove();
+            }
+        }
+        try {
+            exporter.export(span);
+        } catch (RuntimeException e) {
+            log.warn("Span exporter failed", e);
+        }
+    }
+
+    private static String randomHex(int longs) {
+        char[] hex = new char[longs * 16];
+        for (int i = 0; i < longs; i++) {
+            long value;
+            do {
+                value = ThreadLocalRandom.current().nextLong();
+            } while (value == 0);
+            for (int j = 15; j >= 0; j--) {
+                hex[i * 16 + j] = HEX[(int) (value & 0xf)];
+                value >>>= 4;
+            }
+        }
+        return new String(hex);
+    }
+}
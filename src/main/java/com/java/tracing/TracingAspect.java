@@ -0,0 +1,56 @@
+package com.java.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Spans for the stages of a request: user service calls, repository calls and the password and token crypto.
+ * Ordered ahead of the transaction and sharding advice, so spans include commits and shard routing.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("execution(public * com.java.service.UserServiceImpl.*(..))")
+    public Object traceService(ProceedingJoinPoint pjp) throws Throwable {
+        return trace(pjp, "UserService.");
+    }
+
+    @Around("execution(* com.java.repository.UserRepository.*(..))")
+    public Object traceRepository(ProceedingJoinPoint pjp) throws Throwable {
+        return trace(pjp, "UserRepository.");
+    }
+
+    @Around("execution(public * com.java.utils.EncryptionUtil.*crypt(..))")
+    public Object traceEncryption(ProceedingJoinPoint pjp) throws Throwable {
+        return trace(pjp, "EncryptionUtil.");
+    }
+
+    @Around("execution(public * com.java.utils.JwtUtil.generate*(..)) || execution(public * com.java.utils.JwtUtil.parse*(..))")
+    public Object traceJwt(ProceedingJoinPoint pjp) throws Throwable {
+        return trace(pjp, "JwtUtil.");
+    }
+
+    private Object trace(ProceedingJoinPoint pjp, String prefix) throws Throwable {
+        if (!tracer.current().isRecording()) {
+            return pjp.proceed();
+        }
+        try (Span span = tracer.startSpan(prefix + pjp.getSignature().getName())) {
+            try {
+                return pjp.proceed();
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+}
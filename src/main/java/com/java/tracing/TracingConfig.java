@@ -0,0 +1,82 @@
+package com.java.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Request tracing, on with {@code app.tracing.enabled=true}. A share of {@code app.tracing.sample-ratio} of the
+ * requests is traced, plus up to {@code app.tracing.forced-per-second} a second that the caller marked as sampled in
+ * its {@code traceparent} header. Finished spans go to
+ * the exporter picked by {@code app.tracing.exporter}: {@code memory} (served by {@code GET /app/admin/traces}),
+ * {@code file} (JSON lines under {@code app.tracing.file.path}) or {@code none}, which turns tracing off.
+ */
+@Configuration
+public class TracingConfig {
+
+	@Bean
+	public Tracer tracer(@Value("${app.tracing.enabled:false}") boolean enabled,
+			@Value("${app.tracing.sample-ratio:0.1}") double sampleRatio,
+			@Value("${app.tracing.forced-per-second:10}") int forcedPerSecond, ObjectProvider<SpanExporter> exporter) {
+		SpanExporter spanExporter = exporter.getIfAvailable();
+		if (!enabled || spanExporter == null) {
+			return Tracer.noop();
+		}
+		return new Tracer(sampleRatio, forcedPerSecond, spanExporter);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "memory", matchIfMissing = true)
+	public InMemorySpanExporter inMemorySpanExporter(@Value("${app.tracing.memory.capacity:10000}") int capacity) {
+		return new InMemorySpanExporter(capacity);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "file")
+	public FileSpanExporter fileSpanExporter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${app.tracing.file.path:./data/traces/spans.jsonl}") String path,
+			@Value("${app.tracing.file.queue-capacity:10000}") int queueCapacity) {
+		return new FileSpanExporter(objectMapper, path, queueCapacity, meterRegistry);
+	}
+
+	@Configuration
+	@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true")
+	static class Enabled {
+
+		@Bean
+		public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+			FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+			// Right behind the CORS filter, ahead of Spring Security
+			registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+			return registration;
+		}
+
+		@Bean
+		public TracingAspect tracingAspect(Tracer tracer) {
+			return new TracingAspect(tracer);
+		}
+
+		// Static so the post-processor does not pull this configuration in early
+		@Bean
+		public static BeanPostProcessor tracingDataSourcePostProcessor(ObjectProvider<Tracer> tracer) {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+						return new TracingDataSource(dataSource, tracer.getObject());
+					}
+					return bean;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.java.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Starts the root span of each request, continuing the caller's trace from the W3C {@code traceparent} header, and
+ * answers with the {@code traceparent} of the request span so a slow response can be looked up under
+ * {@code GET /app/admin/traces/{traceId}}. Runs ahead of Spring Security so token verification is part of the trace.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TraceContext parent = TraceContext.parse(request.getHeader(TraceContext.TRACEPARENT));
+        Span span = tracer.startTrace("HTTP " + request.getMethod(), parent);
+        if (!span.isRecording()) {
+            if (parent != null) {
+                // Not sampled here either: pass the caller's decision on unchanged
+                response.setHeader(TraceContext.TRACEPARENT, parent.format());
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(TraceContext.TRACEPARENT, span.context().format());
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            span.rename("HTTP " + request.getMethod() + " " + (route != null ? route : request.getRequestURI()))
+                    .tag("http.method", request.getMethod())
+                    .tag("http.target", request.getRequestURI())
+                    .tag("http.status_code", response.getStatus());
+            span.close();
+        }
+    }
+}
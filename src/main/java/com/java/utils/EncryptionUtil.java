@@ -1,49 +1,189 @@
 package com.java.utils;
 
+import com.java.profiling.CryptoEvent;
+import com.java.profiling.StageEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+/**
+ * Encrypts stored user secrets with a versioned AES key ring loaded from a local PKCS12 keystore.
+ * Every value is written as {@code v<version>:<base64>} so any node holding the same keystore
+ * can decrypt it, and values written with an older key version can be found and migrated.
+ */
+@Slf4j
 @Component
 public class EncryptionUtil {
 
     private static final String ENC_ALGORITHM = "AES";
-    private static final SecretKey SECRET_KEY = generateKey();
+    private static final String KEYSTORE_TYPE = "PKCS12";
+    private static final String KEY_ALIAS_PREFIX = "user-key-v";
+    private static final char VERSION_SEPARATOR = ':';
 
-    private static SecretKey generateKey() {
+    @Value("${encryption.keystore.path:./config/encryption-keys.p12}")
+    private String keyStorePath;
+
+    @Value("${encryption.keystore.password:changeit}")
+    private String keyStorePassword;
+
+    // 0 means "use the highest version found in the keystore"
+    @Value("${encryption.keystore.active-version:0}")
+    private int activeVersion;
+
+    @Value("${encryption.keystore.create-if-missing:false}")
+    private boolean createIfMissing;
+
+    private NavigableMap<Integer, SecretKey> keyRing;
+    private int currentVersion;
+    private String currentPrefix;
+
+    @PostConstruct
+    public void loadKeyRing() {
         try {
-            KeyGenerator keyGenerator = KeyGenerator.getInstance(ENC_ALGORITHM);
-            keyGenerator.init(128);
-            return keyGenerator.generateKey();
+            Path path = Paths.get(keyStorePath);
+            if (Files.notExists(path)) {
+                if (!createIfMissing) {
+                    throw new IllegalStateException("Encryption keystore not found: " + path.toAbsolutePath());
+                }
+                createKeyStore(path);
+            }
+
+            KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+            try (InputStream in = Files.newInputStream(path)) {
+                keyStore.load(in, keyStorePassword.toCharArray());
+            }
+
+            KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection(keyStorePassword.toCharArray());
+            NavigableMap<Integer, SecretKey> keys = new TreeMap<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (alias.startsWith(KEY_ALIAS_PREFIX) && keyStore.isKeyEntry(alias)) {
+                    int version = Integer.parseInt(alias.substring(KEY_ALIAS_PREFIX.length()));
+                    KeyStore.SecretKeyEntry entry = (KeyStore.SecretKeyEntry) keyStore.getEntry(alias, protection);
+                    keys.put(version, entry.getSecretKey());
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new IllegalStateException("No '" + KEY_ALIAS_PREFIX + "<n>' keys found in " + path.toAbsolutePath());
+            }
+
+            int version = activeVersion > 0 ? activeVersion : keys.lastKey();
+            if (!keys.containsKey(version)) {
+                throw new IllegalStateException("Active key version " + version + " is not present in the keystore");
+            }
+
+            keyRing = keys;
+            currentVersion = version;
+            currentPrefix = prefixFor(version);
+            log.info("Loaded {} encryption key(s) from {}, active version {}", keys.size(), path.toAbsolutePath(), version);
+        } catch (IllegalStateException e) {
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Error generating secret key", e);
+            throw new IllegalStateException("Error loading encryption keystore", e);
         }
     }
 
+    private void createKeyStore(Path path) throws Exception {
+        log.warn("Encryption keystore {} not found, creating it with a new key. Share this file across all instances.",
+                path.toAbsolutePath());
+
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(ENC_ALGORITHM);
+        keyGenerator.init(128);
+
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        keyStore.load(null, null);
+        keyStore.setEntry(KEY_ALIAS_PREFIX + 1, new KeyStore.SecretKeyEntry(keyGenerator.generateKey()),
+                new KeyStore.PasswordProtection(keyStorePassword.toCharArray()));
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, keyStorePassword.toCharArray());
+        }
+    }
+
+    private static String prefixFor(int version) {
+        return "v" + version + VERSION_SEPARATOR;
+    }
+
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * Prefix carried by every value encrypted with the active key, usable as a LIKE pattern prefix.
+     */
+    public String getCurrentPrefix() {
+        return currentPrefix;
+    }
+
+    public boolean isCurrentVersion(String encryptedData) {
+        return encryptedData != null && encryptedData.startsWith(currentPrefix);
+    }
 
     public String encrypt(String data) {
+        CryptoEvent event = new CryptoEvent("encrypt");
         try {
             Cipher cipher = Cipher.getInstance(ENC_ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, SECRET_KEY);
+            cipher.init(Cipher.ENCRYPT_MODE, keyRing.get(currentVersion));
             byte[] encryptedBytes = cipher.doFinal(data.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            String encrypted = currentPrefix + Base64.getEncoder().encodeToString(encryptedBytes);
+            event.outcome(StageEvent.OK);
+            return encrypted;
         } catch (Exception e) {
             throw new RuntimeException("Error encrypting data", e);
+        } finally {
+            event.commit();
         }
     }
 
     public String decrypt(String encryptedData) {
+        CryptoEvent event = new CryptoEvent("decrypt");
         try {
+            int separator = encryptedData.indexOf(VERSION_SEPARATOR);
+            if (encryptedData.charAt(0) != 'v' || separator < 0) {
+                throw new IllegalArgumentException("Encrypted value carries no key version");
+            }
+            SecretKey key = keyRing.get(Integer.parseInt(encryptedData.substring(1, separator)));
+            if (key == null) {
+                throw new IllegalArgumentException("Unknown key version in encrypted value");
+            }
+
             Cipher cipher = Cipher.getInstance(ENC_ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, SECRET_KEY);
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
+            cipher.init(Cipher.DECRYPT_MODE, key);
+            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData.substring(separator + 1));
             byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+            event.outcome(StageEvent.OK);
             return new String(decryptedBytes);
         } catch (Exception e) {
             throw new RuntimeException("Error decrypting data", e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the value encrypted with the active key, or the same value if it already is.
+     */
+    public String reEncrypt(String encryptedData) {
+        if (isCurrentVersion(encryptedData)) {
+            return encryptedData;
         }
+        return encrypt(decrypt(encryptedData));
     }
 }
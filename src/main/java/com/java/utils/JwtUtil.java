@@ -1,29 +1,118 @@
 package com.java.utils;
 
 import com.java.jwt.SecurityConstants;
+import com.java.profiling.StageEvent;
+import com.java.profiling.TokenMintEvent;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.UUID;
 
+/**
+ * Issues short-lived access tokens, which authenticate requests, and long-lived refresh tokens, which can only be
+ * exchanged for new tokens at {@code /app/token/refresh}. Both carry the user's role, refresh tokens also a unique
+ * id so they can be revoked.
+ */
 @Component
 public class JwtUtil {
 
+    @Value("${app.jwt.access-token-ttl-seconds:900}")
+    private long accessTokenTtlSeconds = 900;
+
+    @Value("${app.jwt.refresh-token-ttl-seconds:1209600}")
+    private long refreshTokenTtlSeconds = 1209600;
+
     public String generateToken(String email) {
+        return generateToken(email, SecurityConstants.ROLE_USER);
+    }
+
+    public String generateToken(String email, String role) {
+        return generateToken(email, role, new Date());
+    }
+
+    public String generateToken(String email, String role, Date issuedAt) {
+
+        TokenMintEvent event = new TokenMintEvent(SecurityConstants.ACCESS_TOKEN);
+        try {
+            long now = issuedAt.getTime();
+            SecretKey key = Keys.hmacShaKeyFor(SecurityConstants.JWT_KEY.getBytes());
+            String token = Jwts
+                    .builder()
+                    .setClaims(new HashMap<>())
+                    .setSubject(email)
+                    .claim("username", email)
+                    .claim(SecurityConstants.TOKEN_TYPE_CLAIM, SecurityConstants.ACCESS_TOKEN)
+                    .claim(SecurityConstants.ROLE_CLAIM, role)
+                    .claim(SecurityConstants.ISSUED_AT_MS_CLAIM, now)
+                    .setIssuedAt(new Date(now))
+                    .setExpiration(new Date(now + accessTokenTtlSeconds * 1000))
+                    .signWith(key, SignatureAlgorithm.HS256)
+                    .compact();
+            event.outcome(StageEvent.OK);
+            return token;
+        } finally {
+            event.commit();
+        }
+    }
+
+    public String generateRefreshToken(String email) {
+        return generateRefreshToken(email, SecurityConstants.ROLE_USER);
+    }
 
+    public String generateRefreshToken(String email, String role) {
+        return generateRefreshToken(email, role, UUID.randomUUID().toString(), new Date());
+    }
+
+    public String generateRefreshToken(String email, String role, String tokenId, Date issuedAt) {
+
+        TokenMintEvent event = new TokenMintEvent(SecurityConstants.REFRESH_TOKEN);
+        try {
+            SecretKey key = Keys.hmacShaKeyFor(SecurityConstants.JWT_KEY.getBytes());
+            String token = Jwts
+                    .builder()
+                    .setId(tokenId)
+                    .setSubject(email)
+                    .claim(SecurityConstants.TOKEN_TYPE_CLAIM, SecurityConstants.REFRESH_TOKEN)
+                    .claim(SecurityConstants.ROLE_CLAIM, role)
+                    .claim(SecurityConstants.ISSUED_AT_MS_CLAIM, issuedAt.getTime())
+                    .setIssuedAt(issuedAt)
+                    .setExpiration(new Date(issuedAt.getTime() + refreshTokenTtlSeconds * 1000))
+                    .signWith(key, SignatureAlgorithm.HS256)
+                    .compact();
+            event.outcome(StageEvent.OK);
+            return token;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Verifies signature and expiry of a refresh token and returns its claims.
+     *
+     * @throws JwtException if the token is invalid, expired or not a refresh token
+     */
+    public Claims parseRefreshToken(String token) {
         SecretKey key = Keys.hmacShaKeyFor(SecurityConstants.JWT_KEY.getBytes());
-        return Jwts
-                .builder()
-                .setClaims(new HashMap<>())
-                .setSubject(email)
-                .claim("username", email)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))  // 10 hours token validity
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        if (!SecurityConstants.REFRESH_TOKEN.equals(claims.get(SecurityConstants.TOKEN_TYPE_CLAIM, String.class))) {
+            throw new JwtException("Not a refresh token");
+        }
+        return claims;
+    }
+
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtlSeconds;
+    }
+
+    public long getRefreshTokenTtlSeconds() {
+        return refreshTokenTtlSeconds;
     }
 }
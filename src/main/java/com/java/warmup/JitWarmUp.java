@@ -0,0 +1,196 @@
+package com.java.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.jwt.SecurityConstants;
+import com.java.model.PhoneDTO;
+import com.java.model.PhoneInfo;
+import com.java.model.UserDTO;
+import com.java.model.UserInfo;
+import com.java.repository.UserRepository;
+import com.java.sharding.UserShards;
+import com.java.utils.EncryptionUtil;
+import com.java.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the sign-up and login hot paths (request and response JSON, bean validation, password encryption, token
+ * signing and parsing, user queries and writes) in a loop on startup so the JIT compiles them before the first real
+ * request. Rounds of {@code app.warmup.round-size} iterations run until a round adds less than
+ * {@code app.warmup.settle-compile-ms} of JIT compilation time, or a configured limit is hit.
+ *
+ * <p>Database work happens in transactions that are always rolled back, with throwaway {@code .invalid} emails,
+ * so nothing becomes visible; the user is also deleted explicitly, for the off-heap store. Service-level side effects
+ * (audit log, outbox, search index, token cache) are not triggered. Runners finish before the application reports readiness, so traffic arrives after warm-up.
+ * A failing iteration is logged and ends the warm-up; the application then starts cold rather than not at all.</p>
+ */
+@Slf4j
+@Component
+@Order(100)
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class JitWarmUp implements ApplicationRunner {
+
+    private static final String SIGN_UP_JSON = "{\"name\":\"Warm Up\",\"email\":\"%s\",\"password\":\"Warmup1x2\","
+            + "\"phones\":[{\"number\":\"1234567\",\"cityCode\":\"1\",\"countryCode\":\"57\"}]}";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private UserShards userShards;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.warmup.round-size:100}")
+    private int roundSize;
+
+    @Value("${app.warmup.max-iterations:5000}")
+    private int maxIterations;
+
+    @Value("${app.warmup.max-duration-ms:30000}")
+    private long maxDurationMs;
+
+    @Value("${app.warmup.settle-compile-ms:20}")
+    private long settleCompileMs;
+
+    // failure is the exception of the iteration that ended the warm-up, null when none failed
+    record Result(int iterations, long compileMillis, boolean settled, RuntimeException failure) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        LongSupplier compileMillis = compilation != null && compilation.isCompilationTimeMonitoringSupported()
+                ? compilation::getTotalCompilationTime
+                : () -> 0L;
+
+        long start = System.nanoTime();
+        Result result = warmUp(this::iteration, compileMillis, roundSize, maxIterations,
+                TimeUnit.MILLISECONDS.toNanos(maxDurationMs), settleCompileMs);
+        if (result.failure() != null) {
+            log.warn("JIT warm-up stopped after {} iteration(s) because an iteration failed, continuing startup",
+                    result.iterations(), result.failure());
+            return;
+        }
+        log.info("JIT warm-up ran {} iteration(s) in {} ms, {} ms of JIT compilation, {}", result.iterations(),
+                (System.nanoTime() - start) / 1_000_000, result.compileMillis(),
+                result.settled() ? "compilation settled" : "stopped at the configured limit");
+    }
+
+    /**
+     * Runs {@code iteration} in rounds until one round adds less than {@code settleMs} of compilation time,
+     * {@code maxIterations} iterations ran or {@code maxNanos} elapsed. Stops at the first iteration that throws.
+     */
+    static Result warmUp(Runnable iteration, LongSupplier compileMillis, int roundSize, int maxIterations,
+            long maxNanos, long settleMs) {
+        long deadline = System.nanoTime() + maxNanos;
+        long startCompile = compileMillis.getAsLong();
+        long roundCompile = startCompile;
+        int iterations = 0;
+        while (iterations < maxIterations && System.nanoTime() < deadline) {
+            for (int i = 0; i < roundSize && iterations < maxIterations; i++, iterations++) {
+                try {
+                    iteration.run();
+                } catch (RuntimeException e) {
+                    return new Result(iterations, compileMillis.getAsLong() - startCompile, false, e);
+                }
+            }
+            long compiled = compileMillis.getAsLong();
+            if (compiled - roundCompile < settleMs) {
+                return new Result(iterations, compiled - startCompile, true, null);
+            }
+            roundCompile = compiled;
+        }
+        return new Result(iterations, compileMillis.getAsLong() - startCompile, false, null);
+    }
+
+    private void iteration() {
+        String email = "warmup-" + UUID.randomUUID() + "@warmup.invalid";
+        try {
+            // Sign-up request as the controller receives it
+            UserDTO request = objectMapper.readValue(SIGN_UP_JSON.formatted(email), UserDTO.class);
+            if (!validator.validate(request).isEmpty()) {
+                throw new IllegalStateException("Warm-up sign-up request does not validate");
+            }
+            String encrypted = encryptionUtil.encrypt(request.getPassword());
+
+            // Tokens as issued at sign-up and login, and verified by the JWT filter
+            String token = jwtUtil.generateToken(email);
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SecurityConstants.JWT_KEY.getBytes()))
+                    .build().parseClaimsJws(token).getBody();
+            jwtUtil.parseRefreshToken(jwtUtil.generateRefreshToken(String.valueOf(claims.get("username"))));
+
+            UserInfo saved = userShards.on(userShards.shardFor(email), () -> transactionTemplate.execute(status -> {
+                status.setRollbackOnly();
+                return persist(request, encrypted);
+            }));
+            saved.setPassword(encryptionUtil.decrypt(saved.getPassword()));
+            saved.setToken(token);
+            objectMapper.writeValueAsBytes(saved);
+            request.setPassword(null);
+            objectMapper.writeValueAsBytes(request);
+        } catch (Exception e) {
+            throw new IllegalStateException("JIT warm-up iteration failed", e);
+        }
+    }
+
+    private UserInfo persist(UserDTO request, String encryptedPassword) {
+        String email = request.getEmail();
+        if (userRepo.findByEmail(email) != null) {
+            throw new IllegalStateException("Warm-up email already taken: " + email);
+        }
+
+        UserInfo user = new UserInfo();
+        user.setEmail(email);
+        user.setName(request.getName());
+        user.setPassword(encryptedPassword);
+        user.setIsActive(true);
+        List<PhoneInfo> phones = new ArrayList<>();
+        for (PhoneDTO phone : request.getPhones()) {
+            phones.add(new PhoneInfo(phone.getNumber(), phone.getCityCode(), phone.getCountryCode()));
+        }
+        user.setPhones(phones);
+        UserInfo saved = userRepo.saveAndFlush(user);
+
+        userRepo.findByEmailIn(List.of(email));
+        userRepo.findPhonesByEmail(email);
+        userRepo.updateFieldsByEmail(email, saved.getVersion(), Map.of("name", "Warm Up Again"));
+        // Rolled back anyway with JPA, but the off-heap store is not transactional
+        userRepo.delete(saved);
+        return saved;
+    }
+}
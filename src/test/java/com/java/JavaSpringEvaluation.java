@@ -3,7 +3,8 @@ package com.java;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// A fresh checkout has no keystore yet
+@SpringBootTest(properties = "encryption.keystore.create-if-missing=true")
 class JavaSpringEvaluation {
 
 	@Test
@@ -0,0 +1,72 @@
+package com.java.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    @Test
+    void dropsWhenFullInsteadOfBlocking() {
+        AuditRingBuffer ring = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i, null, AuditRecord.Type.LOGIN, AuditRecord.Result.SUCCESS, null));
+        }
+        assertFalse(ring.offer(5, null, AuditRecord.Type.LOGIN, AuditRecord.Result.SUCCESS, null));
+        assertEquals(1, ring.dropped());
+
+        assertEquals(4, ring.drain((slots, offset) -> { }, 10));
+        assertTrue(ring.isEmpty());
+        assertTrue(ring.offer(6, null, AuditRecord.Type.LOGIN, AuditRecord.Result.SUCCESS, null));
+    }
+
+    @Test
+    void concurrentProducersLoseNothingThatWasAccepted() throws Exception {
+        AuditRingBuffer ring = new AuditRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        AtomicInteger accepted = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            UUID user = new UUID(p, p);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (ring.offer(i, user, AuditRecord.Type.SIGN_UP, AuditRecord.Result.SUCCESS, null)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        long[] lastTimestampPerProducer = new long[producers];
+        Arrays.fill(lastTimestampPerProducer, -1);
+        int[] drained = {0};
+        boolean[] ordered = {true};
+        while (threads.stream().anyMatch(Thread::isAlive) || !ring.isEmpty()) {
+            drained[0] += ring.drain((slots, offset) -> {
+                ByteBuffer buffer = ByteBuffer.wrap(slots);
+                // user id high bits carry the producer number
+                int producer = (int) buffer.getLong(offset + 8);
+                long timestamp = buffer.getLong(offset);
+                ordered[0] &= timestamp > lastTimestampPerProducer[producer];
+                lastTimestampPerProducer[producer] = timestamp;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(accepted.get(), drained[0]);
+        assertEquals(producers * perProducer, accepted.get() + ring.dropped());
+        assertTrue(ordered[0], "records of one producer must come out in the order they went in");
+    }
+}
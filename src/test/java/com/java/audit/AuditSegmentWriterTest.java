@@ -0,0 +1,86 @@
+package com.java.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentWriterTest {
+
+    private static final UUID USER = UUID.fromString("7f1c2e9a-0b6d-4f4e-9a51-3c2d1e0f8a77");
+
+    @TempDir
+    Path directory;
+
+    private static byte[] encoded(AuditRecord.Type type, AuditRecord.Result result) {
+        byte[] record = new byte[AuditRecord.SIZE];
+        AuditRecord.encode(ByteBuffer.wrap(record), 0, 1_700_000_000_000L, USER, type, result,
+                new byte[] {10, 0, 0, 7});
+        return record;
+    }
+
+    private List<AuditRecord> readAll() throws Exception {
+        List<AuditRecord> records = new ArrayList<>();
+        for (Path segment : AuditLogReader.segments(directory)) {
+            AuditLogReader.scan(segment, records::add);
+        }
+        return records;
+    }
+
+    @Test
+    void appendsAcrossSegmentsAndReadsBackInOrder() throws Exception {
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 4 * AuditRecord.SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writer.append(encoded(AuditRecord.Type.LOGIN, AuditRecord.Result.SUCCESS), 0);
+            }
+        }
+
+        assertEquals(3, AuditLogReader.segments(directory).size());
+        List<AuditRecord> records = readAll();
+        assertEquals(10, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i).sequence());
+        }
+        assertEquals(USER, records.get(0).userId());
+        assertEquals("10.0.0.7", records.get(0).ip());
+
+        StringWriter csv = new StringWriter();
+        AuditLogReader.export(directory, csv);
+        assertTrue(csv.toString().startsWith(AuditRecord.CSV_HEADER + "\n1,2023-11-14T22:13:20Z," + USER + ",LOGIN,SUCCESS,10.0.0.7\n"));
+    }
+
+    @Test
+    void recoversAfterATornRecordAndContinuesTheSequence() throws Exception {
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 8 * AuditRecord.SIZE)) {
+            for (int i = 0; i < 5; i++) {
+                writer.append(encoded(AuditRecord.Type.SIGN_UP, AuditRecord.Result.SUCCESS), 0);
+            }
+        }
+
+        // Corrupt the 4th record as a crash in the middle of writing it would
+        Path segment = AuditLogReader.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 3 * AuditRecord.SIZE + 2);
+        }
+        assertEquals(3, readAll().size());
+
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 8 * AuditRecord.SIZE)) {
+            assertEquals(4, writer.getNextSequence());
+            writer.append(encoded(AuditRecord.Type.LOGIN, AuditRecord.Result.FAILURE), 0);
+        }
+
+        List<AuditRecord> records = readAll();
+        assertEquals(4, records.size());
+        assertEquals(4, records.get(3).sequence());
+        assertEquals(AuditRecord.Result.FAILURE, records.get(3).result());
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -114,6 +115,24 @@ class UserControllerTest {
                 });
     }
 
+    @Test
+    @WithMockUser(username = "new.user@test.com", roles = {"USER"})
+    void signUpUserHandler_TooManyOrTooLongPhones_ShouldReturn400() throws Exception {
+        mockUserDTO.setPhones(Collections.nCopies(UserDTO.MAX_PHONES + 1, new PhoneDTO("12345678", "11", "57")));
+        mockMvc.perform(post("/app/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(mockUserDTO)).with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        mockUserDTO.setPhones(List.of(new PhoneDTO("1".repeat(21), "11", "57")));
+        mockMvc.perform(post("/app/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(mockUserDTO)).with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).registerUser(any(UserDTO.class));
+    }
+
     @Test
     @WithMockUser(username = "new.user@test.com", roles = {"USER"})
     void welcomeLoggedInUserHandler_Success_ShouldReturn200Ok() throws Exception {
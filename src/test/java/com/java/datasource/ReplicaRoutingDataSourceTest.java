@@ -0,0 +1,80 @@
+package com.java.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    private static DataSource h2(String role) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + role + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (role varchar(20))");
+        jdbc.update("insert into node values (?)", role);
+        return dataSource;
+    }
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(h2("primary"), List.of(h2("replica")));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String currentNode(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select role from node", String.class));
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica() {
+        assertEquals("replica", currentNode(readOnly));
+    }
+
+    @Test
+    void readWriteTransaction_ShouldUsePrimary() {
+        assertEquals("primary", currentNode(readWrite));
+    }
+
+    @Test
+    void readOnlyTransaction_ReplicaDown_ShouldFallBackToPrimary() {
+        routingDataSource.markReplicaHealth(0, false);
+
+        assertEquals("primary", currentNode(readOnly));
+    }
+
+    @Test
+    void readOnlyTransaction_PrimaryForced_ShouldUsePrimary() {
+        assertEquals("primary", DataSourceRouting.onPrimary(() -> currentNode(readOnly)));
+        assertEquals("replica", currentNode(readOnly));
+    }
+
+    @Test
+    void checkReplicaHealth_ReachableReplica_ShouldRestoreRotation() {
+        routingDataSource.markReplicaHealth(0, false);
+
+        routingDataSource.checkReplicaHealth(1);
+
+        assertEquals("replica", currentNode(readOnly));
+    }
+}
@@ -0,0 +1,42 @@
+package com.java.exceptions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorResponsesTest {
+
+    // Configured like Spring Boot's ObjectMapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    @Test
+    void bodyMatchesJacksonSerializationOfErrorDetails() throws Exception {
+        LocalDateTime[] timestamps = {
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456789),
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5, 400000000),
+                LocalDateTime.of(2024, 1, 2, 3, 4, 0)};
+        String[] details = {"User already exist with email: a@b.com", "Quote \" backslash \\ tab \t ünïcödé", null};
+
+        for (LocalDateTime timestamp : timestamps) {
+            for (String detail : details) {
+                String expected = objectMapper.writeValueAsString(new ErrorDetails(timestamp, ErrorCode.ERROR_INPUT_REQUEST, detail));
+                assertEquals(expected, new String(ErrorResponses.body(ErrorCode.ERROR_INPUT_REQUEST, detail, timestamp),
+                        StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void businessExceptionsCarryNoStackTrace() {
+        assertEquals(0, new UserException("duplicate").getStackTrace().length);
+        assertEquals(0, new UserConflictException("stale").getStackTrace().length);
+        assertEquals(0, new InvalidCredentialsException("bad token", new IllegalStateException()).getStackTrace().length);
+    }
+}
@@ -1,5 +1,6 @@
 package com.java.jwt;
 
+import com.java.utils.JwtUtil;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtParserBuilder;
@@ -52,7 +53,7 @@ class JwtValidationFilterTest {
     private final String VALID_JWT_HEADER = "Bearer valid_token";
     private final String INVALID_JWT_HEADER = "Bearer invalid_token";
     private final String VALID_USERNAME = "testuser@example.com";
-    private final String VALID_ROLE = "ROLE_ADMIN"; // As hardcoded in the filter
+    private final String VALID_ROLE = SecurityConstants.ROLE_ADMIN;
 
     @Test
     void doFilterInternal_NoJwtHeader_ShouldProceedWithoutSettingAuth() throws ServletException, IOException {
@@ -99,6 +100,8 @@ class JwtValidationFilterTest {
 
             // 3. Mock Claims extraction
             when(mockClaims.get("username")).thenReturn(VALID_USERNAME); // Must match the key used in the filter
+            when(mockClaims.get(SecurityConstants.ROLE_CLAIM)).thenReturn(VALID_ROLE);
+            when(mockClaims.get(SecurityConstants.ISSUED_AT_MS_CLAIM, Long.class)).thenReturn(System.currentTimeMillis());
 
             // --- Mocks for SecurityContextHolder ---
             SecurityContext mockSecurityContext = mock(SecurityContext.class);
@@ -184,4 +187,39 @@ class JwtValidationFilterTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void doFilterInternal_RefreshToken_ShouldThrowBadCredentialsException() throws ServletException, IOException {
+        // Arrange
+        String refreshToken = new JwtUtil().generateRefreshToken(VALID_USERNAME);
+        when(request.getHeader(SecurityConstants.JWT_HEADER)).thenReturn("Bearer " + refreshToken);
+
+        // Act & Assert
+        BadCredentialsException e = assertThrows(BadCredentialsException.class, () ->
+                filter.doFilterInternal(request, response, filterChain)
+        );
+        assertEquals("Refresh tokens cannot authenticate requests", e.getMessage());
+        assertNull(e.getCause());
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilterInternal_TokenRole_ShouldGrantOnlyThatRole() throws ServletException, IOException {
+        JwtUtil jwtUtil = new JwtUtil();
+        try {
+            when(request.getHeader(SecurityConstants.JWT_HEADER))
+                    .thenReturn("Bearer " + jwtUtil.generateToken(VALID_USERNAME),
+                            "Bearer " + jwtUtil.generateToken(VALID_USERNAME, SecurityConstants.ROLE_ADMIN));
+
+            filter.doFilterInternal(request, response, filterChain);
+            assertEquals(List.of(new SimpleGrantedAuthority(SecurityConstants.ROLE_USER)),
+                    List.copyOf(SecurityContextHolder.getContext().getAuthentication().getAuthorities()));
+
+            filter.doFilterInternal(request, response, filterChain);
+            assertEquals(List.of(new SimpleGrantedAuthority(SecurityConstants.ROLE_ADMIN)),
+                    List.copyOf(SecurityContextHolder.getContext().getAuthentication().getAuthorities()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
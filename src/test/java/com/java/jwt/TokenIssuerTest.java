@@ -0,0 +1,81 @@
+package com.java.jwt;
+
+import com.java.utils.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenIssuerTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private final TokenRevocationList revocationList = new TokenRevocationList();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private double issued(String outcome) {
+        return meterRegistry.get("auth.tokens.issued").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void issue_RepeatedLogin_ShouldReuseFreshTokens() {
+        TokenIssuer issuer = new TokenIssuer(jwtUtil, revocationList, meterRegistry, 60, 100);
+
+        IssuedTokens first = issuer.issue("a@test.com");
+        IssuedTokens second = issuer.issue("a@test.com");
+        IssuedTokens other = issuer.issue("b@test.com");
+
+        assertSame(first, second);
+        assertNotEquals(first.accessToken(), other.accessToken());
+        assertEquals(first.refreshTokenId(), jwtUtil.parseRefreshToken(first.refreshToken()).getId());
+        assertEquals(2, issued("minted"));
+        assertEquals(1, issued("reused"));
+    }
+
+    @Test
+    void issue_RevokedRefreshToken_ShouldMintNewTokens() {
+        TokenIssuer issuer = new TokenIssuer(jwtUtil, revocationList, meterRegistry, 60, 100);
+
+        IssuedTokens first = issuer.issue("a@test.com");
+        revocationList.revoke(first.refreshTokenId(), new Date(System.currentTimeMillis() + 60_000));
+
+        assertNotSame(first, issuer.issue("a@test.com"));
+        assertEquals(2, issued("minted"));
+    }
+
+    @Test
+    void issue_ReuseDisabledOrCacheFull_ShouldMintNewTokens() {
+        TokenIssuer disabled = new TokenIssuer(jwtUtil, revocationList, meterRegistry, 0, 100);
+        assertNotSame(disabled.issue("a@test.com"), disabled.issue("a@test.com"));
+
+        TokenIssuer tiny = new TokenIssuer(jwtUtil, revocationList, new SimpleMeterRegistry(), 60, 1);
+        tiny.issue("a@test.com");
+        IssuedTokens uncached = tiny.issue("b@test.com");
+        assertNotSame(uncached, tiny.issue("b@test.com"));
+    }
+
+    @Test
+    void issue_DifferentRole_ShouldMintNewTokens() {
+        TokenIssuer issuer = new TokenIssuer(jwtUtil, revocationList, meterRegistry, 60, 100);
+
+        IssuedTokens user = issuer.issue("a@test.com");
+        IssuedTokens admin = issuer.issue("a@test.com", SecurityConstants.ROLE_ADMIN);
+
+        assertNotSame(user, admin);
+        assertEquals(SecurityConstants.ROLE_ADMIN, admin.role());
+        assertEquals(2, issued("minted"));
+    }
+
+    @Test
+    void issue_RightAfterRevokeAll_ShouldMintTokensThatStayValid() {
+        TokenIssuer issuer = new TokenIssuer(jwtUtil, revocationList, meterRegistry, 60, 100);
+
+        issuer.issue("a@test.com");
+        revocationList.revokeAll("a@test.com");
+        issuer.forget("a@test.com");
+        IssuedTokens fresh = issuer.issue("a@test.com");
+
+        assertFalse(revocationList.isRevoked(jwtUtil.parseRefreshToken(fresh.refreshToken())));
+    }
+}
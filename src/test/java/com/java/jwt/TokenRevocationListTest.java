@@ -0,0 +1,41 @@
+package com.java.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private final TokenRevocationList revocationList = new TokenRevocationList();
+
+    private static Claims claims(long issuedAtMillis, boolean withMillis) {
+        Claims claims = Jwts.claims().setSubject("a@test.com").setIssuedAt(new Date(issuedAtMillis / 1000 * 1000));
+        if (withMillis) {
+            claims.put(SecurityConstants.ISSUED_AT_MS_CLAIM, issuedAtMillis);
+        }
+        return claims;
+    }
+
+    @Test
+    void revokeAll_ShouldKeepTokensIssuedLaterInTheSameSecond() {
+        long before = System.currentTimeMillis();
+        revocationList.revokeAll("a@test.com");
+        long after = System.currentTimeMillis() + 1;
+
+        assertTrue(revocationList.isRevoked(claims(before, true)));
+        assertFalse(revocationList.isRevoked(claims(after, true)));
+    }
+
+    @Test
+    void revokeAll_TokenWithoutMillis_ShouldRevokeWholeSecond() {
+        revocationList.revokeAll("a@test.com");
+        long now = System.currentTimeMillis();
+
+        assertTrue(revocationList.isRevoked(claims(now, false)));
+        assertFalse(revocationList.isRevoked(claims(now + 1000, false)));
+    }
+}
@@ -0,0 +1,252 @@
+package com.java.offheap;
+
+import com.java.model.PhoneInfo;
+import com.java.model.UserInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUserStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private Path logFile;
+    private OffHeapUserStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logFile = dir.resolve("users.log");
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    // Small chunks and index so tests cross chunk boundaries and grow the index
+    private OffHeapUserStore open() throws IOException {
+        return new OffHeapUserStore(logFile, 12, 4);
+    }
+
+    private OffHeapUserStore reopen() throws IOException {
+        store.close();
+        store = open();
+        return store;
+    }
+
+    private static UserInfo user(String email) {
+        UserInfo user = new UserInfo();
+        user.setEmail(email);
+        user.setName("Name of " + email);
+        user.setPassword("v1:secret");
+        user.setIsActive(true);
+        List<PhoneInfo> phones = new ArrayList<>();
+        phones.add(new PhoneInfo("1234567", "1", "57"));
+        user.setPhones(phones);
+        return user;
+    }
+
+    @Test
+    void savedUsersAreFoundByEmailAndId() {
+        UserInfo saved = store.save(user("maría@test.com"));
+        assertNotNull(saved.getId());
+        assertEquals(0L, saved.getVersion());
+        assertNotNull(saved.getCreated());
+
+        UserInfo found = store.findByEmail("maría@test.com");
+        assertEquals(saved.getId(), found.getId());
+        assertEquals("Name of maría@test.com", found.getName());
+        assertEquals("v1:secret", found.getPassword());
+        assertTrue(found.getIsActive());
+        assertEquals("1234567", found.getPhones().get(0).getNumber());
+        assertEquals("57", found.getPhones().get(0).getCountryCode());
+        assertEquals(saved.getCreated(), found.getCreated());
+        assertEquals(saved.getId(), store.findById(saved.getId()).getId());
+        assertEquals(0L, store.findPhonesByEmail("maría@test.com").getVersion());
+
+        assertNull(store.findByEmail("maria@test.com"));
+        assertFalse(store.existsByEmail("other@test.com"));
+        assertNull(store.findById(UUID.randomUUID()));
+    }
+
+    @Test
+    void updatesBumpTheVersionOnlyWhenSomethingChanged() {
+        UserInfo saved = store.save(user("a@test.com"));
+        UserInfo copy = store.findByEmail("a@test.com");
+
+        // last login is not updatable, like the JPA mapping
+        copy.setLastLogin(copy.getCreated().plusDays(1));
+        assertEquals(0L, store.save(copy).getVersion());
+        assertNull(store.findByEmail("a@test.com").getLastLogin());
+
+        LocalDateTime lastLogin = copy.getLastLogin();
+        assertEquals(1, store.updateLastLoginByEmail("a@test.com", lastLogin));
+        assertEquals(lastLogin, store.findByEmail("a@test.com").getLastLogin());
+        assertEquals(0L, store.findByEmail("a@test.com").getVersion());
+
+        copy.setIsActive(false);
+        assertEquals(1L, store.save(copy).getVersion());
+        assertFalse(store.findByEmail("a@test.com").getIsActive());
+
+        copy.setName("A much longer name than before, so the record moves");
+        assertEquals(2L, store.save(copy).getVersion());
+        assertEquals(copy.getName(), store.findById(saved.getId()).getName());
+
+        assertEquals(1, store.updateFieldsByEmail("a@test.com", 2L, Map.of("name", "A")));
+        assertEquals(0, store.updateFieldsByEmail("a@test.com", 2L, Map.of("name", "B")));
+        assertEquals("A", store.findByEmail("a@test.com").getName());
+        assertEquals(saved.getCreated(), store.findByEmail("a@test.com").getCreated());
+        assertThrows(IllegalArgumentException.class,
+                () -> store.updateFieldsByEmail("a@test.com", 3L, Map.of("email", "b@test.com")));
+    }
+
+    @Test
+    void rejectsDuplicateEmailsAndStaleVersions() {
+        UserInfo saved = store.save(user("a@test.com"));
+        assertThrows(DataIntegrityViolationException.class, () -> store.save(user("a@test.com")));
+
+        UserInfo stale = store.findByEmail("a@test.com");
+        saved.setName("First");
+        store.save(saved);
+        stale.setName("Second");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> store.save(stale));
+
+        UserInfo other = store.save(user("b@test.com"));
+        other.setEmail("a@test.com");
+        assertThrows(DataIntegrityViolationException.class, () -> store.save(other));
+    }
+
+    @Test
+    void changingTheEmailMovesTheUser() {
+        UserInfo saved = store.save(user("a@test.com"));
+        saved.setEmail("b@test.com");
+        store.save(saved);
+
+        assertNull(store.findByEmail("a@test.com"));
+        assertEquals(saved.getId(), store.findByEmail("b@test.com").getId());
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    void deletedUsersAreGone() {
+        UserInfo saved = store.save(user("a@test.com"));
+        store.save(user("b@test.com"));
+
+        assertTrue(store.deleteById(saved.getId()));
+        assertFalse(store.deleteById(saved.getId()));
+        assertNull(store.findByEmail("a@test.com"));
+        assertNull(store.findById(saved.getId()));
+        assertEquals(1, store.count());
+
+        store.save(user("a@test.com"));
+        assertEquals(2, store.count());
+    }
+
+    @Test
+    void usersInsertedInARolledBackTransactionAreDeleted() {
+        OffHeapUserRepository repository = new OffHeapUserRepository(store);
+        UserInfo existing = repository.save(user("a@test.com"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            UserInfo inserted = repository.save(user("b@test.com"));
+            existing.setName("Renamed");
+            repository.save(existing);
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertNull(store.findById(inserted.getId()));
+            assertEquals("Renamed", store.findByEmail("a@test.com").getName());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesSurviveARestart() throws IOException {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ids.add(store.save(user("user" + i + "@test.com")).getId());
+        }
+        UserInfo first = store.findById(ids.get(0));
+        first.setName("Renamed");
+        store.save(first);
+        store.deleteById(ids.get(1));
+        store.force();
+
+        reopen();
+        assertEquals(499, store.count());
+        assertEquals("Renamed", store.findByEmail("user0@test.com").getName());
+        assertEquals(1L, store.findByEmail("user0@test.com").getVersion());
+        assertNull(store.findById(ids.get(1)));
+        assertEquals(ids.get(499), store.findByEmail("user499@test.com").getId());
+    }
+
+    @Test
+    void compactionKeepsOnlyLiveUsers() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            store.save(user("user" + i + "@test.com"));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 200; i += 2) {
+                UserInfo user = store.findByEmail("user" + i + "@test.com");
+                user.setName(user.getName() + " again");
+                store.save(user);
+            }
+        }
+        long before = Files.size(logFile);
+
+        assertFalse(store.compactIfNeeded(0.5, Long.MAX_VALUE));
+        assertTrue(store.compactIfNeeded(0.5, 0));
+        assertTrue(Files.size(logFile) < before);
+        assertEquals(200, store.count());
+        assertTrue(store.findByEmail("user0@test.com").getName().endsWith(" again again again again again"));
+
+        store.save(user("new@test.com"));
+        reopen();
+        assertEquals(201, store.count());
+        assertTrue(store.existsByEmail("new@test.com"));
+        assertTrue(store.findByEmail("user10@test.com").getName().endsWith(" again"));
+    }
+
+    @Test
+    void tornLastEntryIsDroppedOnReplay() throws IOException {
+        store.save(user("a@test.com"));
+        store.save(user("b@test.com"));
+        store.close();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        store = open();
+        assertTrue(store.existsByEmail("a@test.com"));
+        assertFalse(store.existsByEmail("b@test.com"));
+
+        // the torn bytes were cut off, so new entries replay too
+        store.save(user("c@test.com"));
+        reopen();
+        assertEquals(2, store.count());
+        assertTrue(store.existsByEmail("c@test.com"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.java.outbox;
+
+import com.java.model.OutboxCheckpoint;
+import com.java.model.OutboxEvent;
+import com.java.repository.OutboxCheckpointRepository;
+import com.java.repository.OutboxEventRepository;
+import com.java.sharding.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepo;
+
+    @Mock
+    private OutboxCheckpointRepository checkpointRepo;
+
+    @Mock
+    private OutboxSink sink;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxRepo, checkpointRepo, sink, UserShards.single(), transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "gapTimeoutMs", 60_000L);
+        when(checkpointRepo.findById(OutboxRelay.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(new OutboxCheckpoint(OutboxRelay.CHECKPOINT_NAME, 4L, null)));
+    }
+
+    private static OutboxEvent event(long id, LocalDateTime createdAt) {
+        return new OutboxEvent(id, "user-" + id, UserEventOutbox.USER_REGISTERED, "{}", createdAt);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_ShouldPublishInOrderAndStopAtRecentGap() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        when(outboxRepo.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(event(5, now), event(6, now), event(8, now)));
+        when(outboxRepo.findByIdGreaterThanOrderByIdAsc(eq(6L), any(Pageable.class)))
+                .thenReturn(List.of(event(8, now)));
+        when(outboxRepo.count()).thenReturn(1L);
+
+        relay.drain();
+
+        ArgumentCaptor<List<OutboxEvent>> published = ArgumentCaptor.forClass(List.class);
+        verify(sink, times(1)).publish(published.capture());
+        assertEquals(List.of(5L, 6L), published.getValue().stream().map(OutboxEvent::getId).toList());
+
+        ArgumentCaptor<OutboxCheckpoint> checkpoint = ArgumentCaptor.forClass(OutboxCheckpoint.class);
+        verify(checkpointRepo).save(checkpoint.capture());
+        assertEquals(6L, checkpoint.getValue().getLastEventId());
+        verify(outboxRepo).deleteDelivered(List.of(5L, 6L));
+
+        assertEquals(1.0, meterRegistry.get("outbox.lag.events").gauge().value());
+        assertEquals(2.0, meterRegistry.get("outbox.delivered").counter().count());
+    }
+
+    @Test
+    void drain_StaleGap_ShouldSkipIt() throws Exception {
+        LocalDateTime old = LocalDateTime.now().minusMinutes(5);
+        when(outboxRepo.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(event(5, old), event(7, old)));
+        when(outboxRepo.findByIdGreaterThanOrderByIdAsc(eq(7L), any(Pageable.class))).thenReturn(List.of());
+
+        relay.drain();
+
+        verify(sink).publish(argThat(events -> events.size() == 2));
+        verify(outboxRepo).deleteDelivered(List.of(5L, 7L));
+    }
+
+    @Test
+    void drain_SinkFails_ShouldNotCheckpoint() throws Exception {
+        when(outboxRepo.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(event(5, LocalDateTime.now())));
+        when(outboxRepo.count()).thenReturn(1L);
+        doThrow(new IllegalStateException("sink down")).when(sink).publish(anyList());
+
+        relay.drain();
+
+        verify(checkpointRepo, never()).save(any());
+        verify(outboxRepo, never()).deleteDelivered(any());
+        assertEquals(1.0, meterRegistry.get("outbox.lag.events").gauge().value());
+    }
+
+    @Test
+    void drain_EventCommittedAfterItsGapWasSkipped_ShouldBeDeliveredLate() throws Exception {
+        when(outboxRepo.findByIdLessThanEqualOrderByIdAsc(eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(event(3, LocalDateTime.now())));
+        when(outboxRepo.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Pageable.class))).thenReturn(List.of());
+
+        relay.drain();
+
+        verify(sink).publish(argThat(events -> events.size() == 1 && events.get(0).getId() == 3L));
+        verify(outboxRepo).deleteDelivered(List.of(3L));
+        ArgumentCaptor<OutboxCheckpoint> checkpoint = ArgumentCaptor.forClass(OutboxCheckpoint.class);
+        verify(checkpointRepo).save(checkpoint.capture());
+        assertEquals(4L, checkpoint.getValue().getLastEventId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.java.profiling;
+
+import com.java.exceptions.UserException;
+import com.java.jwt.SecurityConstants;
+import com.java.model.RecordingStatus;
+import com.java.utils.JwtUtil;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrAnalyzerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void summarizesHotPathEventsByStageAndOutcome() throws Exception {
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<? extends StageEvent> type : List.of(TokenMintEvent.class, UserLookupEvent.class)) {
+                recording.enable(type).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            JwtUtil jwtUtil = new JwtUtil();
+            for (int i = 0; i < 3; i++) {
+                jwtUtil.generateToken("a@b.com");
+            }
+            jwtUtil.generateRefreshToken("a@b.com");
+            new UserLookupEvent("findByEmail").commit();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<JfrAnalyzer.StageSummary> summaries = JfrAnalyzer.summarize(file);
+
+        assertEquals(List.of("Token Minting (access)", "Token Minting (refresh)", "User Lookup (findByEmail)"),
+                summaries.stream().map(JfrAnalyzer.StageSummary::stage).toList());
+        JfrAnalyzer.StageSummary access = summaries.get(0);
+        assertEquals(StageEvent.OK, access.outcome());
+        assertEquals(3, access.count());
+        assertTrue(access.p50Millis() <= access.p99Millis() && access.p99Millis() <= access.maxMillis());
+        // Never told how it went
+        assertEquals(StageEvent.ERROR, summaries.get(2).outcome());
+    }
+
+    @Test
+    void recordingsAreDumpedAndStoppedIntoTheDirectory() throws Exception {
+        FlightRecordings recordings = new FlightRecordings(new ClassPathResource("jfr/hot-path.jfc"), dir,
+                Duration.ofMinutes(5), 10 * 1024 * 1024);
+        try {
+            RecordingStatus started = recordings.start("test");
+            assertEquals("RUNNING", started.getState());
+
+            new JwtUtil().generateToken(SecurityConstants.ACCESS_TOKEN);
+            RecordingStatus dumped = recordings.dump(started.getId());
+            assertTrue(Files.size(Path.of(dumped.getFile())) > 0);
+
+            RecordingStatus stopped = recordings.stop(started.getId());
+            assertEquals("STOPPED", stopped.getState());
+            assertNotEquals(dumped.getFile(), stopped.getFile());
+            assertTrue(recordings.list().isEmpty());
+            assertThrows(UserException.class, () -> recordings.stop(started.getId()));
+            assertThrows(UserException.class, () -> recordings.start("../escape"));
+        } finally {
+            recordings.closeAll();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.java.repository;
+
+import com.java.model.PhoneInfo;
+import com.java.model.UserBulkRequest;
+import com.java.model.UserDTO;
+import com.java.model.UserInfo;
+import com.java.model.UserKey;
+import com.java.model.UserPassword;
+import com.java.model.UserPhones;
+import com.java.service.PhoneStorageMigration;
+import com.java.sharding.UserShards;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "app.phones.migrate-batch-size=2"})
+@Import(PhoneStorageMigration.class)
+class UserRepositoryTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        UserShards userShards() {
+            return UserShards.single();
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PhoneStorageMigration phoneStorageMigration;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static UserInfo userWithPhones(String email, int phoneCount) {
+        UserInfo user = new UserInfo();
+        user.setEmail(email);
+        user.setName("Phone User");
+        user.setPassword("v1:encryptedPassword==");
+        user.setIsActive(true);
+        user.setPhones(new ArrayList<>());
+        for (int i = 0; i < phoneCount; i++) {
+            user.getPhones().add(new PhoneInfo("1234567" + i, "11", "57"));
+        }
+        return user;
+    }
+
+    @Test
+    void save_UserWithThreePhones_ShouldIssueSingleInsert() {
+        statistics.clear();
+
+        userRepo.save(userWithPhones("insert@test.com", 3));
+        entityManager.flush();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void save_MostPhonesASignUpAccepts_ShouldFitThePhonesColumn() {
+        UserInfo user = userWithPhones("maxphones@test.com", 0);
+        // Quotes and backslashes are escaped to two characters each
+        for (int i = 0; i < UserDTO.MAX_PHONES; i++) {
+            user.getPhones().add(new PhoneInfo("\"\\".repeat(10), "\"".repeat(10), "\\".repeat(10)));
+        }
+        userRepo.saveAndFlush(user);
+        entityManager.clear();
+
+        assertEquals(user.getPhones(), userRepo.findByEmail("maxphones@test.com").getPhones());
+    }
+
+    @Test
+    void findByEmail_UserWithThreePhones_ShouldReadPhonesInSameQuery() {
+        userRepo.save(userWithPhones("read@test.com", 3));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        UserInfo user = userRepo.findByEmail("read@test.com");
+
+        assertEquals(3, user.getPhones().size());
+        assertEquals(new PhoneInfo("12345672", "11", "57"), user.getPhones().get(2));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void migration_LegacyPhoneTable_ShouldMovePhonesIntoUserRow() {
+        UserInfo user = userRepo.save(userWithPhones("legacy@test.com", 0));
+        user.setPhones(null);
+        entityManager.flush();
+        jdbcTemplate.execute("create table phone_info (id bigint generated by default as identity primary key,"
+                + " number varchar(255), city_code varchar(255), country_code varchar(255), phone_id uuid)");
+        jdbcTemplate.update("insert into phone_info (number, city_code, country_code, phone_id) values ('1', '2', '3', ?)", user.getId());
+        jdbcTemplate.update("insert into phone_info (number, city_code, country_code, phone_id) values ('4', '5', '6', ?)", user.getId());
+
+        phoneStorageMigration.run(null);
+        entityManager.clear();
+
+        assertEquals(List.of(new PhoneInfo("1", "2", "3"), new PhoneInfo("4", "5", "6")),
+                userRepo.findByEmail("legacy@test.com").getPhones());
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from phone_info_legacy", Integer.class));
+    }
+
+    @Test
+    void migration_MoreUsersThanOneBatch_ShouldMigrateEveryPage() {
+        jdbcTemplate.execute("drop table if exists phone_info_legacy");
+        jdbcTemplate.execute("create table phone_info (id bigint generated by default as identity primary key,"
+                + " number varchar(255), city_code varchar(255), country_code varchar(255), phone_id uuid)");
+        for (int i = 0; i < 5; i++) {
+            UserInfo user = userRepo.save(userWithPhones("paged" + i + "@test.com", 0));
+            user.setPhones(null);
+            for (int phone = 0; phone <= i; phone++) {
+                jdbcTemplate.update("insert into phone_info (number, phone_id) values (?, ?)", i + "-" + phone, user.getId());
+            }
+        }
+        entityManager.flush();
+
+        phoneStorageMigration.run(null);
+        entityManager.clear();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, userRepo.findByEmail("paged" + i + "@test.com").getPhones().size());
+        }
+        assertEquals(15, jdbcTemplate.queryForObject("select count(*) from phone_info_legacy", Integer.class));
+        jdbcTemplate.execute("drop table phone_info_legacy");
+    }
+
+    @Test
+    void updateFieldsByEmail_NameOnly_ShouldIssueSingleUpdate() {
+        userRepo.save(userWithPhones("patch@test.com", 2));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        int updated = userRepo.updateFieldsByEmail("patch@test.com", 0, Map.of("name", "New Name"));
+
+        assertEquals(1, updated);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        UserInfo user = userRepo.findByEmail("patch@test.com");
+        assertEquals("New Name", user.getName());
+        assertEquals(1L, user.getVersion());
+        assertEquals(2, user.getPhones().size());
+    }
+
+    @Test
+    void phoneDelta_ShouldReadPhonesAndVersionThenIssueSingleUpdate() {
+        userRepo.save(userWithPhones("phones@test.com", 2));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        UserPhones current = userRepo.findPhonesByEmail("phones@test.com");
+        List<PhoneInfo> phones = new ArrayList<>(current.getPhones());
+        phones.remove(0);
+        phones.add(new PhoneInfo("7654321", "2", "57"));
+        int updated = userRepo.updateFieldsByEmail("phones@test.com", current.getVersion(), Map.of("phones", phones));
+
+        assertEquals(1, updated);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(List.of(new PhoneInfo("12345671", "11", "57"), new PhoneInfo("7654321", "2", "57")),
+                userRepo.findByEmail("phones@test.com").getPhones());
+    }
+
+    @Test
+    void updateFieldsByEmail_StaleVersion_ShouldUpdateNothing() {
+        userRepo.save(userWithPhones("stale@test.com", 0));
+        entityManager.flush();
+        userRepo.updateFieldsByEmail("stale@test.com", 0, Map.of("name", "First"));
+        entityManager.clear();
+
+        assertEquals(0, userRepo.updateFieldsByEmail("stale@test.com", 0, Map.of("name", "Second")));
+        assertEquals("First", userRepo.findByEmail("stale@test.com").getName());
+    }
+
+    @Test
+    void updateLastLoginByEmail_ShouldSetLastLoginWithoutBumpingTheVersion() {
+        userRepo.save(userWithPhones("login@test.com", 0));
+        entityManager.flush();
+        entityManager.clear();
+        LocalDateTime lastLogin = LocalDateTime.now().withNano(0);
+
+        assertEquals(1, userRepo.updateLastLoginByEmail("login@test.com", lastLogin));
+        entityManager.clear();
+
+        UserInfo user = userRepo.findByEmail("login@test.com");
+        assertEquals(lastLogin, user.getLastLogin());
+        assertEquals(0L, user.getVersion());
+        assertEquals(0, userRepo.countMatching(new UserBulkRequest(List.of("login@test.com"), null, null,
+                lastLogin.minusSeconds(1)), false));
+    }
+
+    @Test
+    void findStalePasswords_ShouldPageByIdAndReplaceOnlyUnchangedPasswords() {
+        UserInfo first = userWithPhones("stale1@test.com", 0);
+        first.setPassword("v0:Old1=pass");
+        UserInfo second = userWithPhones("stale2@test.com", 0);
+        second.setPassword("v0:Old2=pass");
+        userRepo.save(first);
+        userRepo.save(second);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<UserPassword> page = userRepo.findStalePasswords("v1:", null, 1);
+        List<UserPassword> next = userRepo.findStalePasswords("v1:", page.get(0).id(), 10);
+        assertEquals(1, page.size());
+        assertTrue(next.stream().noneMatch(user -> user.id().equals(page.get(0).id())));
+        assertTrue(next.stream().anyMatch(user -> user.password().startsWith("v0:Old")));
+
+        assertEquals(1, userRepo.replacePassword(first.getId(), "v0:Old1=pass", "v1:New1=pass"));
+        assertEquals(0, userRepo.replacePassword(second.getId(), "v0:changed", "v1:New2=pass"));
+        entityManager.clear();
+        UserInfo replaced = userRepo.findByEmail("stale1@test.com");
+        assertEquals("v1:New1=pass", replaced.getPassword());
+        assertEquals(0L, replaced.getVersion());
+        assertEquals("v0:Old2=pass", userRepo.findByEmail("stale2@test.com").getPassword());
+    }
+
+    @Test
+    void findKeys_ShouldPageMatchingUsersById() {
+        // Users committed by other tests' DDL are older
+        LocalDateTime start = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            userRepo.save(userWithPhones("bulk" + i + "@test.com", 1));
+        }
+        UserInfo inactive = userWithPhones("inactive@test.com", 0);
+        inactive.setIsActive(false);
+        userRepo.save(inactive);
+        entityManager.flush();
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1);
+
+        UserBulkRequest all = new UserBulkRequest(null, start, tomorrow, null);
+        List<UserKey> first = userRepo.findKeys(all, true, null, 3);
+        List<UserKey> second = userRepo.findKeys(all, true, first.get(2).id(), 3);
+
+        assertEquals(3, first.size());
+        assertEquals(2, second.size());
+        assertTrue(first.get(2).id().compareTo(second.get(0).id()) != 0);
+        assertEquals(5, userRepo.countMatching(all, true));
+        assertEquals(6, userRepo.countMatching(all, false));
+        assertEquals(0, userRepo.countMatching(new UserBulkRequest(null, tomorrow, null, null), false));
+        // never logged in, so inactive since creation
+        assertEquals(6, userRepo.countMatching(new UserBulkRequest(null, start, null, tomorrow), false));
+        assertEquals(List.of("bulk1@test.com"), userRepo.findKeys(new UserBulkRequest(
+                List.of("bulk1@test.com", "inactive@test.com"), null, null, null), true, null, 10)
+                .stream().map(UserKey::email).toList());
+    }
+
+    @Test
+    void deactivateByIdIn_ShouldIssueSingleUpdateOfActiveUsers() {
+        UserInfo active = userRepo.save(userWithPhones("active@test.com", 1));
+        UserInfo inactive = userWithPhones("already@test.com", 0);
+        inactive.setIsActive(false);
+        inactive = userRepo.save(inactive);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        int deactivated = userRepo.deactivateByIdIn(List.of(active.getId(), inactive.getId(), UUID.randomUUID()));
+
+        assertEquals(1, deactivated);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        UserInfo user = userRepo.findByEmail("active@test.com");
+        assertFalse(user.getIsActive());
+        assertEquals(1L, user.getVersion());
+        assertEquals(0L, userRepo.findByEmail("already@test.com").getVersion());
+    }
+
+    @Test
+    void purgeByIdIn_ShouldDeleteUsersAndTheirLegacyPhones() {
+        UserInfo purged = userRepo.save(userWithPhones("purged@test.com", 2));
+        UserInfo kept = userRepo.save(userWithPhones("kept@test.com", 1));
+        entityManager.flush();
+        jdbcTemplate.execute("drop table if exists phone_info_legacy");
+        jdbcTemplate.execute("create table phone_info_legacy (id bigint generated by default as identity primary key,"
+                + " number varchar(255), phone_id uuid references user_info (id))");
+        jdbcTemplate.update("insert into phone_info_legacy (number, phone_id) values ('1', ?)", purged.getId());
+        jdbcTemplate.update("insert into phone_info_legacy (number, phone_id) values ('2', ?)", kept.getId());
+        entityManager.clear();
+
+        assertEquals(1, userRepo.purgeByIdIn(List.of(purged.getId())));
+
+        assertNull(userRepo.findByEmail("purged@test.com"));
+        assertNotNull(userRepo.findByEmail("kept@test.com"));
+        assertEquals(List.of("2"), jdbcTemplate.queryForList("select number from phone_info_legacy", String.class));
+        jdbcTemplate.execute("drop table phone_info_legacy");
+    }
+}
@@ -0,0 +1,110 @@
+package com.java.requestlog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.java.exceptions.ErrorCode;
+import com.java.exceptions.ErrorResponses;
+import com.java.jwt.SecurityConstants;
+import com.java.tracing.Tracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogFilterTest {
+
+    private final List<RequestLogRecord> records = new CopyOnWriteArrayList<>();
+
+    // 2xx never logged, everything else always
+    private final RequestLogFilter filter = new RequestLogFilter(records::add, Tracer.noop(),
+            new double[] {1.0, 1.0, 0.0, 1.0, 1.0, 1.0});
+
+    @Test
+    void logsRouteStatusUserAndErrorCode() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/app/users/me");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/app/users/me");
+            req.setAttribute(SecurityConstants.AUTHENTICATED_USER_ATTRIBUTE, "ann@test.com");
+            req.setAttribute(ErrorResponses.ERROR_CODE_ATTRIBUTE, ErrorCode.VERSION_CONFLICT);
+            ((MockHttpServletResponse) res).setStatus(409);
+        });
+
+        RequestLogRecord record = records.get(0);
+        assertEquals("PATCH", record.method());
+        assertEquals("/app/users/me", record.route());
+        assertEquals(409, record.status());
+        assertEquals("ann@test.com", record.user());
+        assertEquals(ErrorCode.VERSION_CONFLICT, record.errorCode());
+        assertNull(record.traceId());
+        assertTrue(record.latencyMicros() >= 0);
+    }
+
+    @Test
+    void samplesByStatusClass() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/app/login"), new MockHttpServletResponse(),
+                (req, res) -> ((MockHttpServletResponse) res).setStatus(200));
+        assertTrue(records.isEmpty());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/nowhere"), new MockHttpServletResponse(),
+                (req, res) -> ((MockHttpServletResponse) res).setStatus(404));
+        assertEquals(1, records.size());
+        assertEquals("/nowhere", records.get(0).route());
+        assertNull(records.get(0).user());
+    }
+
+    @Test
+    void exceptionsAreLoggedAsServerErrors() {
+        assertThrows(ServletException.class, () -> filter.doFilter(new MockHttpServletRequest("GET", "/app/login"),
+                new MockHttpServletResponse(), (req, res) -> {
+                    throw new ServletException("boom");
+                }));
+        assertEquals(500, records.get(0).status());
+    }
+
+    @Test
+    void asyncSinkDropsAndCountsRecordsWhenFull() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> lines = new CopyOnWriteArrayList<>();
+        AsyncRequestLogSink sink = new AsyncRequestLogSink(objectMapper, 1, meterRegistry, line -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(line);
+        });
+
+        RequestLogRecord record = new RequestLogRecord(Instant.parse("2026-01-02T03:04:05Z"), "GET", "/app/login",
+                200, 1234, "ann@test.com", null, null);
+        sink.accept(record);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // the writer is busy, one record fits in the queue and the next is dropped
+        sink.accept(record);
+        sink.accept(record);
+        assertEquals(1.0, meterRegistry.counter("request.log.dropped").count());
+
+        release.countDown();
+        sink.close();
+        assertEquals(2, lines.size());
+        assertEquals("{\"timestamp\":\"2026-01-02T03:04:05Z\",\"method\":\"GET\",\"route\":\"/app/login\","
+                + "\"status\":200,\"latencyMicros\":1234,\"user\":\"ann@test.com\"}", lines.get(0));
+    }
+}
@@ -0,0 +1,152 @@
+package com.java.search;
+
+import com.java.model.UserSearchResult;
+import com.java.service.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex();
+        index.put(id(1), "Maria Lopez", "maria@test.com");
+        index.put(id(2), "Juan Perez", "jperez@test.com");
+        index.put(id(3), "Ana Maria Gomez", "ana.gomez@test.com");
+        index.put(id(4), "Marcos Diaz", "marcos.diaz@company.org");
+    }
+
+    private static String id(int n) {
+        return new UUID(0, n).toString();
+    }
+
+    private static List<String> ids(List<UserSearchResult> results) {
+        return results.stream().map(UserSearchResult::getId).toList();
+    }
+
+    @Test
+    void shortQueriesMatchFieldPrefixes() {
+        assertEquals(List.of(id(1), id(4)), ids(index.search("m", 10)));
+        assertEquals(List.of(id(1), id(4)), ids(index.search("MA", 10)));
+        assertEquals(List.of(id(3)), ids(index.search("an", 10)));
+        assertTrue(index.search("z", 10).isEmpty());
+    }
+
+    @Test
+    void longerQueriesMatchSubstringsRankedByMatchKind() {
+        // email prefix, then name word prefix
+        assertEquals(List.of(id(1), id(3)), ids(index.search("mari", 10)));
+        // substring of email only
+        assertEquals(List.of(id(4)), ids(index.search("company", 10)));
+        // every trigram present, but not contiguously
+        assertTrue(index.search("mariaz", 10).isEmpty());
+        assertEquals(List.of(id(1), id(2), id(3)), ids(index.search("@test.com", 10)));
+        assertEquals(2, index.search("@test.com", 2).size());
+    }
+
+    @Test
+    void updatesAndRemovalsAreVisible() {
+        index.put(id(2), "Juan Perez", "juan.perez@test.com");
+        assertEquals(List.of(id(2)), ids(index.search("juan.p", 10)));
+        assertTrue(index.search("jperez", 10).isEmpty());
+
+        index.remove(id(1));
+        assertEquals(List.of(id(4)), ids(index.search("m", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void renamesByEmailKeepTheUserId() {
+        index.onUserChanged(UserChangedEvent.renamed("jperez@test.com", "Pedro Perez"));
+        assertEquals(List.of(id(2)), ids(index.search("pedro", 10)));
+        assertTrue(index.search("juan", 10).isEmpty());
+
+        index.rename("nobody@test.com", "Nobody");
+        assertTrue(index.search("nobody", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void compactsAfterManyUpdates() {
+        for (int i = 0; i < 5000; i++) {
+            index.put(id(5), "Temp " + i, "temp" + i + "@test.com");
+        }
+        UserSearchResult result = index.search("temp4999", 10).get(0);
+        assertEquals(id(5), result.getId());
+        assertTrue(index.search("temp4998", 10).isEmpty());
+        assertEquals(5, index.size());
+        assertEquals(List.of(id(1), id(4)), ids(index.search("m", 10)));
+    }
+
+    @Test
+    void bestMatchesWinHoweverManyWeakerMatchesComeFirst() {
+        for (int i = 0; i < 10_000; i++) {
+            index.put(UUID.randomUUID().toString(), "Bulk User", "user" + i + "@mailer.example.com");
+        }
+        index.put(id(5), "Short Address", "a@mailer.io");
+        index.put(id(6), "Mailer Admin", "admin@example.com");
+        index.put(id(7), "Support", "mailer@example.com");
+
+        List<String> found = ids(index.search("mailer", 4));
+
+        // email prefix, name prefix, then the shortest substring matches
+        assertEquals(List.of(id(7), id(6), id(5)), found.subList(0, 3));
+        // short queries too: the shortest email prefix, not the first one indexed
+        index.put(id(8), "Late", "mo@x.io");
+        assertEquals(List.of(id(8)), ids(index.search("m", 1)));
+    }
+
+    @Test
+    void removalsKeepOtherUsersReachable() {
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String userId = UUID.randomUUID().toString();
+            index.put(userId, "Bulk User", "bulk" + i + "@test.com");
+            added.add(userId);
+        }
+        for (int i = 0; i < added.size(); i += 2) {
+            index.remove(added.get(i));
+        }
+        assertEquals(4 + 1500, index.size());
+        for (int i = 1; i < added.size(); i += 2) {
+            index.put(added.get(i), "Bulk User", "bulk" + i + "@test.com");
+        }
+        assertEquals(4 + 1500, index.size());
+        assertEquals(List.of(added.get(2999)), ids(index.search("bulk2999@", 10)));
+    }
+
+    @Test
+    void searchOver100kUsers_ShouldAnswerWithinAMillisecondAtP99() {
+        String[] first = {"Maria", "Juan", "Ana", "Marcos", "Lucia", "Pedro", "Sofia", "Diego"};
+        String[] last = {"Lopez", "Perez", "Gomez", "Diaz", "Torres", "Rojas", "Vargas", "Castro"};
+        for (int i = 0; i < 100_000; i++) {
+            String name = first[i % first.length] + " " + last[(i / first.length) % last.length];
+            index.put(UUID.randomUUID().toString(), name, name.toLowerCase().replace(' ', '.') + i + "@example.com");
+        }
+        // From narrow to matching every user, plus misses
+        String[] queries = {"m", "ma", "mar", "maria", "lopez", "pedro.r", "@example", "castro12", "sofia.vargas9", "zz"};
+
+        // Warm-up, then time every query separately
+        for (int i = 0; i < 20_000; i++) {
+            index.search(queries[i % queries.length], 10);
+        }
+        long[] nanos = new long[10_000];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            index.search(queries[i % queries.length], 10);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p99 = nanos[(int) (nanos.length * 0.99)];
+        assertTrue(p99 < 1_000_000, "p99 was " + p99 / 1000 + " us");
+    }
+}
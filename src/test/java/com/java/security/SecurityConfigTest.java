@@ -0,0 +1,104 @@
+package com.java.security;
+
+import com.java.exceptions.ErrorCode;
+import com.java.jwt.SecurityConstants;
+import com.java.utils.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The lean chain with every filter the application registers, CORS, tracing and the request log included
+@SpringBootTest(properties = {"encryption.keystore.create-if-missing=true", "app.tracing.enabled=true",
+        "app.request-log.enabled=true"})
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String bearer(String role) {
+        return "Bearer " + jwtUtil.generateToken("security.test@test.com", role);
+    }
+
+    @Test
+    void publicEndpoint_ShouldSkipTheSecurityFilters() throws Exception {
+        // A broken token would be rejected by the JWT filter, so reaching the controller proves it did not run
+        mockMvc.perform(get("/app/sign-up/status/unknown").header(SecurityConstants.JWT_HEADER, "Bearer not-a-token"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void protectedEndpoint_WithoutToken_ShouldAnswer401() throws Exception {
+        mockMvc.perform(get("/app/login"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.code").value(ErrorCode.INVALID_CREDENTIALS));
+    }
+
+    @Test
+    void protectedEndpoint_InvalidToken_ShouldAnswer401() throws Exception {
+        mockMvc.perform(get("/app/login").header(SecurityConstants.JWT_HEADER, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.code").value(ErrorCode.INVALID_CREDENTIALS));
+    }
+
+    @Test
+    void preflight_OnIgnoredEndpoint_ShouldGetCorsHeaders() throws Exception {
+        mockMvc.perform(options("/app/sign-up")
+                        .header(HttpHeaders.ORIGIN, "https://client.example.com")
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "POST"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "https://client.example.com"));
+    }
+
+    @Test
+    void adminEndpoint_UserToken_ShouldAnswer403() throws Exception {
+        mockMvc.perform(get("/app/admin/users/operations")
+                        .header(SecurityConstants.JWT_HEADER, bearer(SecurityConstants.ROLE_USER)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void adminEndpoint_AdminToken_ShouldBeAllowed() throws Exception {
+        mockMvc.perform(get("/app/admin/users/operations")
+                        .header(SecurityConstants.JWT_HEADER, bearer(SecurityConstants.ROLE_ADMIN)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void userSearch_UserToken_ShouldAnswer403() throws Exception {
+        mockMvc.perform(get("/app/admin/users/search").param("q", "test")
+                        .header(SecurityConstants.JWT_HEADER, bearer(SecurityConstants.ROLE_USER)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void userLookup_UserToken_ShouldAnswer403() throws Exception {
+        mockMvc.perform(post("/app/admin/users/lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\": [\"someone.else@test.com\"]}")
+                        .header(SecurityConstants.JWT_HEADER, bearer(SecurityConstants.ROLE_USER)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void userLookup_AdminToken_ShouldBeAllowed() throws Exception {
+        mockMvc.perform(post("/app/admin/users/lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\": [\"someone.else@test.com\"]}")
+                        .header(SecurityConstants.JWT_HEADER, bearer(SecurityConstants.ROLE_ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.misses[0]").value("someone.else@test.com"));
+    }
+}
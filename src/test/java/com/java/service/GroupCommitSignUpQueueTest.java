@@ -0,0 +1,143 @@
+package com.java.service;
+
+import com.java.exceptions.SignUpQueueFullException;
+import com.java.exceptions.UserException;
+import com.java.model.SignUpStatus;
+import com.java.model.UserDTO;
+import com.java.repository.UserRepository;
+import com.java.sharding.UserShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitSignUpQueueTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserRepository userRepo;
+
+    @InjectMocks
+    private GroupCommitSignUpQueue signUpQueue;
+
+    private void start(int capacity, int batchSize, long maxLatencyMs) {
+        ReflectionTestUtils.setField(signUpQueue, "userShards", UserShards.single());
+        ReflectionTestUtils.setField(signUpQueue, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(signUpQueue, "batchSize", batchSize);
+        ReflectionTestUtils.setField(signUpQueue, "maxLatencyMs", maxLatencyMs);
+        ReflectionTestUtils.setField(signUpQueue, "statusTtlMs", 60_000L);
+        signUpQueue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        signUpQueue.stop();
+    }
+
+    private static UserDTO user(String email) {
+        UserDTO user = new UserDTO();
+        user.setEmail(email);
+        user.setPassword("a2asfGfdfdf3");
+        user.setPhones(List.of());
+        return user;
+    }
+
+    private SignUpStatus awaitResolved(String requestId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            SignUpStatus status = signUpQueue.getStatus(requestId);
+            if (status.getState() != SignUpStatus.State.PENDING) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("sign-up " + requestId + " not resolved");
+    }
+
+    @Test
+    void submit_ShouldGroupQueuedUsersIntoOneCommit() throws Exception {
+        start(100, 10, 200);
+        UserDTO created = new UserDTO();
+        created.setToken("token");
+        when(userService.registerUsers(anyList())).thenAnswer(invocation -> {
+            List<UserDTO> users = invocation.getArgument(0);
+            return users.stream().map(u -> SignUpStatus.created(created)).toList();
+        });
+
+        SignUpStatus first = signUpQueue.submit(user("a@test.com"));
+        SignUpStatus second = signUpQueue.submit(user("b@test.com"));
+
+        assertEquals(SignUpStatus.State.PENDING, first.getState());
+        assertEquals(SignUpStatus.State.CREATED, awaitResolved(first.getRequestId()).getState());
+        assertEquals(SignUpStatus.State.CREATED, awaitResolved(second.getRequestId()).getState());
+        verify(userService, times(1)).registerUsers(argThat(users -> users.size() == 2));
+    }
+
+    @Test
+    void submit_EmailAlreadyQueued_ShouldRejectSynchronously() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        start(100, 10, 1);
+        when(userService.registerUsers(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(SignUpStatus.created(new UserDTO()));
+        });
+
+        signUpQueue.submit(user("a@test.com"));
+        UserException thrown = assertThrows(UserException.class, () -> signUpQueue.submit(user("a@test.com")));
+        release.countDown();
+
+        assertEquals("User already exist with email: a@test.com", thrown.getMessage());
+    }
+
+    @Test
+    void submit_QueueFull_ShouldThrowSignUpQueueFullException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        start(1, 1, 1);
+        lenient().when(userService.registerUsers(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(SignUpStatus.created(new UserDTO()));
+        });
+
+        signUpQueue.submit(user("a@test.com"));
+        Thread.sleep(100); // persister picks up the first user and blocks
+        signUpQueue.submit(user("b@test.com"));
+
+        assertThrows(SignUpQueueFullException.class, () -> signUpQueue.submit(user("c@test.com")));
+        release.countDown();
+    }
+
+    @Test
+    void persist_ShardFailure_ShouldFailTheBatchAndReleaseItsEmails() throws Exception {
+        start(100, 10, 1);
+        UserShards failingShards = spy(UserShards.single());
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doCallRealMethod()
+                .when(failingShards).on(anyInt(), any());
+        ReflectionTestUtils.setField(signUpQueue, "userShards", failingShards);
+        when(userService.registerUsers(anyList())).thenReturn(List.of(SignUpStatus.created(new UserDTO())));
+
+        SignUpStatus failed = awaitResolved(signUpQueue.submit(user("a@test.com")).getRequestId());
+
+        assertEquals(SignUpStatus.State.FAILED, failed.getState());
+        assertEquals("connection refused", failed.getDetail());
+        // The email is free again, so the user can retry
+        SignUpStatus retried = signUpQueue.submit(user("a@test.com"));
+        assertEquals(SignUpStatus.State.CREATED, awaitResolved(retried.getRequestId()).getState());
+    }
+}
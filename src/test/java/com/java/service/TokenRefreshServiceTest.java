@@ -0,0 +1,109 @@
+package com.java.service;
+
+import com.java.jwt.SecurityConstants;
+import com.java.jwt.TokenRevocationList;
+import com.java.model.TokenResponse;
+import com.java.model.UserInfo;
+import com.java.repository.UserRepository;
+import com.java.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TokenRefreshServiceTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private final TokenRevocationList revocationList = new TokenRevocationList();
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final TokenRefreshService service = new TokenRefreshService();
+    private final UserInfo user = new UserInfo();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(service, "revocationList", revocationList);
+        ReflectionTestUtils.setField(service, "userRepo", userRepo);
+        user.setEmail(EMAIL);
+        user.setIsActive(true);
+    }
+
+    private String accessTokenRole(TokenResponse response) {
+        return String.valueOf(Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SecurityConstants.JWT_KEY.getBytes()))
+                .build().parseClaimsJws(response.getToken()).getBody().get(SecurityConstants.ROLE_CLAIM));
+    }
+
+    @Test
+    void refresh_ValidToken_ShouldIssueAccessTokenAndRotateRefreshToken() {
+        String refreshToken = jwtUtil.generateRefreshToken(EMAIL);
+
+        TokenResponse response = service.refresh(refreshToken);
+
+        assertEquals(900, response.getExpiresIn());
+        assertNotEquals(refreshToken, response.getRefreshToken());
+        Claims rotated = jwtUtil.parseRefreshToken(response.getRefreshToken());
+        assertEquals(EMAIL, rotated.getSubject());
+        // the access token is no refresh token
+        assertThrows(Exception.class, () -> jwtUtil.parseRefreshToken(response.getToken()));
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void refresh_ReusedToken_ShouldBeRejectedAndRevokeTheUsersOtherTokens() {
+        String refreshToken = jwtUtil.generateRefreshToken(EMAIL);
+        TokenResponse first = service.refresh(refreshToken);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(refreshToken));
+        // the token handed out by the first exchange is now revoked as well
+        assertThrows(BadCredentialsException.class, () -> service.refresh(first.getRefreshToken()));
+    }
+
+    @Test
+    void refresh_AccessOrForgedToken_ShouldBeRejected() {
+        assertThrows(BadCredentialsException.class, () -> service.refresh(jwtUtil.generateToken(EMAIL)));
+        assertThrows(BadCredentialsException.class, () -> service.refresh("not.a.token"));
+        assertThrows(BadCredentialsException.class, () -> service.refresh(""));
+    }
+
+    @Test
+    void refresh_RevokedAtDeactivation_ShouldBeRejected() {
+        String refreshToken = jwtUtil.generateRefreshToken(EMAIL);
+        revocationList.revokeAll(EMAIL);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(refreshToken));
+    }
+
+    @Test
+    void refresh_CheckUser_DeactivatedOrDeletedUser_ShouldBeRejected() {
+        ReflectionTestUtils.setField(service, "checkUser", true);
+        when(userRepo.findByEmail(EMAIL)).thenReturn(user);
+        user.setIsActive(false);
+        assertThrows(BadCredentialsException.class, () -> service.refresh(jwtUtil.generateRefreshToken(EMAIL)));
+
+        // a fresh list, so the revocation above does not decide the second case
+        ReflectionTestUtils.setField(service, "revocationList", new TokenRevocationList());
+        when(userRepo.findByEmail(EMAIL)).thenReturn(null);
+        assertThrows(BadCredentialsException.class, () -> service.refresh(jwtUtil.generateRefreshToken(EMAIL)));
+    }
+
+    @Test
+    void refresh_Admin_ShouldKeepTheRoleOfTheRefreshToken() {
+        TokenResponse response = service.refresh(jwtUtil.generateRefreshToken(EMAIL, SecurityConstants.ROLE_ADMIN));
+
+        assertEquals(SecurityConstants.ROLE_ADMIN, accessTokenRole(response));
+        assertEquals(SecurityConstants.ROLE_ADMIN,
+                jwtUtil.parseRefreshToken(response.getRefreshToken()).get(SecurityConstants.ROLE_CLAIM));
+        assertEquals(SecurityConstants.ROLE_USER, accessTokenRole(service.refresh(jwtUtil.generateRefreshToken(EMAIL))));
+    }
+}
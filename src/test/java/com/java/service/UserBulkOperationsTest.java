@@ -0,0 +1,162 @@
+package com.java.service;
+
+import com.java.exceptions.UserException;
+import com.java.jwt.TokenIssuer;
+import com.java.jwt.TokenRevocationList;
+import com.java.model.BulkOperationStatus;
+import com.java.model.UserBulkRequest;
+import com.java.model.UserKey;
+import com.java.repository.UserRepository;
+import com.java.sharding.UserShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkOperationsTest {
+
+    @Mock
+    private UserRepository userRepo;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TokenIssuer tokenIssuer;
+
+    private final TokenRevocationList revocationList = new TokenRevocationList();
+
+    @InjectMocks
+    private UserBulkOperations bulkOperations;
+
+    private static final UserKey A = new UserKey(UUID.randomUUID(), "a@test.com");
+    private static final UserKey B = new UserKey(UUID.randomUUID(), "b@test.com");
+    private static final UserKey C = new UserKey(UUID.randomUUID(), "c@test.com");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkOperations, "userShards", UserShards.single());
+        ReflectionTestUtils.setField(bulkOperations, "revocationList", revocationList);
+        ReflectionTestUtils.setField(bulkOperations, "chunkSize", 2);
+        ReflectionTestUtils.setField(bulkOperations, "pauseMs", 0L);
+        ReflectionTestUtils.setField(bulkOperations, "queueCapacity", 10);
+        ReflectionTestUtils.setField(bulkOperations, "statusTtlMs", 60_000L);
+        bulkOperations.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bulkOperations.stop();
+    }
+
+    private void inTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private BulkOperationStatus awaitFinished(String id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            BulkOperationStatus status = bulkOperations.getStatus(id);
+            if (status.getState() == BulkOperationStatus.State.DONE || status.getState() == BulkOperationStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("bulk operation " + id + " not finished");
+    }
+
+    @Test
+    void purge_ShouldDeleteInChunksAndInvalidateUsers() throws Exception {
+        inTransactions();
+        UserBulkRequest request = new UserBulkRequest(null, null, null, LocalDateTime.now());
+        when(userRepo.countMatching(request, false)).thenReturn(3L);
+        when(userRepo.findKeys(request, false, null, 2)).thenReturn(List.of(A, B));
+        when(userRepo.findKeys(request, false, B.id(), 2)).thenReturn(List.of(C));
+        when(userRepo.purgeByIdIn(List.of(A.id(), B.id()))).thenReturn(2);
+        when(userRepo.purgeByIdIn(List.of(C.id()))).thenReturn(1);
+
+        Date issuedBefore = new Date();
+        BulkOperationStatus status = awaitFinished(bulkOperations.purge(request).getId());
+
+        assertEquals(BulkOperationStatus.State.DONE, status.getState());
+        assertEquals(3L, status.getMatched());
+        assertEquals(3, status.getProcessed());
+        verify(eventPublisher).publishEvent(UserChangedEvent.removed(A.id().toString()));
+        verify(eventPublisher).publishEvent(UserChangedEvent.removed(C.id().toString()));
+        verify(tokenIssuer).forget("b@test.com");
+        assertTrue(revocationList.isRevoked("c@test.com", null, issuedBefore));
+        verify(userRepo, never()).deactivateByIdIn(any());
+    }
+
+    @Test
+    void deactivate_ShouldSplitEmailListsIntoChunks() throws Exception {
+        inTransactions();
+        UserBulkRequest request = new UserBulkRequest(List.of("a@test.com", "b@test.com", "a@test.com", "c@test.com"),
+                null, null, null);
+        when(userRepo.countMatching(request, true)).thenReturn(3L);
+        when(userRepo.findKeys(eq(new UserBulkRequest(List.of("a@test.com", "b@test.com"), null, null, null)),
+                eq(true), isNull(), eq(2))).thenReturn(List.of(A, B));
+        when(userRepo.findKeys(eq(new UserBulkRequest(List.of("a@test.com", "b@test.com"), null, null, null)),
+                eq(true), eq(B.id()), eq(2))).thenReturn(List.of());
+        when(userRepo.findKeys(eq(new UserBulkRequest(List.of("c@test.com"), null, null, null)),
+                eq(true), isNull(), eq(2))).thenReturn(List.of(C));
+        when(userRepo.deactivateByIdIn(any())).thenAnswer(invocation -> invocation.<List<UUID>>getArgument(0).size());
+
+        BulkOperationStatus status = awaitFinished(bulkOperations.deactivate(request).getId());
+
+        assertEquals(BulkOperationStatus.State.DONE, status.getState());
+        assertEquals(3, status.getProcessed());
+        verify(userRepo).deactivateByIdIn(List.of(A.id(), B.id()));
+        verify(userRepo).deactivateByIdIn(List.of(C.id()));
+        verify(tokenIssuer).forget("a@test.com");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void failure_ShouldBeReportedWithProgressSoFar() throws Exception {
+        inTransactions();
+        UserBulkRequest request = new UserBulkRequest(null, LocalDateTime.now().minusDays(1), null, null);
+        when(userRepo.countMatching(request, true)).thenReturn(4L);
+        when(userRepo.findKeys(any(), anyBoolean(), any(), anyInt())).thenReturn(List.of(A, B));
+        when(userRepo.deactivateByIdIn(any())).thenReturn(2).thenThrow(new IllegalStateException("database down"));
+
+        BulkOperationStatus status = awaitFinished(bulkOperations.deactivate(request).getId());
+
+        assertEquals(BulkOperationStatus.State.FAILED, status.getState());
+        assertEquals("database down", status.getDetail());
+        assertEquals(2, status.getProcessed());
+        assertEquals(List.of(status), bulkOperations.getStatuses());
+    }
+
+    @Test
+    void submit_WithoutCriteria_ShouldThrowException() {
+        assertThrows(UserException.class, () -> bulkOperations.purge(new UserBulkRequest(List.of(), null, null, null)));
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(UserException.class, () -> bulkOperations.deactivate(new UserBulkRequest(null, now, now, null)));
+        verifyNoInteractions(userRepo);
+    }
+}
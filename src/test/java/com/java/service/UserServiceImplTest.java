@@ -1,13 +1,28 @@
 package com.java.service;
 
 
+import com.java.audit.AuditLog;
+import com.java.audit.AuditRecord;
+import com.java.datasource.ReadYourWritesTracker;
+import com.java.jwt.IssuedTokens;
+import com.java.jwt.SecurityConstants;
+import com.java.jwt.TokenIssuer;
+import com.java.jwt.TokenRevocationList;
+import com.java.exceptions.InvalidCredentialsException;
+import com.java.exceptions.UserConflictException;
 import com.java.exceptions.UserException;
 import com.java.model.PhoneDTO;
+import com.java.model.PhoneInfo;
+import com.java.model.SignUpStatus;
 import com.java.model.UserDTO;
 import com.java.model.UserInfo;
+import com.java.model.UserLookupResponse;
+import com.java.model.UserPatchRequest;
+import com.java.model.UserPatchResponse;
+import com.java.model.UserPhones;
+import com.java.outbox.UserEventOutbox;
 import com.java.repository.UserRepository;
 import com.java.utils.EncryptionUtil;
-import com.java.utils.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,16 +30,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -35,11 +57,26 @@ class UserServiceImplTest {
     private UserRepository userRepo;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private TokenIssuer tokenIssuer;
+
+    @Mock
+    private TokenRevocationList revocationList;
 
     @Mock
     private EncryptionUtil encryptionUtil;
 
+    @Mock
+    private ReadYourWritesTracker readYourWrites;
+
+    @Mock
+    private UserEventOutbox userEventOutbox;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AuditLog auditLog;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -67,7 +104,7 @@ class UserServiceImplTest {
         mockUserInfo.setEmail("test@example.com");
         mockUserInfo.setPassword("encrypted:rawPassword123");
         mockUserInfo.setToken("someInitialToken");
-        mockUserInfo.setIsActive(false);
+        mockUserInfo.setIsActive(true);
         mockUserInfo.setCreated(LocalDateTime.of(2025, 1, 1, 10, 0));
         mockUserInfo.setLastLogin(null);
         mockUserInfo.setPhones(new ArrayList<>()); // Simplified phone list
@@ -79,7 +116,7 @@ class UserServiceImplTest {
         // Arrange
         when(userRepo.findByEmail(anyString())).thenReturn(null);
         when(encryptionUtil.encrypt(anyString())).thenReturn("encryptedPassword");
-        when(jwtUtil.generateToken(anyString())).thenReturn("newUserToken");
+        when(tokenIssuer.issue(anyString(), anyString())).thenReturn(new IssuedTokens("newUserToken", "refreshToken", "refreshTokenId", new Date(), SecurityConstants.ROLE_USER));
 
         when(userRepo.save(any(UserInfo.class))).thenAnswer(invocation -> {
             UserInfo savedUser = invocation.getArgument(0);
@@ -105,6 +142,9 @@ class UserServiceImplTest {
 
         // Verify that the saved UserInfo had the correct values
         verify(userRepo).save(any(UserInfo.class));
+        verify(userEventOutbox, times(1)).userRegistered(any(UserInfo.class));
+        verify(auditLog, times(1)).recordOnCompletion(AuditRecord.Type.SIGN_UP, testValue);
+        verify(eventPublisher, times(1)).publishEvent(new UserChangedEvent(testValue.toString(), "Test User", "test@example.com", false));
     }
 
     @Test
@@ -125,11 +165,49 @@ class UserServiceImplTest {
         verify(userRepo, times(1)).findByEmail(mockUserDTO.getEmail());
         verify(userRepo, never()).save(any(UserInfo.class));
         verify(encryptionUtil, never()).encrypt(anyString());
-        verify(jwtUtil, never()).generateToken(anyString());
+        verify(tokenIssuer, never()).issue(anyString(), anyString());
+        verify(userEventOutbox, never()).userRegistered(any(UserInfo.class));
+        verify(auditLog, times(1)).record(AuditRecord.Type.SIGN_UP, null, AuditRecord.Result.FAILURE);
+    }
+
+    @Test
+    void registerUsers_DuplicatesInBatchAndDatabase_ShouldOnlySaveFirstNewOccurrence() {
+        UserDTO existing = new UserDTO();
+        existing.setEmail("test@example.com");
+        existing.setPassword("rawPassword123");
+        existing.setPhones(List.of());
+
+        UserDTO fresh = new UserDTO();
+        fresh.setEmail("fresh@example.com");
+        fresh.setPassword("rawPassword123");
+        fresh.setPhones(List.of());
+
+        UserDTO freshAgain = new UserDTO();
+        freshAgain.setEmail("fresh@example.com");
+        freshAgain.setPassword("rawPassword123");
+        freshAgain.setPhones(List.of());
+
+        when(userRepo.findByEmailIn(anyList())).thenReturn(List.of(mockUserInfo));
+        when(encryptionUtil.encrypt(anyString())).thenReturn("encryptedPassword");
+        when(tokenIssuer.issue("fresh@example.com", SecurityConstants.ROLE_USER)).thenReturn(new IssuedTokens("freshToken", "refreshToken", "refreshTokenId", new Date(), SecurityConstants.ROLE_USER));
+
+        List<SignUpStatus> statuses = userService.registerUsers(List.of(existing, fresh, freshAgain));
+
+        assertEquals(3, statuses.size());
+        assertEquals(SignUpStatus.State.FAILED, statuses.get(0).getState());
+        assertEquals(SignUpStatus.State.CREATED, statuses.get(1).getState());
+        assertEquals("freshToken", statuses.get(1).getUser().getToken());
+        assertEquals(SignUpStatus.State.FAILED, statuses.get(2).getState());
+        assertEquals("User already exist with email: fresh@example.com", statuses.get(2).getDetail());
+
+        verify(userRepo, times(1)).saveAll(argThat(users -> ((List<UserInfo>) users).size() == 1));
+        verify(userEventOutbox, times(1)).userRegistered(any(UserInfo.class));
+        // Both duplicates are audited like a single duplicate sign-up: without a user id
+        verify(auditLog, times(2)).record(AuditRecord.Type.SIGN_UP, null, AuditRecord.Result.FAILURE);
     }
 
     @Test
-    void loginUser_Success() {
+    void loginUser_Success() throws Exception {
         // Arrange
         String userEmail = mockUserDTO.getEmail();
         String newToken = "newlyGeneratedToken";
@@ -137,19 +215,12 @@ class UserServiceImplTest {
 
         // 1. Mock dependencies
         when(userRepo.findByEmail(userEmail)).thenReturn(mockUserInfo);
-        when(jwtUtil.generateToken(userEmail)).thenReturn(newToken);
-
-        // 2. Mock userRepo.save to update the token/date and return the updated object
-        when(userRepo.save(any(UserInfo.class))).thenAnswer(invocation -> {
-            UserInfo savedUser = invocation.getArgument(0);
-            savedUser.setToken(newToken);
-            return savedUser;
-        });
+        when(tokenIssuer.issue(userEmail, SecurityConstants.ROLE_USER)).thenReturn(new IssuedTokens(newToken, "refreshToken", "refreshTokenId", new Date(), SecurityConstants.ROLE_USER));
 
-        // 3. Mock EncryptionUtil.decrypt
+        // 2. Mock EncryptionUtil.decrypt
         when(encryptionUtil.decrypt(mockUserInfo.getPassword())).thenReturn("rawPassword123");
 
-        // 4. Mock static SecurityContextHolder (required for loginUser)
+        // 3. Mock static SecurityContextHolder (required for loginUser)
         try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = mockStatic(SecurityContextHolder.class)) {
 
             // Setup SecurityContext and Authentication mocks
@@ -168,16 +239,148 @@ class UserServiceImplTest {
             verify(userRepo, times(1)).findByEmail(userEmail);
 
             // 2. Verify token generation
-            verify(jwtUtil, times(1)).generateToken(userEmail);
+            verify(tokenIssuer, times(1)).issue(userEmail, SecurityConstants.ROLE_USER);
 
-            // 3. Verify save was called and updated token/lastLogin
-            verify(userRepo, times(1)).save(any(UserInfo.class));
+            // 3. Verify only lastLogin is written, the loaded entity is not merged back
+            verify(userRepo, never()).save(any(UserInfo.class));
+            verify(userRepo, times(1)).updateLastLoginByEmail(eq(userEmail), any(LocalDateTime.class));
 
             // 4. Verify the returned object has the correct decrypted password and new token
             assertNotNull(result);
             assertEquals("rawPassword123", result.getPassword());
             assertEquals(newToken, result.getToken());
-            // Since we mocked the save to return the same object, the decrypted password should be set on it
+            assertNotNull(result.getLastLogin());
+            verify(auditLog, times(1)).record(AuditRecord.Type.LOGIN, mockUserInfo.getId(), AuditRecord.Result.SUCCESS);
+        }
+    }
+
+    @Test
+    void loginUser_DeactivatedUser_ShouldBeRejected() {
+        mockUserInfo.setIsActive(false);
+        when(userRepo.findByEmail(mockUserInfo.getEmail())).thenReturn(mockUserInfo);
+
+        try (MockedStatic<SecurityContextHolder> ignored = signedInAs(mockUserInfo.getEmail())) {
+            assertThrows(InvalidCredentialsException.class, () -> userService.loginUser());
+            verify(tokenIssuer, never()).issue(anyString(), anyString());
+            verify(userRepo, never()).save(any(UserInfo.class));
+            verify(auditLog).record(AuditRecord.Type.LOGIN, mockUserInfo.getId(), AuditRecord.Result.FAILURE);
+        }
+    }
+
+    @Test
+    void lookupUsers_MixedKeys_ShouldQueryInChunksAndKeepInputOrder() {
+        ReflectionTestUtils.setField(userService, "lookupChunkSize", 2);
+
+        UserInfo byEmail = new UserInfo();
+        byEmail.setId(UUID.randomUUID());
+        byEmail.setEmail("other@example.com");
+        byEmail.setPhones(List.of(new PhoneInfo("12345678", "11", "57")));
+
+        when(userRepo.findByEmailIn(anyList())).thenAnswer(invocation -> {
+            List<String> emails = invocation.getArgument(0);
+            return emails.contains("other@example.com") ? List.of(byEmail) : List.of();
+        });
+        when(userRepo.findByIdIn(anyList())).thenReturn(List.of(mockUserInfo));
+
+        List<String> keys = List.of("missing@example.com", mockUserInfo.getId().toString(), "not-an-id",
+                "a@example.com", "other@example.com", "other@example.com");
+        UserLookupResponse response = userService.lookupUsers(keys);
+
+        // 3 distinct emails in chunks of 2, one id, nothing for the malformed key
+        verify(userRepo, times(2)).findByEmailIn(anyList());
+        verify(userRepo, times(1)).findByIdIn(anyList());
+        verify(userRepo, never()).findByEmail(anyString());
+
+        assertEquals(keys, response.getResults().stream().map(UserLookupResponse.Result::getKey).toList());
+        assertNull(response.getResults().get(0).getUser());
+        assertEquals("test@example.com", response.getResults().get(1).getUser().getEmail());
+        assertEquals("12345678", response.getResults().get(4).getUser().getPhones().get(0).getNumber());
+        assertEquals(byEmail.getId().toString(), response.getResults().get(5).getUser().getId());
+        assertEquals(List.of("missing@example.com", "not-an-id", "a@example.com"), response.getMisses());
+    }
+
+    private static MockedStatic<SecurityContextHolder> signedInAs(String email) {
+        MockedStatic<SecurityContextHolder> holder = mockStatic(SecurityContextHolder.class);
+        SecurityContext securityContext = mock(SecurityContext.class);
+        Authentication authentication = mock(Authentication.class);
+        holder.when(SecurityContextHolder::getContext).thenReturn(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getName()).thenReturn(email);
+        return holder;
+    }
+
+    @Test
+    void updateCurrentUser_NameAndPhoneDelta_ShouldUpdateOnlyChangedFields() throws Exception {
+        String email = mockUserInfo.getEmail();
+        UserPhones current = mock(UserPhones.class);
+        when(current.getVersion()).thenReturn(3L);
+        when(current.getPhones()).thenReturn(List.of(new PhoneInfo("1", "2", "3"), new PhoneInfo("4", "5", "6")));
+        when(userRepo.findPhonesByEmail(email)).thenReturn(current);
+        when(userRepo.updateFieldsByEmail(eq(email), eq(3L), anyMap())).thenReturn(1);
+
+        UserPatchRequest patch = new UserPatchRequest("New Name", null,
+                List.of(new PhoneDTO("7", "8", "9"), new PhoneDTO("4", "5", "6")), List.of(new PhoneDTO("1", "2", "3")), 3L);
+        try (MockedStatic<SecurityContextHolder> ignored = signedInAs(email)) {
+            UserPatchResponse response = userService.updateCurrentUser(patch);
+
+            assertEquals(4L, response.getVersion());
+            verify(userRepo).updateFieldsByEmail(email, 3L, Map.of("name", "New Name",
+                    "phones", List.of(new PhoneInfo("4", "5", "6"), new PhoneInfo("7", "8", "9"))));
+            verify(eventPublisher).publishEvent(UserChangedEvent.renamed(email, "New Name"));
+            verify(encryptionUtil, never()).encrypt(anyString());
+        }
+    }
+
+    @Test
+    void updateCurrentUser_StaleVersion_ShouldThrowConflict() {
+        String email = mockUserInfo.getEmail();
+        when(userRepo.updateFieldsByEmail(eq(email), eq(1L), anyMap())).thenReturn(0);
+        when(userRepo.existsByEmail(email)).thenReturn(true);
+
+        try (MockedStatic<SecurityContextHolder> ignored = signedInAs(email)) {
+            assertThrows(UserConflictException.class,
+                    () -> userService.updateCurrentUser(new UserPatchRequest("New Name", null, null, null, 1L)));
+            verify(userRepo, never()).findPhonesByEmail(anyString());
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+    }
+
+    @Test
+    void updateCurrentUser_Password_ShouldRevokeOldTokensAndReturnNewOnes() throws Exception {
+        String email = mockUserInfo.getEmail();
+        when(encryptionUtil.encrypt("Newpass1x2")).thenReturn("encrypted");
+        when(userRepo.updateFieldsByEmail(email, 2L, Map.of("password", "encrypted"))).thenReturn(1);
+        when(tokenIssuer.issue(email, SecurityConstants.ROLE_USER))
+                .thenReturn(new IssuedTokens("access", "refresh", "id", new Date(), SecurityConstants.ROLE_USER));
+
+        try (MockedStatic<SecurityContextHolder> ignored = signedInAs(email)) {
+            UserPatchResponse response = userService.updateCurrentUser(
+                    new UserPatchRequest(null, "Newpass1x2", null, null, 2L));
+
+            assertEquals(3L, response.getVersion());
+            assertEquals("access", response.getToken());
+            assertEquals("refresh", response.getRefreshToken());
+            verify(revocationList).revokeAll(email);
+            verify(tokenIssuer).forget(email);
+        }
+    }
+
+    @Test
+    void updateCurrentUser_TooManyPhones_ShouldReject() {
+        String email = mockUserInfo.getEmail();
+        UserPhones current = mock(UserPhones.class);
+        when(current.getVersion()).thenReturn(1L);
+        List<PhoneInfo> phones = new ArrayList<>();
+        for (int i = 0; i < UserDTO.MAX_PHONES; i++) {
+            phones.add(new PhoneInfo(String.valueOf(i), "1", "57"));
+        }
+        when(current.getPhones()).thenReturn(phones);
+        when(userRepo.findPhonesByEmail(email)).thenReturn(current);
+
+        try (MockedStatic<SecurityContextHolder> ignored = signedInAs(email)) {
+            assertThrows(UserException.class, () -> userService.updateCurrentUser(
+                    new UserPatchRequest(null, null, List.of(new PhoneDTO("99", "1", "57")), null, 1L)));
+            verify(userRepo, never()).updateFieldsByEmail(anyString(), anyLong(), anyMap());
         }
     }
-}
\ No newline at end of file
+}
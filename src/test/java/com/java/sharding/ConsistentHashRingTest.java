@@ -0,0 +1,46 @@
+package com.java.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void shardFor_ShouldIgnoreCaseAndSurroundingWhitespace() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+
+        assertEquals(ring.shardFor("user@test.com"), ring.shardFor("  User@Test.COM "));
+    }
+
+    @Test
+    void shardFor_ShouldSpreadKeysOverAllShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+
+        for (int i = 0; i < 10_000; i++) {
+            counts[ring.shardFor("user" + i + "@test.com")]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 1_500 && count < 3_500, "unbalanced shard: " + count);
+        }
+    }
+
+    @Test
+    void shardFor_AddingShard_ShouldOnlyMoveKeysToNewShard() {
+        ConsistentHashRing before = new ConsistentHashRing(3, 128);
+        ConsistentHashRing after = new ConsistentHashRing(4, 128);
+        int moved = 0;
+
+        for (int i = 0; i < 10_000; i++) {
+            String email = "user" + i + "@test.com";
+            if (before.shardFor(email) != after.shardFor(email)) {
+                assertEquals(3, after.shardFor(email));
+                moved++;
+            }
+        }
+
+        assertTrue(moved > 1_500 && moved < 3_500, "moved " + moved);
+    }
+}
@@ -0,0 +1,66 @@
+package com.java.sharding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRebalancerTest {
+
+    private static final int USERS = 200;
+
+    private final List<DataSource> shards = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            DataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard-" + i + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("create table user_info (id uuid primary key, email varchar(255) unique, name varchar(255),"
+                    + " phones varchar(2000))");
+            shards.add(dataSource);
+        }
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shards.get(shard));
+    }
+
+    @Test
+    void rebalance_ShardAdded_ShouldMoveUsersWithPhonesToOwningShard() {
+        // Users placed with a two shard ring, shard 2 newly added and still empty
+        ConsistentHashRing oldRing = new ConsistentHashRing(2, 64);
+        for (int i = 0; i < USERS; i++) {
+            String email = "user" + i + "@test.com";
+            UUID id = UUID.randomUUID();
+            JdbcTemplate shard = jdbc(oldRing.shardFor(email));
+            shard.update("insert into user_info (id, email, name, phones) values (?, ?, ?, ?)",
+                    id, email, "User " + i, "[[\"" + i + "\",\"1\",\"57\"]]");
+        }
+
+        ConsistentHashRing newRing = new ConsistentHashRing(3, 64);
+        long moved = new ShardRebalancer(shards, new UserShards(newRing), 50).rebalance();
+
+        assertTrue(moved > 0);
+        int total = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            for (Map<String, Object> row : jdbc(shard).queryForList("select email, phones from user_info")) {
+                String email = (String) row.get("EMAIL");
+                assertEquals(shard, newRing.shardFor(email));
+                assertEquals("[[\"" + email.substring(4, email.indexOf('@')) + "\",\"1\",\"57\"]]", row.get("PHONES"));
+                total++;
+            }
+        }
+        assertEquals(USERS, total);
+        assertEquals(0, new ShardRebalancer(shards, new UserShards(newRing), 50).rebalance());
+    }
+}
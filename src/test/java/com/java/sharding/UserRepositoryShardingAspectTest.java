@@ -0,0 +1,28 @@
+package com.java.sharding;
+
+import com.java.model.UserInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRepositoryShardingAspectTest {
+
+    @Test
+    void constructor_RepositoryResultsMergeable_ShouldAccept() {
+        assertDoesNotThrow(() -> new UserRepositoryShardingAspect(new UserShards(new ConsistentHashRing(3, 64))));
+    }
+
+    @Test
+    void isMergeable_ShouldAcceptOnlyResultsThatCanBeCombined() {
+        assertTrue(UserRepositoryShardingAspect.isMergeable(List.class));
+        assertTrue(UserRepositoryShardingAspect.isMergeable(long.class));
+        assertTrue(UserRepositoryShardingAspect.isMergeable(Optional.class));
+        assertTrue(UserRepositoryShardingAspect.isMergeable(UserInfo.class));
+        assertFalse(UserRepositoryShardingAspect.isMergeable(Page.class));
+        assertFalse(UserRepositoryShardingAspect.isMergeable(Object.class));
+    }
+}
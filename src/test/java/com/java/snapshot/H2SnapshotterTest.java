@@ -0,0 +1,90 @@
+package com.java.snapshot;
+
+import com.java.sharding.UserShards;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class H2SnapshotterTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate newDatabase() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:snapshot-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("create table user_info (id uuid primary key, email varchar(255) unique, name varchar(255),"
+                + " phones varchar(2000))");
+        jdbc.execute("create table outbox_event (id bigint generated by default as identity primary key,"
+                + " payload varchar(4000))");
+        return jdbc;
+    }
+
+    private H2Snapshotter snapshotter(JdbcTemplate jdbc) {
+        H2Snapshotter snapshotter = new H2Snapshotter();
+        ReflectionTestUtils.setField(snapshotter, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(snapshotter, "userShards", UserShards.single());
+        ReflectionTestUtils.setField(snapshotter, "directory", directory.toString());
+        return snapshotter;
+    }
+
+    @Test
+    void snapshotIsRestoredIntoAnEmptyDatabase() {
+        JdbcTemplate source = newDatabase();
+        for (int i = 0; i < 100; i++) {
+            source.update("insert into user_info (id, email, name, phones) values (?, ?, ?, ?)",
+                    UUID.randomUUID(), "user" + i + "@test.com", "User " + i, "[[\"" + i + "\",\"1\",\"57\"]]");
+        }
+        source.update("insert into outbox_event (payload) values ('{}')");
+        snapshotter(source).snapshot();
+
+        assertTrue(Files.exists(directory.resolve("shard-0.sql.gz")));
+        assertFalse(Files.exists(directory.resolve("shard-0.sql.gz.tmp")));
+
+        JdbcTemplate target = newDatabase();
+        snapshotter(target).afterSingletonsInstantiated();
+
+        assertEquals(100, target.queryForObject("select count(*) from user_info", Integer.class));
+        assertEquals("[[\"42\",\"1\",\"57\"]]",
+                target.queryForObject("select phones from user_info where email = 'user42@test.com'", String.class));
+        // identity carries on after the restored rows, and the unique email constraint is back
+        target.update("insert into outbox_event (payload) values ('{}')");
+        assertEquals(2L, target.queryForObject("select max(id) from outbox_event", Long.class));
+        assertThrows(Exception.class, () -> target.update("insert into user_info (id, email) values (?, ?)",
+                UUID.randomUUID(), "user1@test.com"));
+    }
+
+    @Test
+    void columnsAddedSinceTheSnapshotAreRestoredWithTheirDefault() {
+        JdbcTemplate source = newDatabase();
+        source.update("insert into user_info (id, email) values (?, ?)", UUID.randomUUID(), "old@test.com");
+        snapshotter(source).snapshot();
+
+        JdbcTemplate target = newDatabase();
+        target.execute("alter table user_info add column version bigint default 0 not null");
+        snapshotter(target).afterSingletonsInstantiated();
+
+        assertEquals(0L, target.queryForObject("select version from user_info where email = 'old@test.com'", Long.class));
+    }
+
+    @Test
+    void databaseWithUsersIsNotOverwritten() {
+        JdbcTemplate source = newDatabase();
+        source.update("insert into user_info (id, email) values (?, ?)", UUID.randomUUID(), "old@test.com");
+        snapshotter(source).snapshot();
+
+        JdbcTemplate target = newDatabase();
+        target.update("insert into user_info (id, email) values (?, ?)", UUID.randomUUID(), "live@test.com");
+        snapshotter(target).afterSingletonsInstantiated();
+
+        assertEquals("live@test.com", target.queryForObject("select email from user_info", String.class));
+    }
+}
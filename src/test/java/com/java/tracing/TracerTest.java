@@ -0,0 +1,104 @@
+package com.java.tracing;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerTest {
+
+    private final InMemorySpanExporter exporter = new InMemorySpanExporter(100);
+
+    @Test
+    void childSpansNestUnderTheCurrentSpan() {
+        Tracer tracer = new Tracer(1.0, exporter);
+        TraceContext caller = new TraceContext("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", true);
+
+        try (Span root = tracer.startTrace("HTTP GET", caller)) {
+            try (Span child = tracer.startSpan("UserService.getUser")) {
+                tracer.startSpan("UserRepository.findByEmail").tag("rows", 1).close();
+                assertSame(child, tracer.current());
+            }
+            assertSame(root, tracer.current());
+        }
+        assertFalse(tracer.current().isRecording());
+
+        List<Span> trace = exporter.trace(caller.traceId());
+        assertEquals(List.of("UserRepository.findByEmail", "UserService.getUser", "HTTP GET"),
+                trace.stream().map(Span::getName).toList());
+        assertEquals(trace.get(1).getSpanId(), trace.get(0).getParentSpanId());
+        assertEquals(trace.get(2).getSpanId(), trace.get(1).getParentSpanId());
+        assertEquals(caller.spanId(), trace.get(2).getParentSpanId());
+        assertEquals("1", trace.get(0).getAttributes().get("rows"));
+        assertEquals(List.of(trace.get(2)), exporter.recentTraces(10));
+    }
+
+    @Test
+    void followsTheCallersSamplingDecisionAndOtherwiseTheRatio() {
+        Tracer never = new Tracer(0.0, exporter);
+        assertFalse(never.startTrace("HTTP GET", null).isRecording());
+        assertFalse(never.startSpan("UserService.getUser").isRecording());
+        Span sampled = never.startTrace("HTTP GET", new TraceContext("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", true));
+        assertTrue(sampled.isRecording());
+        sampled.close();
+
+        Tracer always = new Tracer(1.0, exporter);
+        assertFalse(always.startTrace("HTTP GET", new TraceContext("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", false)).isRecording());
+        try (Span root = always.startTrace("HTTP GET", null)) {
+            assertTrue(root.isRecording());
+            assertEquals(32, root.getTraceId().length());
+            assertEquals(root.getTraceId(), TraceContext.parse(root.context().format()).traceId());
+        }
+
+        assertFalse(Tracer.noop().startTrace("HTTP GET", sampled.context()).isRecording());
+    }
+
+    @Test
+    void capsSamplingForcedByCallers() {
+        Tracer tracer = new Tracer(0.0, 2, exporter);
+        TraceContext caller = new TraceContext("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", true);
+
+        int recorded = 0;
+        for (int i = 0; i < 10; i++) {
+            try (Span span = tracer.startTrace("HTTP GET", caller)) {
+                recorded += span.isRecording() ? 1 : 0;
+            }
+        }
+
+        // Two per second, the loop may straddle a second boundary
+        assertTrue(recorded >= 2 && recorded <= 4, "recorded " + recorded);
+    }
+
+    @Test
+    void recordsJdbcStatementsOnlyInsideSampledTraces() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:tracer-test;DB_CLOSE_DELAY=-1");
+        Tracer tracer = new Tracer(1.0, exporter);
+        TracingDataSource dataSource = new TracingDataSource(h2, tracer);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists t (id int)");
+        }
+        assertTrue(exporter.recentTraces(10).isEmpty());
+
+        String traceId;
+        try (Span root = tracer.startTrace("HTTP POST", null)) {
+            traceId = root.getTraceId();
+            try (Connection connection = dataSource.getConnection();
+                    PreparedStatement insert = connection.prepareStatement("insert into t values (?)")) {
+                insert.setInt(1, 1);
+                insert.executeUpdate();
+                assertSame(connection, insert.getConnection());
+            }
+        }
+
+        Span jdbc = exporter.trace(traceId).get(0);
+        assertEquals("jdbc.executeUpdate", jdbc.getName());
+        assertEquals("insert into t values (?)", jdbc.getAttributes().get("db.statement"));
+    }
+}
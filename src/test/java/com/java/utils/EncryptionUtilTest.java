@@ -0,0 +1,93 @@
+package com.java.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.KeyGenerator;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionUtilTest {
+
+    private static final String PASSWORD = "test-secret";
+
+    @TempDir
+    Path tempDir;
+
+    private EncryptionUtil newEncryptionUtil(Path keyStore, int activeVersion, boolean createIfMissing) {
+        EncryptionUtil util = new EncryptionUtil();
+        ReflectionTestUtils.setField(util, "keyStorePath", keyStore.toString());
+        ReflectionTestUtils.setField(util, "keyStorePassword", PASSWORD);
+        ReflectionTestUtils.setField(util, "activeVersion", activeVersion);
+        ReflectionTestUtils.setField(util, "createIfMissing", createIfMissing);
+        util.loadKeyRing();
+        return util;
+    }
+
+    private void addKeyVersion(Path keyStorePath, int version) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keyStorePath)) {
+            keyStore.load(in, PASSWORD.toCharArray());
+        }
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        keyStore.setEntry("user-key-v" + version, new KeyStore.SecretKeyEntry(keyGenerator.generateKey()),
+                new KeyStore.PasswordProtection(PASSWORD.toCharArray()));
+        try (OutputStream out = Files.newOutputStream(keyStorePath)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+    }
+
+    @Test
+    void encrypt_SharedKeyStore_ShouldDecryptOnAnotherInstance() {
+        Path keyStore = tempDir.resolve("keys.p12");
+        EncryptionUtil nodeA = newEncryptionUtil(keyStore, 0, true);
+        EncryptionUtil nodeB = newEncryptionUtil(keyStore, 0, false);
+
+        String encrypted = nodeA.encrypt("a2asfGfdfdf3");
+
+        assertTrue(encrypted.startsWith("v1:"));
+        assertEquals("a2asfGfdfdf3", nodeB.decrypt(encrypted));
+    }
+
+    @Test
+    void loadKeyRing_MissingKeyStoreWithoutCreate_ShouldFail() {
+        assertThrows(IllegalStateException.class,
+                () -> newEncryptionUtil(tempDir.resolve("missing.p12"), 0, false));
+    }
+
+    @Test
+    void reEncrypt_NewKeyVersion_ShouldMigrateOldValues() throws Exception {
+        Path keyStore = tempDir.resolve("keys.p12");
+        String oldValue = newEncryptionUtil(keyStore, 0, true).encrypt("a2asfGfdfdf3");
+
+        addKeyVersion(keyStore, 2);
+        EncryptionUtil rotated = newEncryptionUtil(keyStore, 0, false);
+
+        assertEquals(2, rotated.getCurrentVersion());
+        assertFalse(rotated.isCurrentVersion(oldValue));
+        assertEquals("a2asfGfdfdf3", rotated.decrypt(oldValue));
+
+        String newValue = rotated.reEncrypt(oldValue);
+        assertTrue(newValue.startsWith("v2:"));
+        assertEquals("a2asfGfdfdf3", rotated.decrypt(newValue));
+        assertSame(newValue, rotated.reEncrypt(newValue));
+    }
+
+    @Test
+    void loadKeyRing_PinnedActiveVersion_ShouldEncryptWithPinnedKey() throws Exception {
+        Path keyStore = tempDir.resolve("keys.p12");
+        newEncryptionUtil(keyStore, 0, true);
+        addKeyVersion(keyStore, 2);
+
+        EncryptionUtil pinned = newEncryptionUtil(keyStore, 1, false);
+
+        assertTrue(pinned.encrypt("a2asfGfdfdf3").startsWith("v1:"));
+    }
+}
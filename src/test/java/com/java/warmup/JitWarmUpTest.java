@@ -0,0 +1,60 @@
+package com.java.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JitWarmUpTest {
+
+    @Test
+    void stopsOnceARoundAddsLittleCompilationTime() {
+        AtomicInteger runs = new AtomicInteger();
+        AtomicLong compileMillis = new AtomicLong();
+        // 50 ms of compilation per iteration for the first 25 iterations, none afterwards
+        Runnable iteration = () -> {
+            if (runs.incrementAndGet() <= 25) {
+                compileMillis.addAndGet(50);
+            }
+        };
+
+        JitWarmUp.Result result = JitWarmUp.warmUp(iteration, compileMillis::get, 10, 1000,
+                TimeUnit.MINUTES.toNanos(1), 20);
+
+        assertTrue(result.settled());
+        assertEquals(40, result.iterations());
+        assertEquals(1250, result.compileMillis());
+    }
+
+    @Test
+    void stopsAtMaxIterationsWhileStillCompiling() {
+        AtomicLong compileMillis = new AtomicLong();
+
+        JitWarmUp.Result result = JitWarmUp.warmUp(() -> compileMillis.addAndGet(5), compileMillis::get, 10, 35,
+                TimeUnit.MINUTES.toNanos(1), 20);
+
+        assertFalse(result.settled());
+        assertEquals(35, result.iterations());
+    }
+
+    @Test
+    void stopsAtTheFirstFailingIteration() {
+        AtomicInteger runs = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        Runnable iteration = () -> {
+            if (runs.incrementAndGet() == 13) {
+                throw failure;
+            }
+        };
+
+        JitWarmUp.Result result = JitWarmUp.warmUp(iteration, () -> 0L, 10, 1000, TimeUnit.MINUTES.toNanos(1), 0);
+
+        assertSame(failure, result.failure());
+        assertFalse(result.settled());
+        assertEquals(12, result.iterations());
+        assertEquals(13, runs.get());
+    }
+}